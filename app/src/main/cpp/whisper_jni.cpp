@@ -1,15 +1,24 @@
 #include <jni.h>
 #include <android/log.h>
 #include <algorithm>
+#include <atomic>
 #include <cctype>
 #include <chrono>
+#include <condition_variable>
+#include <cstddef>
 #include <cstdint>
 #include <cstdio>
+#include <cstring>
+#include <initializer_list>
 #include <memory>
 #include <mutex>
+#include <sched.h>
 #include <sys/stat.h>
 #include <string>
 #include <string_view>
+#include <thread>
+#include <unistd.h>
+#include <utility>
 #include <vector>
 
 #include "whisper.h"
@@ -24,15 +33,96 @@ constexpr float kPcm16Scale = 1.0f / 32768.0f;
 #ifndef WHISPER_JNI_STREAM_RESERVE_SAMPLES
 #define WHISPER_JNI_STREAM_RESERVE_SAMPLES 4096
 #endif
+// Upper bound for one decode; the caller picks each window's size below it.
+#ifndef WHISPER_JNI_STREAM_MAX_WINDOW_SAMPLES
+#define WHISPER_JNI_STREAM_MAX_WINDOW_SAMPLES 128000
+#endif
+#ifndef WHISPER_JNI_STREAM_RETAIN_SAMPLES
+#define WHISPER_JNI_STREAM_RETAIN_SAMPLES 2048
+#endif
+
+// Encoder context sizing for short windows.
+constexpr int kFullAudioCtx = 1500;
+constexpr int kEncoderFramesPerSecond = 50;
+constexpr int kAudioCtxGranularity = 64;
+constexpr int kAudioCtxMarginFrames = 32;
+// Guard: windows shorter than this are too short to judge; below this many bytes per second of audio
+// the reduced output is treated as truncated. UTF-8 Japanese runs about 3 bytes per character.
+constexpr long long kAudioCtxGuardMinMs = 1000;
+constexpr long long kAudioCtxGuardBytesPerSecond = 3;
+constexpr int kAudioCtxProbeInterval = 64;
+constexpr int kMaxDecoderStates = 4;
+// Windows whose first decoder step puts at least this much probability on the no-speech token are
+// reported as non-speech instead of as text, including the stock "thanks for watching" hallucinations.
+constexpr float kNoSpeechThold = 0.6f;
+// Warmup pushes this much synthetic audio through every pooled state: long enough to take the
+// reduced-context path real windows use, with a single decoder step.
+constexpr int kWarmupMs = 1000;
+constexpr float kWarmupNoiseAmplitude = 1.0e-3f;
+// Thread calibration times this much of the same synthetic clip, best of a few runs. The encoder
+// dominates the cost and does not depend on what the audio says.
+constexpr int kBenchmarkMs = 4000;
+constexpr int kBenchmarkRuns = 2;
+
+struct AudioCtxStats {
+    long long calls = 0;
+    long long infer_ms = 0;
+    long long audio_ms = 0;
+};
+
+// A window cut from the stream, decoded on whichever pooled state is free.
+struct WindowJob {
+    std::vector<float> pcm;
+    size_t retry_samples = 0;
+    // Stream-clock position of pcm[0]: samples since the last reset, counting the retry tail.
+    size_t stream_offset_samples = 0;
+    size_t pending_after = 0;
+    unsigned long long generation = 0;
+    unsigned long long cut_seq = 0;
+    bool flush = false;
+};
 
 struct WhisperHandle {
+    // Loaded without a default state; every decode runs on one of `states`, which share the weights.
     whisper_context * context = nullptr;
+    // Guards settings and audio_ctx stats. Never held across inference.
     std::mutex mutex;
-    std::vector<jshort> pcm16;
-    std::vector<float> pcmf32;
+    std::mutex pool_mutex;
+    std::condition_variable pool_available;
+    std::vector<whisper_state *> states;
+    std::vector<whisper_state *> idle_states;
+    int active_decodes = 0;
+    // Streaming session: float PCM converted once on push. [stream_start, stream_pending_start) is the
+    // retry tail kept after a blank window, [stream_pending_start, stream.size()) is not yet cut.
+    // Guarded by stream_mutex alone so capture can keep appending while windows decode.
+    std::mutex stream_mutex;
+    std::vector<float> stream;
+    size_t stream_start = 0;
+    size_t stream_pending_start = 0;
+    // Bumped on every reset; a window decoded across a reset must not touch the new session's audio.
+    unsigned long long stream_generation = 0;
+    // Bumped on every cut; a blank window only hands its tail back if nothing was cut after it.
+    unsigned long long stream_cut_seq = 0;
+    // New audio cut since the last reset; the stream clock segment times are reported on.
+    size_t stream_cut_samples = 0;
+    bool reduced_audio_ctx = true;
+    int reduced_ctx_calls_since_probe = 0;
+    long long reduced_ctx_fallbacks = 0;
+    AudioCtxStats reduced_ctx_stats;
+    AudioCtxStats full_ctx_stats;
+    int stream_max_window_samples = WHISPER_JNI_STREAM_MAX_WINDOW_SAMPLES;
+    int stream_retain_samples = WHISPER_JNI_STREAM_RETAIN_SAMPLES;
     std::string language;
     int sample_rate_hz = WHISPER_SAMPLE_RATE;
     int thread_count = 4;
+    // Inference profile chosen at load; see WhisperInferenceProfile. beam_size 1 decodes greedily.
+    std::string profile = "BALANCED";
+    int beam_size = 1;
+    float temperature_inc = 0.2f;
+    int max_tokens = 0;
+    bool flash_attn = false;
+    // Let whisper split a window into timestamped segments instead of one untimed segment.
+    bool segment_timestamps = false;
 };
 
 void android_log(ggml_log_level level, const char * text, void * /* user_data */) {
@@ -138,32 +228,14 @@ void log_perf(long long trace_id, const char * stage, const std::string & detail
     );
 }
 
+// Resolved once in JNI_OnLoad; null when WhisperPerfLogger could not be found, in which case perf
+// lines only reach logcat.
+jclass g_perf_logger_class = nullptr;
+jmethodID g_perf_log_method = nullptr;
+
 void log_perf(JNIEnv * env, long long trace_id, const char * stage, const std::string & details) {
     log_perf(trace_id, stage, details);
-    if (env == nullptr || env->ExceptionCheck()) {
-        return;
-    }
-
-    jclass logger_class = env->FindClass("com/micklab/voicelistener/WhisperPerfLogger");
-    if (logger_class == nullptr) {
-        __android_log_print(ANDROID_LOG_ERROR, kLogTag, "Unable to resolve WhisperPerfLogger for file logging.");
-        if (env->ExceptionCheck()) {
-            env->ExceptionClear();
-        }
-        return;
-    }
-
-    jmethodID log_method = env->GetStaticMethodID(
-        logger_class,
-        "logFromNative",
-        "(JLjava/lang/String;Ljava/lang/String;)V"
-    );
-    if (log_method == nullptr) {
-        __android_log_print(ANDROID_LOG_ERROR, kLogTag, "Unable to resolve WhisperPerfLogger.logFromNative.");
-        env->DeleteLocalRef(logger_class);
-        if (env->ExceptionCheck()) {
-            env->ExceptionClear();
-        }
+    if (env == nullptr || env->ExceptionCheck() || g_perf_log_method == nullptr) {
         return;
     }
 
@@ -177,7 +249,6 @@ void log_perf(JNIEnv * env, long long trace_id, const char * stage, const std::s
         if (details_value != nullptr) {
             env->DeleteLocalRef(details_value);
         }
-        env->DeleteLocalRef(logger_class);
         if (env->ExceptionCheck()) {
             env->ExceptionClear();
         }
@@ -185,8 +256,8 @@ void log_perf(JNIEnv * env, long long trace_id, const char * stage, const std::s
     }
 
     env->CallStaticVoidMethod(
-        logger_class,
-        log_method,
+        g_perf_logger_class,
+        g_perf_log_method,
         static_cast<jlong>(trace_id),
         stage_value,
         details_value
@@ -198,7 +269,104 @@ void log_perf(JNIEnv * env, long long trace_id, const char * stage, const std::s
 
     env->DeleteLocalRef(details_value);
     env->DeleteLocalRef(stage_value);
-    env->DeleteLocalRef(logger_class);
+}
+
+// Per-window stages are recorded as fixed-size numeric events instead of log lines, so the
+// inference thread never formats text or calls into Java for them. NativePerfEvents drains the
+// ring in batches on its own thread and formats each event. Layout shared with NativePerfEvents:
+// [kind, traceId, fields...], unused fields 0.
+enum PerfEventKind : int64_t {
+    kPerfEventStreamInfer = 1,
+    kPerfEventAudioCtxProbe = 2,
+};
+constexpr int kPerfEventWords = 24;
+constexpr uint64_t kPerfRingCapacity = 1024;  // Power of two.
+
+struct PerfEvent {
+    int64_t words[kPerfEventWords];
+};
+
+// Bounded multi-producer queue (one sequence number per slot); decodes on several pooled states push
+// concurrently, and only the synchronized Java drain pops. A full ring drops the event and counts it.
+class PerfRing {
+public:
+    PerfRing() {
+        for (uint64_t index = 0; index < kPerfRingCapacity; ++index) {
+            slots_[index].sequence.store(index, std::memory_order_relaxed);
+        }
+    }
+
+    void push(const PerfEvent & event) {
+        uint64_t position = head_.load(std::memory_order_relaxed);
+        Slot * slot = nullptr;
+        while (true) {
+            slot = &slots_[position & (kPerfRingCapacity - 1)];
+            const uint64_t sequence = slot->sequence.load(std::memory_order_acquire);
+            const int64_t diff = static_cast<int64_t>(sequence) - static_cast<int64_t>(position);
+            if (diff == 0) {
+                if (head_.compare_exchange_weak(position, position + 1, std::memory_order_relaxed)) {
+                    break;
+                }
+            } else if (diff < 0) {
+                dropped_.fetch_add(1, std::memory_order_relaxed);
+                return;
+            } else {
+                position = head_.load(std::memory_order_relaxed);
+            }
+        }
+        slot->event = event;
+        slot->sequence.store(position + 1, std::memory_order_release);
+    }
+
+    // Single consumer.
+    bool pop(PerfEvent * event) {
+        const uint64_t position = tail_.load(std::memory_order_relaxed);
+        Slot & slot = slots_[position & (kPerfRingCapacity - 1)];
+        if (slot.sequence.load(std::memory_order_acquire) != position + 1) {
+            return false;
+        }
+        *event = slot.event;
+        slot.sequence.store(position + kPerfRingCapacity, std::memory_order_release);
+        tail_.store(position + 1, std::memory_order_relaxed);
+        return true;
+    }
+
+    long long dropped() const {
+        return static_cast<long long>(dropped_.load(std::memory_order_relaxed));
+    }
+
+private:
+    struct Slot {
+        std::atomic<uint64_t> sequence{0};
+        PerfEvent event{};
+    };
+
+    Slot slots_[kPerfRingCapacity];
+    alignas(64) std::atomic<uint64_t> head_{0};
+    alignas(64) std::atomic<uint64_t> tail_{0};
+    std::atomic<uint64_t> dropped_{0};
+};
+
+PerfRing g_perf_ring;
+
+void record_perf_event(PerfEventKind kind, long long trace_id, std::initializer_list<int64_t> fields) {
+    PerfEvent event{};
+    event.words[0] = kind;
+    event.words[1] = trace_id;
+    int index = 2;
+    for (int64_t field : fields) {
+        if (index >= kPerfEventWords) {
+            break;
+        }
+        event.words[index++] = field;
+    }
+    g_perf_ring.push(event);
+}
+
+int64_t float_bits(float value) {
+    uint32_t bits = 0;
+    std::memcpy(&bits, &value, sizeof(bits));
+    return static_cast<int64_t>(bits);
 }
 
 void throw_java_exception(JNIEnv * env, const char * class_name, const std::string & message) {
@@ -225,6 +393,116 @@ WhisperHandle * cast_handle(jlong handle) {
     return reinterpret_cast<WhisperHandle *>(static_cast<intptr_t>(handle));
 }
 
+// One whisper_context per model file, shared by every handle that loads it. whisper.cpp copies the
+// tensors into its own heap buffers whatever loader feeds it, so the weights are never backed by the
+// page cache; the saving is in loading and holding them once per process rather than once per handle.
+// Keyed by path plus file identity so a model replaced on the same path is loaded afresh.
+struct SharedModel {
+    std::string key;
+    whisper_context * context = nullptr;
+    int refs = 0;
+};
+
+std::mutex g_model_registry_mutex;
+std::vector<SharedModel> g_model_registry;
+
+enum class ModelSource {
+    Registry,
+    File
+};
+
+const char * model_source_name(ModelSource source) {
+    switch (source) {
+        case ModelSource::Registry:
+            return "registry";
+        case ModelSource::File:
+            return "file";
+    }
+    return "unknown";
+}
+
+std::string model_identity_key(const std::string & path) {
+    struct stat file_stat {
+    };
+    if (stat(path.c_str(), &file_stat) != 0) {
+        return "";
+    }
+    return path
+        + "#" + std::to_string(static_cast<unsigned long long>(file_stat.st_dev))
+        + ":" + std::to_string(static_cast<unsigned long long>(file_stat.st_ino))
+        + ":" + std::to_string(static_cast<long long>(file_stat.st_size))
+        + ":" + std::to_string(static_cast<long long>(file_stat.st_mtime));
+}
+
+long long resident_set_kb() {
+    FILE * statm = std::fopen("/proc/self/statm", "r");
+    if (statm == nullptr) {
+        return -1LL;
+    }
+    long long total_pages = 0;
+    long long resident_pages = 0;
+    const int fields = std::fscanf(statm, "%lld %lld", &total_pages, &resident_pages);
+    std::fclose(statm);
+    if (fields != 2) {
+        return -1LL;
+    }
+    return resident_pages * (static_cast<long long>(sysconf(_SC_PAGESIZE)) / 1024LL);
+}
+
+// Loading holds the registry lock so two handles asking for the same file never load it twice.
+whisper_context * acquire_shared_model(
+    const std::string & path,
+    whisper_context_params params,
+    ModelSource * source,
+    int * refs
+) {
+    // Flash attention is fixed when the context is created, so it is part of what can be shared.
+    const std::string identity = model_identity_key(path);
+    const std::string key = identity.empty() ? identity : identity + (params.flash_attn ? "|fa" : "");
+    std::lock_guard<std::mutex> guard(g_model_registry_mutex);
+    if (!key.empty()) {
+        for (SharedModel & entry : g_model_registry) {
+            if (entry.key == key) {
+                entry.refs++;
+                *source = ModelSource::Registry;
+                *refs = entry.refs;
+                return entry.context;
+            }
+        }
+    }
+
+    whisper_context * context = whisper_init_from_file_with_params_no_state(path.c_str(), params);
+    *source = ModelSource::File;
+    if (context == nullptr) {
+        return nullptr;
+    }
+    SharedModel entry;
+    entry.key = key;
+    entry.context = context;
+    entry.refs = 1;
+    g_model_registry.push_back(std::move(entry));
+    *refs = 1;
+    return context;
+}
+
+// Returns the references left; the context is freed when that reaches 0.
+int release_shared_model(whisper_context * context) {
+    std::lock_guard<std::mutex> guard(g_model_registry_mutex);
+    for (auto it = g_model_registry.begin(); it != g_model_registry.end(); ++it) {
+        if (it->context != context) {
+            continue;
+        }
+        const int refs = --it->refs;
+        if (refs == 0) {
+            whisper_free(context);
+            g_model_registry.erase(it);
+        }
+        return refs;
+    }
+    whisper_free(context);
+    return 0;
+}
+
 }  // namespace
 
 extern "C"
@@ -235,10 +513,17 @@ Java_com_micklab_voicelistener_WhisperEngine_nativeLoadModel(
     jstring model_path,
     jint sample_rate_hz,
     jstring language,
-    jint thread_count
+    jint thread_count,
+    jstring profile,
+    jint beam_size,
+    jfloat temperature_inc,
+    jboolean flash_attn,
+    jint max_tokens,
+    jboolean segment_timestamps
 ) {
     const std::string model_path_value = get_string_utf(env, model_path);
     const std::string language_value = get_string_utf(env, language);
+    const std::string profile_value = get_string_utf(env, profile);
     const int thread_count_value = clamp_thread_count(thread_count);
     const auto load_started_at = std::chrono::steady_clock::now();
     if (model_path_value.empty()) {
@@ -251,9 +536,13 @@ Java_com_micklab_voicelistener_WhisperEngine_nativeLoadModel(
 
     whisper_context_params context_params = whisper_context_default_params();
     context_params.use_gpu = false;
-    context_params.flash_attn = false;
+    context_params.flash_attn = flash_attn == JNI_TRUE;
 
-    whisper_context * context = whisper_init_from_file_with_params(model_path_value.c_str(), context_params);
+    const long long rss_before_kb = resident_set_kb();
+    ModelSource model_source = ModelSource::File;
+    int model_refs = 0;
+    whisper_context * context = acquire_shared_model(model_path_value, context_params, &model_source, &model_refs);
+    const long long rss_after_kb = resident_set_kb();
     const auto load_finished_at = std::chrono::steady_clock::now();
     const long long load_ms = elapsed_ms(load_started_at, load_finished_at);
     if (context == nullptr) {
@@ -265,6 +554,7 @@ Java_com_micklab_voicelistener_WhisperEngine_nativeLoadModel(
                 + " sampleRateHz=" + std::to_string(sample_rate_hz)
                 + " language=" + (language_value.empty() ? std::string("auto") : language_value)
                 + " threadCount=" + std::to_string(thread_count_value)
+                + " loader=" + model_source_name(model_source)
                 + " elapsedMs=" + std::to_string(load_ms)
         );
         throw_java_exception(env, "java/lang/IllegalStateException", "Failed to initialize whisper context.");
@@ -276,8 +566,13 @@ Java_com_micklab_voicelistener_WhisperEngine_nativeLoadModel(
     handle->sample_rate_hz = sample_rate_hz <= 0 ? WHISPER_SAMPLE_RATE : sample_rate_hz;
     handle->thread_count = thread_count_value;
     handle->language = language_value;
-    handle->pcmf32.reserve(static_cast<size_t>(WHISPER_JNI_STREAM_RESERVE_SAMPLES));
-    handle->pcm16.reserve(static_cast<size_t>(WHISPER_JNI_STREAM_RESERVE_SAMPLES));
+    handle->profile = profile_value.empty() ? std::string("BALANCED") : profile_value;
+    handle->beam_size = std::max(1, static_cast<int>(beam_size));
+    handle->temperature_inc = std::max(0.0f, static_cast<float>(temperature_inc));
+    handle->max_tokens = std::max(0, static_cast<int>(max_tokens));
+    handle->flash_attn = context_params.flash_attn;
+    handle->segment_timestamps = segment_timestamps == JNI_TRUE;
+    handle->stream.reserve(static_cast<size_t>(WHISPER_JNI_STREAM_RESERVE_SAMPLES) * 4U);
 
     const std::string quantization = infer_quantization(model_path_value);
     const long long model_size_bytes_value = file_size_bytes(model_path_value);
@@ -306,91 +601,168 @@ Java_com_micklab_voicelistener_WhisperEngine_nativeLoadModel(
             + " streamChunkSamples=" + std::to_string(WHISPER_JNI_STREAM_CHUNK_SAMPLES)
             + " reserveSamples=" + std::to_string(WHISPER_JNI_STREAM_RESERVE_SAMPLES)
             + " quantization=" + quantization
+            + " profile=" + handle->profile
+            + " beamSize=" + std::to_string(handle->beam_size)
+            + " temperatureInc=" + std::to_string(handle->temperature_inc)
+            + " flashAttn=" + std::string(handle->flash_attn ? "true" : "false")
+            + " maxTokens=" + std::to_string(handle->max_tokens)
+            + " segmentTimestamps=" + std::string(handle->segment_timestamps ? "true" : "false")
+            + " loader=" + model_source_name(model_source)
+            + " weights=heap"
+            + " modelRefs=" + std::to_string(model_refs)
             + " elapsedMs=" + std::to_string(load_ms)
+            + " rssBeforeKb=" + std::to_string(rss_before_kb)
+            + " rssAfterKb=" + std::to_string(rss_after_kb)
     );
 
     return static_cast<jlong>(reinterpret_cast<intptr_t>(handle.release()));
 }
 
-extern "C"
-JNIEXPORT jstring JNICALL
-Java_com_micklab_voicelistener_WhisperEngine_nativeTranscribe(
-    JNIEnv * env,
-    jobject /* thiz */,
-    jlong native_handle,
-    jshortArray audio_buffer,
-    jlong trace_id,
-    jint queue_length
-) {
-    const long long trace_id_value = static_cast<long long>(trace_id);
-    const int queue_length_value = std::max(0, static_cast<int>(queue_length));
-    WhisperHandle * handle = cast_handle(native_handle);
-    if (handle == nullptr || handle->context == nullptr || audio_buffer == nullptr) {
-        log_perf(env, trace_id_value, "native.transcribe.skip", "reason=invalid-input");
-        return env->NewStringUTF("");
-    }
+namespace {
 
-    const jsize sample_count = env->GetArrayLength(audio_buffer);
-    if (sample_count <= 0) {
-        log_perf(env, trace_id_value, "native.transcribe.skip", "reason=empty-buffer");
-        return env->NewStringUTF("");
+size_t stream_pending_samples(const WhisperHandle * handle) {
+    return handle->stream.size() - handle->stream_pending_start;
+}
+
+size_t stream_retained_samples(const WhisperHandle * handle) {
+    return handle->stream_pending_start - handle->stream_start;
+}
+
+void reset_stream(WhisperHandle * handle) {
+    handle->stream.clear();
+    handle->stream_start = 0;
+    handle->stream_pending_start = 0;
+    handle->stream_cut_samples = 0;
+    handle->stream_generation++;
+}
+
+// Drops consumed audio from the front once it outgrows the reserve; only the live tail is moved.
+void compact_stream(WhisperHandle * handle) {
+    if (handle->stream_start < static_cast<size_t>(WHISPER_JNI_STREAM_RESERVE_SAMPLES)) {
+        return;
     }
+    handle->stream.erase(
+        handle->stream.begin(),
+        handle->stream.begin() + static_cast<std::ptrdiff_t>(handle->stream_start)
+    );
+    handle->stream_pending_start -= handle->stream_start;
+    handle->stream_start = 0;
+}
 
-    const auto total_started_at = std::chrono::steady_clock::now();
-    const auto lock_requested_at = total_started_at;
-    std::lock_guard<std::mutex> guard(handle->mutex);
-    const auto lock_acquired_at = std::chrono::steady_clock::now();
-    const long long lock_wait_ms = elapsed_ms(lock_requested_at, lock_acquired_at);
+// Copies retry tail plus `taken` pending samples into a job and consumes them. Caller holds stream_mutex.
+WindowJob * cut_window(WhisperHandle * handle, size_t taken, bool flush) {
+    std::unique_ptr<WindowJob> job(new WindowJob());
+    job->retry_samples = stream_retained_samples(handle);
+    // The retry tail is the audio just before the pending samples, so the window starts that far back.
+    job->stream_offset_samples = handle->stream_cut_samples - std::min(handle->stream_cut_samples, job->retry_samples);
+    handle->stream_cut_samples += taken;
+    const size_t window_end = handle->stream_pending_start + taken;
+    job->pcm.assign(
+        handle->stream.begin() + static_cast<std::ptrdiff_t>(handle->stream_start),
+        handle->stream.begin() + static_cast<std::ptrdiff_t>(window_end)
+    );
+    job->flush = flush;
+    if (flush) {
+        reset_stream(handle);
+    } else {
+        handle->stream_start = window_end;
+        handle->stream_pending_start = window_end;
+        if (handle->stream_start == handle->stream.size()) {
+            handle->stream.clear();
+            handle->stream_start = 0;
+            handle->stream_pending_start = 0;
+        }
+    }
+    job->pending_after = stream_pending_samples(handle);
+    job->generation = handle->stream_generation;
+    job->cut_seq = ++handle->stream_cut_seq;
+    return job.release();
+}
 
-    const std::string language_value = handle->language.empty() ? "auto" : handle->language;
-    const long long started_at_ms = now_epoch_ms();
-    log_perf(
-        env,
-        trace_id_value,
-        "native.transcribe.begin",
-        "startedAtMs=" + std::to_string(started_at_ms)
-            + " chunkSamples=" + std::to_string(sample_count)
-            + " chunkBytes=" + std::to_string(static_cast<long long>(sample_count) * static_cast<long long>(sizeof(jshort)))
-            + " samples=" + std::to_string(sample_count)
-            + " bufferMs=" + std::to_string(samples_to_ms(sample_count, handle->sample_rate_hz))
-            + " sampleRateHz=" + std::to_string(handle->sample_rate_hz)
-            + " threadCount=" + std::to_string(handle->thread_count)
-            + " language=" + language_value
-            + " lockWaitMs=" + std::to_string(lock_wait_ms)
-            + " queueLength=" + std::to_string(queue_length_value)
+// After a blank window, puts its last `retain` samples back in front of the pending audio so the
+// next window starts with them. Skipped once a later window has been cut or the session was reset.
+void restore_retry_tail(WhisperHandle * handle, const WindowJob & job) {
+    std::lock_guard<std::mutex> stream_guard(handle->stream_mutex);
+    if (job.generation != handle->stream_generation || job.cut_seq != handle->stream_cut_seq) {
+        return;
+    }
+    const size_t retain = std::min(job.pcm.size(), static_cast<size_t>(handle->stream_retain_samples));
+    if (retain == 0U) {
+        return;
+    }
+    handle->stream.insert(
+        handle->stream.begin() + static_cast<std::ptrdiff_t>(handle->stream_pending_start),
+        job.pcm.end() - static_cast<std::ptrdiff_t>(retain),
+        job.pcm.end()
     );
+    handle->stream_pending_start += retain;
+}
 
-    handle->pcm16.resize(static_cast<size_t>(sample_count));
-    handle->pcmf32.resize(static_cast<size_t>(sample_count));
-    const auto copy_started_at = std::chrono::steady_clock::now();
-    env->GetShortArrayRegion(audio_buffer, 0, sample_count, handle->pcm16.data());
-    const auto copy_finished_at = std::chrono::steady_clock::now();
-    const long long copy_ms = elapsed_ms(copy_started_at, copy_finished_at);
-    if (env->ExceptionCheck()) {
-        log_perf(
-            env,
-            trace_id_value,
-            "native.copy.error",
-            "samples=" + std::to_string(sample_count)
-                + " copyMs=" + std::to_string(copy_ms)
-        );
-        return nullptr;
+// Threads one decode gets from a `thread_count` budget: an even share per pool state.
+int per_state_threads(const WhisperHandle * handle, int thread_count) {
+    return std::max(1, thread_count / std::max(1, static_cast<int>(handle->states.size())));
+}
+
+// Borrows an idle state, blocking while all are busy. Threads are split evenly across the pool up
+// front: n_threads is fixed for the whole whisper_full call, so sizing a lease by the decodes running
+// at the moment would let the first decode keep every thread while later ones add more on top.
+class StateLease {
+public:
+    explicit StateLease(WhisperHandle * handle) : handle_(handle) {
+        std::unique_lock<std::mutex> guard(handle_->pool_mutex);
+        handle_->pool_available.wait(guard, [this] { return !handle_->idle_states.empty(); });
+        state_ = handle_->idle_states.back();
+        handle_->idle_states.pop_back();
+        handle_->active_decodes++;
+        thread_count_ = per_state_threads(handle_, handle_->thread_count);
+        concurrent_ = handle_->active_decodes;
     }
 
-    const auto convert_started_at = std::chrono::steady_clock::now();
-    for (jsize index = 0; index < sample_count; ++index) {
-        handle->pcmf32[static_cast<size_t>(index)] =
-            static_cast<float>(handle->pcm16[static_cast<size_t>(index)]) * kPcm16Scale;
+    ~StateLease() {
+        {
+            std::lock_guard<std::mutex> guard(handle_->pool_mutex);
+            handle_->idle_states.push_back(state_);
+            handle_->active_decodes--;
+        }
+        handle_->pool_available.notify_one();
+    }
+
+    StateLease(const StateLease &) = delete;
+    StateLease & operator=(const StateLease &) = delete;
+
+    whisper_state * state() const { return state_; }
+    int thread_count() const { return thread_count_; }
+    int concurrent() const { return concurrent_; }
+
+private:
+    WhisperHandle * handle_;
+    whisper_state * state_ = nullptr;
+    int thread_count_ = 1;
+    int concurrent_ = 1;
+};
+
+void free_states(WhisperHandle * handle) {
+    std::lock_guard<std::mutex> guard(handle->pool_mutex);
+    for (whisper_state * state : handle->states) {
+        whisper_free_state(state);
     }
-    const auto convert_finished_at = std::chrono::steady_clock::now();
-    const long long convert_ms = elapsed_ms(convert_started_at, convert_finished_at);
+    handle->states.clear();
+    handle->idle_states.clear();
+}
 
-    whisper_full_params full_params = whisper_full_default_params(WHISPER_SAMPLING_GREEDY);
-    full_params.n_threads = handle->thread_count;
+whisper_full_params make_full_params(const WhisperHandle * handle, int thread_count) {
+    const bool beam_search = handle->beam_size > 1;
+    whisper_full_params full_params = whisper_full_default_params(
+        beam_search ? WHISPER_SAMPLING_BEAM_SEARCH : WHISPER_SAMPLING_GREEDY
+    );
+    if (beam_search) {
+        full_params.beam_search.beam_size = handle->beam_size;
+    }
+    full_params.n_threads = thread_count;
     full_params.translate = false;
     full_params.no_context = true;
-    full_params.no_timestamps = true;
-    full_params.single_segment = true;
+    full_params.no_timestamps = !handle->segment_timestamps;
+    full_params.single_segment = !handle->segment_timestamps;
     full_params.print_special = false;
     full_params.print_progress = false;
     full_params.print_realtime = false;
@@ -399,78 +771,722 @@ Java_com_micklab_voicelistener_WhisperEngine_nativeTranscribe(
     // In whisper.cpp v1.8.4, max_len is a character limit; forcing 1 would fragment output excessively.
     full_params.max_len = 0;
     full_params.temperature = 0.0f;
-    full_params.max_tokens = 0;
+    // Only used when a decode fails its entropy/logprob checks: rerun at increasing temperatures.
+    full_params.temperature_inc = handle->temperature_inc;
+    full_params.max_tokens = handle->max_tokens;
     full_params.suppress_blank = true;
     full_params.suppress_nst = true;
+    full_params.no_speech_thold = kNoSpeechThold;
     full_params.language = handle->language.empty() ? "auto" : handle->language.c_str();
     full_params.detect_language = handle->language.empty() || handle->language == "auto";
+    return full_params;
+}
+
+// Reduced encoder context: whisper_full encodes 1500 frames (30 s) regardless of input length, but
+// audio_ctx can shrink that to cover just the window. Whisper's encoder yields 50 frames per second.
+int reduced_audio_ctx(int sample_count, int sample_rate_hz) {
+    const long long frames = (static_cast<long long>(sample_count) * kEncoderFramesPerSecond + sample_rate_hz - 1) / sample_rate_hz;
+    const long long padded = frames + kAudioCtxMarginFrames;
+    const long long rounded = ((padded + kAudioCtxGranularity - 1) / kAudioCtxGranularity) * kAudioCtxGranularity;
+    if (rounded >= kFullAudioCtx) {
+        return 0;
+    }
+    return static_cast<int>(std::max<long long>(rounded, kAudioCtxGranularity));
+}
+
+// A shortened context tends to drop the tail or the whole utterance rather than garble it, so a blank
+// or implausibly short result on a window of real length is retried with the full context.
+// Codes are reported in the native.stream.infer perf event; see NativePerfEvents.
+enum CtxFallback : int64_t {
+    kCtxFallbackNone = 0,
+    kCtxFallbackEmpty = 1,
+    kCtxFallbackShort = 2,
+};
+
+CtxFallback truncation_reason(const std::string & text, int sample_count, int sample_rate_hz) {
+    const long long audio_ms = samples_to_ms(sample_count, sample_rate_hz);
+    if (audio_ms < kAudioCtxGuardMinMs) {
+        return kCtxFallbackNone;
+    }
+    if (text.empty()) {
+        return kCtxFallbackEmpty;
+    }
+    const long long expected_bytes = audio_ms * kAudioCtxGuardBytesPerSecond / 1000LL;
+    if (static_cast<long long>(text.size()) < expected_bytes) {
+        return kCtxFallbackShort;
+    }
+    return kCtxFallbackNone;
+}
+
+struct SegmentInfo {
+    // Untrimmed, so the segments concatenate back to the decoded text.
+    std::string text;
+    long long t0_ms = 0;
+    long long t1_ms = 0;
+    float avg_token_p = 0.0f;
+};
+
+struct WindowDecode {
+    int result = 0;
+    int segment_count = 0;
+    long long infer_ms = 0;
+    long long extract_ms = 0;
+    float no_speech_prob = 0.0f;
+    std::string text;
+    std::vector<SegmentInfo> segments;
+
+    // Judged only from segments actually decoded. An empty segment list is a blank window: on a
+    // reduced context it is also what a dropped utterance looks like, so it goes to the full-context
+    // retry and, if still blank, keeps its retry tail.
+    bool no_speech() const {
+        return result == 0 && segment_count > 0 && no_speech_prob >= kNoSpeechThold;
+    }
+};
 
+WindowDecode decode_window(
+    WhisperHandle * handle,
+    whisper_state * state,
+    int thread_count,
+    const std::vector<float> & pcm,
+    int audio_ctx,
+    int max_tokens = 0
+) {
+    whisper_full_params full_params = make_full_params(handle, thread_count);
+    full_params.audio_ctx = audio_ctx;
+    if (max_tokens > 0) {
+        full_params.max_tokens = max_tokens;
+    }
+    WindowDecode decode;
     const auto inference_started_at = std::chrono::steady_clock::now();
-    const int result = whisper_full(
+    decode.result = whisper_full_with_state(
         handle->context,
+        state,
         full_params,
-        handle->pcmf32.data(),
-        sample_count
+        pcm.data(),
+        static_cast<int>(pcm.size())
     );
-    const auto inference_finished_at = std::chrono::steady_clock::now();
-    const long long inference_ms = elapsed_ms(inference_started_at, inference_finished_at);
-    if (result != 0) {
+    decode.infer_ms = elapsed_ms(inference_started_at, std::chrono::steady_clock::now());
+    if (decode.result != 0) {
+        return decode;
+    }
+    const auto extract_started_at = std::chrono::steady_clock::now();
+    decode.segment_count = whisper_full_n_segments_from_state(state);
+    decode.segments.reserve(static_cast<size_t>(std::max(0, decode.segment_count)));
+    // Timestamp, language and other special tokens sort after end-of-text; only text tokens count
+    // toward the segment's confidence.
+    const whisper_token eot = whisper_token_eot(handle->context);
+    std::string text;
+    for (int segment_index = 0; segment_index < decode.segment_count; ++segment_index) {
+        SegmentInfo segment;
+        const char * segment_text = whisper_full_get_segment_text_from_state(state, segment_index);
+        if (segment_text != nullptr) {
+            segment.text = segment_text;
+            text.append(segment_text);
+        }
+        // whisper.cpp timestamps are in 10 ms units.
+        segment.t0_ms = whisper_full_get_segment_t0_from_state(state, segment_index) * 10LL;
+        segment.t1_ms = whisper_full_get_segment_t1_from_state(state, segment_index) * 10LL;
+        const int token_count = whisper_full_n_tokens_from_state(state, segment_index);
+        float p_sum = 0.0f;
+        int p_count = 0;
+        for (int token_index = 0; token_index < token_count; ++token_index) {
+            if (whisper_full_get_token_id_from_state(state, segment_index, token_index) >= eot) {
+                continue;
+            }
+            p_sum += whisper_full_get_token_p_from_state(state, segment_index, token_index);
+            ++p_count;
+        }
+        segment.avg_token_p = p_count > 0 ? p_sum / static_cast<float>(p_count) : 0.0f;
+        decode.segments.push_back(std::move(segment));
+        decode.no_speech_prob = std::max(
+            decode.no_speech_prob,
+            whisper_full_get_segment_no_speech_prob_from_state(state, segment_index)
+        );
+    }
+    decode.extract_ms = elapsed_ms(extract_started_at, std::chrono::steady_clock::now());
+    decode.text = trim_copy(text);
+    return decode;
+}
+
+// Per-second cost of each mode, so the two can be compared across differently sized windows.
+void record_audio_ctx_cost(WhisperHandle * handle, bool reduced, long long infer_ms, int sample_count) {
+    std::lock_guard<std::mutex> guard(handle->mutex);
+    AudioCtxStats & stats = reduced ? handle->reduced_ctx_stats : handle->full_ctx_stats;
+    stats.calls++;
+    stats.infer_ms += infer_ms;
+    stats.audio_ms += samples_to_ms(sample_count, handle->sample_rate_hz);
+}
+
+std::string describe_audio_ctx_stats(const AudioCtxStats & stats) {
+    const long long ms_per_audio_s = stats.audio_ms > 0 ? (stats.infer_ms * 1000LL) / stats.audio_ms : 0LL;
+    return "calls=" + std::to_string(stats.calls)
+        + " inferMs=" + std::to_string(stats.infer_ms)
+        + " audioMs=" + std::to_string(stats.audio_ms)
+        + " inferMsPerAudioS=" + std::to_string(ms_per_audio_s);
+}
+
+// Decodes a cut window on a pooled state. Holds no handle lock during inference. Returns false after
+// throwing a Java exception. A window rejected as non-speech comes back with its text and segments
+// cleared; check decode->no_speech().
+bool infer_window(
+    JNIEnv * env,
+    WhisperHandle * handle,
+    const WindowJob & job,
+    long long trace_id,
+    int queue_length,
+    WindowDecode * out
+) {
+    const int sample_count = static_cast<int>(job.pcm.size());
+    const bool flush = job.flush;
+    const long long started_at_ms = now_epoch_ms();
+    const auto started_at = std::chrono::steady_clock::now();
+    bool reduced_enabled = false;
+    {
+        std::lock_guard<std::mutex> guard(handle->mutex);
+        reduced_enabled = handle->reduced_audio_ctx;
+    }
+    const int audio_ctx = reduced_enabled ? reduced_audio_ctx(sample_count, handle->sample_rate_hz) : 0;
+
+    StateLease lease(handle);
+    const long long state_wait_ms = elapsed_ms(started_at, std::chrono::steady_clock::now());
+    WindowDecode decode = decode_window(handle, lease.state(), lease.thread_count(), job.pcm, audio_ctx);
+    record_audio_ctx_cost(handle, audio_ctx > 0, decode.infer_ms, sample_count);
+    CtxFallback fallback_reason = kCtxFallbackNone;
+    long long reduced_infer_ms = -1;
+    // Non-speech with real segments is settled on the cheap pass; a blank or truncated result is
+    // rerun with the full context before it is classified.
+    if (audio_ctx > 0 && decode.result == 0 && !decode.no_speech()) {
+        fallback_reason = truncation_reason(decode.text, sample_count, handle->sample_rate_hz);
+        // Periodic paired run keeps the full-context baseline current even when nothing falls back.
+        bool probe = false;
+        {
+            std::lock_guard<std::mutex> guard(handle->mutex);
+            probe = fallback_reason == kCtxFallbackNone
+                && ++handle->reduced_ctx_calls_since_probe >= kAudioCtxProbeInterval;
+            if (fallback_reason != kCtxFallbackNone || probe) {
+                handle->reduced_ctx_calls_since_probe = 0;
+            }
+            if (fallback_reason != kCtxFallbackNone) {
+                handle->reduced_ctx_fallbacks++;
+            }
+        }
+        if (fallback_reason != kCtxFallbackNone || probe) {
+            WindowDecode full_decode = decode_window(handle, lease.state(), lease.thread_count(), job.pcm, 0);
+            record_audio_ctx_cost(handle, false, full_decode.infer_ms, sample_count);
+            if (probe) {
+                record_perf_event(kPerfEventAudioCtxProbe, trace_id, {
+                    sample_count,
+                    audio_ctx,
+                    decode.infer_ms,
+                    full_decode.infer_ms,
+                    static_cast<int64_t>(decode.text.size()),
+                    static_cast<int64_t>(full_decode.text.size()),
+                });
+            } else {
+                reduced_infer_ms = decode.infer_ms;
+                decode = std::move(full_decode);
+            }
+        }
+    }
+    if (decode.result != 0) {
         log_perf(
             env,
-            trace_id_value,
+            trace_id,
             "native.infer.error",
             "samples=" + std::to_string(sample_count)
                 + " bufferMs=" + std::to_string(samples_to_ms(sample_count, handle->sample_rate_hz))
-                + " copyMs=" + std::to_string(copy_ms)
-                + " convertMs=" + std::to_string(convert_ms)
-                + " inferMs=" + std::to_string(inference_ms)
-                + " result=" + std::to_string(result)
+                + " inferMs=" + std::to_string(decode.infer_ms)
+                + " audioCtx=" + std::to_string(audio_ctx)
+                + " result=" + std::to_string(decode.result)
+                + " flush=" + std::string(flush ? "true" : "false")
         );
         throw_java_exception(env, "java/lang/IllegalStateException", "Whisper inference failed.");
+        return false;
+    }
+    const bool no_speech = decode.no_speech();
+    const size_t rejected_chars = no_speech ? decode.text.size() : 0U;
+    if (no_speech) {
+        decode.text.clear();
+        decode.segments.clear();
+    }
+
+    // Language, profile and sample rate are fixed per handle and already in native.load.
+    record_perf_event(kPerfEventStreamInfer, trace_id, {
+        started_at_ms,
+        now_epoch_ms(),
+        sample_count,
+        samples_to_ms(sample_count, handle->sample_rate_hz),
+        static_cast<int64_t>(job.retry_samples),
+        static_cast<int64_t>(job.pending_after),
+        lease.thread_count(),
+        lease.concurrent(),
+        state_wait_ms,
+        queue_length,
+        audio_ctx,
+        decode.infer_ms,
+        reduced_infer_ms,
+        fallback_reason,
+        no_speech ? 1 : 0,
+        float_bits(decode.no_speech_prob),
+        static_cast<int64_t>(rejected_chars),
+        decode.extract_ms,
+        decode.segment_count,
+        static_cast<int64_t>(decode.text.size()),
+        flush ? 1 : 0,
+    });
+    *out = std::move(decode);
+    return true;
+}
+
+// Layout shared with RecognitionResult.unpack.
+constexpr int kResultHeader = 6;
+constexpr int kResultStride = 4;
+constexpr float kResultStatusSpeech = 0.0f;
+constexpr float kResultStatusNoSpeech = 1.0f;
+
+// Length in UTF-16 code units, which is how Java indexes the string built from this text.
+size_t utf16_length(const std::string & utf8) {
+    size_t units = 0;
+    for (unsigned char ch : utf8) {
+        if ((ch & 0xC0U) == 0x80U) {
+            continue;
+        }
+        units += (ch >= 0xF0U) ? 2U : 1U;
+    }
+    return units;
+}
+
+// One string for all segment text plus one float array for everything else, so a result costs two
+// JNI writes regardless of how many segments it has. Segments beyond the array are counted in the
+// header but not described. Segment times are moved from the window onto the stream clock, so
+// consumers can line up windows that share a retry tail.
+jstring pack_result(
+    JNIEnv * env,
+    const WhisperHandle * handle,
+    const WindowJob * job,
+    const WindowDecode & decode,
+    bool no_speech,
+    jfloatArray meta
+) {
+    const jsize capacity = meta == nullptr ? 0 : env->GetArrayLength(meta);
+    if (capacity < kResultHeader) {
+        throw_java_exception(env, "java/lang/IllegalArgumentException", "Result buffer is too small.");
         return nullptr;
     }
+    const int writable = static_cast<int>((capacity - kResultHeader) / kResultStride);
+    const int written = std::min(writable, static_cast<int>(decode.segments.size()));
+    std::vector<float> values(static_cast<size_t>(kResultHeader + written * kResultStride), 0.0f);
+    values[0] = no_speech ? kResultStatusNoSpeech : kResultStatusSpeech;
+    values[1] = static_cast<float>(written);
+    values[2] = decode.no_speech_prob;
+    values[3] = static_cast<float>(decode.segments.size());
+    long long window_start_ms = 0;
+    values[4] = -1.0f;
+    if (handle != nullptr && job != nullptr) {
+        window_start_ms = samples_to_ms(static_cast<int>(job->stream_offset_samples), handle->sample_rate_hz);
+        values[4] = static_cast<float>(window_start_ms);
+        values[5] = static_cast<float>(samples_to_ms(static_cast<int>(job->retry_samples), handle->sample_rate_hz));
+    }
+    std::string text;
+    size_t end_offset = 0;
+    for (int index = 0; index < static_cast<int>(decode.segments.size()); ++index) {
+        const SegmentInfo & segment = decode.segments[static_cast<size_t>(index)];
+        text.append(segment.text);
+        end_offset += utf16_length(segment.text);
+        if (index >= written) {
+            continue;
+        }
+        float * record = values.data() + kResultHeader + index * kResultStride;
+        record[0] = static_cast<float>(window_start_ms + segment.t0_ms);
+        record[1] = static_cast<float>(window_start_ms + segment.t1_ms);
+        record[2] = segment.avg_token_p;
+        record[3] = static_cast<float>(end_offset);
+    }
+    env->SetFloatArrayRegion(meta, 0, static_cast<jsize>(values.size()), values.data());
+    return env->NewStringUTF(text.c_str());
+}
 
-    const auto extract_started_at = std::chrono::steady_clock::now();
-    const int segment_count = whisper_full_n_segments(handle->context);
-    std::string transcription;
-    for (int segment_index = 0; segment_index < segment_count; ++segment_index) {
-        const char * segment_text = whisper_full_get_segment_text(handle->context, segment_index);
-        if (segment_text != nullptr) {
-            transcription.append(segment_text);
+bool has_context(WhisperHandle * handle) {
+    return handle != nullptr && handle->context != nullptr;
+}
+
+// Faint deterministic noise rather than digital silence, so the input resembles a quiet room.
+std::vector<float> synthetic_clip(int sample_count) {
+    std::vector<float> pcm(static_cast<size_t>(std::max(0, sample_count)));
+    uint32_t seed = 0x9e3779b9U;
+    for (float & sample : pcm) {
+        seed = seed * 1664525U + 1013904223U;
+        sample = (static_cast<float>(seed >> 8) / static_cast<float>(1U << 24) - 0.5f) * 2.0f * kWarmupNoiseAmplitude;
+    }
+    return pcm;
+}
+
+int handle_audio_ctx(WhisperHandle * handle, int sample_count) {
+    std::lock_guard<std::mutex> guard(handle->mutex);
+    return handle->reduced_audio_ctx ? reduced_audio_ctx(sample_count, handle->sample_rate_hz) : 0;
+}
+
+// Pins the calling thread to the cores in core_mask; threads it starts afterwards inherit the mask.
+// 0 leaves the thread free to run anywhere.
+bool apply_core_mask(long long core_mask) {
+    if (core_mask == 0) {
+        return true;
+    }
+    cpu_set_t cpu_set;
+    CPU_ZERO(&cpu_set);
+    const unsigned long long bits = static_cast<unsigned long long>(core_mask);
+    for (int cpu = 0; cpu < 64 && cpu < CPU_SETSIZE; ++cpu) {
+        if (((bits >> cpu) & 1ULL) != 0ULL) {
+            CPU_SET(cpu, &cpu_set);
+        }
+    }
+    return sched_setaffinity(0, sizeof(cpu_set), &cpu_set) == 0;
+}
+
+}  // namespace
+
+extern "C"
+JNIEXPORT void JNICALL
+Java_com_micklab_voicelistener_WhisperEngine_nativeStreamConfigure(
+    JNIEnv * env,
+    jobject /* thiz */,
+    jlong native_handle,
+    jint max_window_samples,
+    jint retain_samples,
+    jboolean reduced_audio_ctx,
+    jint state_count
+) {
+    WhisperHandle * handle = cast_handle(native_handle);
+    if (!has_context(handle)) {
+        return;
+    }
+    {
+        std::lock_guard<std::mutex> guard(handle->mutex);
+        handle->reduced_audio_ctx = reduced_audio_ctx == JNI_TRUE;
+    }
+    {
+        // States are only ever added; each one costs its KV cache and compute buffers, not the weights.
+        std::lock_guard<std::mutex> guard(handle->pool_mutex);
+        const size_t requested = static_cast<size_t>(std::max(1, std::min(static_cast<int>(state_count), kMaxDecoderStates)));
+        const auto started_at = std::chrono::steady_clock::now();
+        while (handle->states.size() < requested) {
+            whisper_state * state = whisper_init_state(handle->context);
+            if (state == nullptr) {
+                break;
+            }
+            handle->states.push_back(state);
+            handle->idle_states.push_back(state);
         }
+        log_perf(
+            env,
+            -1,
+            "native.state.pool",
+            "requested=" + std::to_string(requested)
+                + " states=" + std::to_string(handle->states.size())
+                + " elapsedMs=" + std::to_string(elapsed_ms(started_at, std::chrono::steady_clock::now()))
+        );
+        if (handle->states.empty()) {
+            throw_java_exception(env, "java/lang/IllegalStateException", "Failed to initialize whisper state.");
+            return;
+        }
+    }
+    handle->pool_available.notify_all();
+    std::lock_guard<std::mutex> guard(handle->stream_mutex);
+    handle->stream_max_window_samples = std::max(1, static_cast<int>(max_window_samples));
+    handle->stream_retain_samples = std::max(0, static_cast<int>(retain_samples));
+    reset_stream(handle);
+    handle->stream.reserve(static_cast<size_t>(handle->stream_max_window_samples + handle->stream_retain_samples));
+}
+
+// Runs before the handle is handed to the engine, so the pooled states are used directly rather than
+// leased. The first whisper_full on a state pages in the weights it touches and allocates its graph
+// buffers; doing that here keeps it off the first real utterance. Returns the total elapsed ms.
+extern "C"
+JNIEXPORT jlong JNICALL
+Java_com_micklab_voicelistener_WhisperEngine_nativeWarmup(
+    JNIEnv * env,
+    jobject /* thiz */,
+    jlong native_handle
+) {
+    WhisperHandle * handle = cast_handle(native_handle);
+    if (!has_context(handle)) {
+        return 0L;
+    }
+    std::vector<whisper_state *> states;
+    {
+        std::lock_guard<std::mutex> guard(handle->pool_mutex);
+        states = handle->states;
     }
-    const auto extract_finished_at = std::chrono::steady_clock::now();
-    const long long extract_ms = elapsed_ms(extract_started_at, extract_finished_at);
+    const int sample_count = static_cast<int>(static_cast<long long>(handle->sample_rate_hz) * kWarmupMs / 1000LL);
+    const int audio_ctx = handle_audio_ctx(handle, sample_count);
+    const std::vector<float> pcm = synthetic_clip(sample_count);
 
-    transcription = trim_copy(transcription);
-    const auto total_finished_at = std::chrono::steady_clock::now();
-    const long long total_ms = elapsed_ms(total_started_at, total_finished_at);
-    const long long finished_at_ms = now_epoch_ms();
+    const auto started_at = std::chrono::steady_clock::now();
+    for (size_t state_index = 0; state_index < states.size(); ++state_index) {
+        const WindowDecode decode = decode_window(handle, states[state_index], handle->thread_count, pcm, audio_ctx, 1);
+        log_perf(
+            env,
+            -1,
+            "native.warmup.state",
+            "state=" + std::to_string(state_index)
+                + " samples=" + std::to_string(sample_count)
+                + " audioCtx=" + std::to_string(audio_ctx)
+                + " inferMs=" + std::to_string(decode.infer_ms)
+                + " result=" + std::to_string(decode.result)
+        );
+    }
+    const long long warmup_ms = elapsed_ms(started_at, std::chrono::steady_clock::now());
     log_perf(
         env,
-        trace_id_value,
-        "native.transcribe",
-        "startedAtMs=" + std::to_string(started_at_ms)
-            + " finishedAtMs=" + std::to_string(finished_at_ms)
-            + " chunkSamples=" + std::to_string(sample_count)
-            + " chunkBytes=" + std::to_string(static_cast<long long>(sample_count) * static_cast<long long>(sizeof(jshort)))
-            + " samples=" + std::to_string(sample_count)
-            + " bufferMs=" + std::to_string(samples_to_ms(sample_count, handle->sample_rate_hz))
-            + " sampleRateHz=" + std::to_string(handle->sample_rate_hz)
+        -1,
+        "native.warmup",
+        "states=" + std::to_string(states.size())
             + " threadCount=" + std::to_string(handle->thread_count)
-            + " language=" + language_value
-            + " lockWaitMs=" + std::to_string(lock_wait_ms)
-            + " queueLength=" + std::to_string(queue_length_value)
-            + " copyMs=" + std::to_string(copy_ms)
-            + " convertMs=" + std::to_string(convert_ms)
-            + " inferMs=" + std::to_string(inference_ms)
-            + " extractMs=" + std::to_string(extract_ms)
-            + " totalMs=" + std::to_string(total_ms)
-            + " segments=" + std::to_string(segment_count)
-            + " chars=" + std::to_string(transcription.size())
-            + " detectLanguage=" + std::string(full_params.detect_language ? "true" : "false")
+            + " elapsedMs=" + std::to_string(warmup_ms)
+            + " rssKb=" + std::to_string(resident_set_kb())
+    );
+    return static_cast<jlong>(warmup_ms);
+}
+
+// Times whisper_full on the synthetic clip with the given thread count and core mask. Each run starts
+// a fresh thread so that ggml's worker threads, which inherit its affinity, land on the masked cores.
+// Returns the best run in ms, or -1 if inference failed.
+extern "C"
+JNIEXPORT jlong JNICALL
+Java_com_micklab_voicelistener_WhisperEngine_nativeBenchmark(
+    JNIEnv * env,
+    jobject /* thiz */,
+    jlong native_handle,
+    jint thread_count,
+    jlong core_mask
+) {
+    WhisperHandle * handle = cast_handle(native_handle);
+    if (!has_context(handle)) {
+        return -1L;
+    }
+    const int thread_count_value = clamp_thread_count(thread_count);
+    const int sample_count = static_cast<int>(static_cast<long long>(handle->sample_rate_hz) * kBenchmarkMs / 1000LL);
+    const int audio_ctx = handle_audio_ctx(handle, sample_count);
+    const std::vector<float> pcm = synthetic_clip(sample_count);
+
+    StateLease lease(handle);
+    // Timed with the share a live decode on this pool would get, so the stored best is what runs.
+    const int decode_threads = per_state_threads(handle, thread_count_value);
+    long long best_ms = -1;
+    int result = 0;
+    bool pinned = true;
+    for (int run = 0; run < kBenchmarkRuns && result == 0; ++run) {
+        long long infer_ms = 0;
+        std::thread worker([&] {
+            pinned = apply_core_mask(core_mask) && pinned;
+            const WindowDecode decode = decode_window(handle, lease.state(), decode_threads, pcm, audio_ctx);
+            result = decode.result;
+            infer_ms = decode.infer_ms;
+        });
+        worker.join();
+        if (result == 0 && (best_ms < 0 || infer_ms < best_ms)) {
+            best_ms = infer_ms;
+        }
+    }
+    log_perf(
+        env,
+        -1,
+        "native.benchmark",
+        "threadCount=" + std::to_string(thread_count_value)
+            + " decodeThreads=" + std::to_string(decode_threads)
+            + " coreMask=" + std::to_string(core_mask)
+            + " pinned=" + std::string(pinned ? "true" : "false")
+            + " samples=" + std::to_string(sample_count)
+            + " audioCtx=" + std::to_string(audio_ctx)
+            + " runs=" + std::to_string(kBenchmarkRuns)
+            + " result=" + std::to_string(result)
+            + " bestMs=" + std::to_string(best_ms)
     );
-    return env->NewStringUTF(transcription.c_str());
+    return result == 0 ? static_cast<jlong>(best_ms) : -1L;
+}
+
+// Called once at the start of each inference thread, before ggml spawns any workers from it.
+extern "C"
+JNIEXPORT jboolean JNICALL
+Java_com_micklab_voicelistener_WhisperEngine_nativeSetThreadAffinity(
+    JNIEnv * /* env */,
+    jobject /* thiz */,
+    jlong core_mask
+) {
+    return apply_core_mask(core_mask) ? JNI_TRUE : JNI_FALSE;
+}
+
+extern "C"
+JNIEXPORT jint JNICALL
+Java_com_micklab_voicelistener_WhisperEngine_nativeStreamPush(
+    JNIEnv * env,
+    jobject /* thiz */,
+    jlong native_handle,
+    jshortArray samples,
+    jint length
+) {
+    WhisperHandle * handle = cast_handle(native_handle);
+    if (!has_context(handle) || samples == nullptr) {
+        return 0;
+    }
+    const jsize sample_count = std::min(static_cast<jsize>(std::max(0, static_cast<int>(length))), env->GetArrayLength(samples));
+    std::lock_guard<std::mutex> guard(handle->stream_mutex);
+    if (sample_count <= 0) {
+        return static_cast<jint>(stream_pending_samples(handle));
+    }
+    compact_stream(handle);
+    const size_t write_offset = handle->stream.size();
+    handle->stream.resize(write_offset + static_cast<size_t>(sample_count));
+    // Converted straight out of the Java array; the critical section is just this loop.
+    auto * source = static_cast<const jshort *>(env->GetPrimitiveArrayCritical(samples, nullptr));
+    if (source == nullptr) {
+        handle->stream.resize(write_offset);
+        return static_cast<jint>(stream_pending_samples(handle));
+    }
+    float * target = handle->stream.data() + write_offset;
+    for (jsize index = 0; index < sample_count; ++index) {
+        target[index] = static_cast<float>(source[index]) * kPcm16Scale;
+    }
+    env->ReleasePrimitiveArrayCritical(samples, const_cast<jshort *>(source), JNI_ABORT);
+    return static_cast<jint>(stream_pending_samples(handle));
+}
+
+extern "C"
+JNIEXPORT jint JNICALL
+Java_com_micklab_voicelistener_WhisperEngine_nativeStreamPushDirect(
+    JNIEnv * env,
+    jobject /* thiz */,
+    jlong native_handle,
+    jobject pcm,
+    jint length
+) {
+    WhisperHandle * handle = cast_handle(native_handle);
+    if (!has_context(handle) || pcm == nullptr) {
+        return 0;
+    }
+    // Native-order PCM16 from the capture frame; read in place, no Java array or critical section.
+    const auto * source = static_cast<const int16_t *>(env->GetDirectBufferAddress(pcm));
+    const jlong capacity_bytes = env->GetDirectBufferCapacity(pcm);
+    std::lock_guard<std::mutex> guard(handle->stream_mutex);
+    if (source == nullptr || capacity_bytes <= 0) {
+        return static_cast<jint>(stream_pending_samples(handle));
+    }
+    const jlong sample_count = std::min(static_cast<jlong>(std::max(0, static_cast<int>(length))), capacity_bytes / 2);
+    if (sample_count <= 0) {
+        return static_cast<jint>(stream_pending_samples(handle));
+    }
+    compact_stream(handle);
+    const size_t write_offset = handle->stream.size();
+    handle->stream.resize(write_offset + static_cast<size_t>(sample_count));
+    float * target = handle->stream.data() + write_offset;
+    for (jlong index = 0; index < sample_count; ++index) {
+        target[index] = static_cast<float>(source[index]) * kPcm16Scale;
+    }
+    return static_cast<jint>(stream_pending_samples(handle));
+}
+
+extern "C"
+JNIEXPORT jlong JNICALL
+Java_com_micklab_voicelistener_WhisperEngine_nativeStreamCut(
+    JNIEnv * /* env */,
+    jobject /* thiz */,
+    jlong native_handle,
+    jint take_samples,
+    jboolean flush
+) {
+    WhisperHandle * handle = cast_handle(native_handle);
+    if (!has_context(handle)) {
+        return 0L;
+    }
+    std::lock_guard<std::mutex> stream_guard(handle->stream_mutex);
+    const size_t pending = stream_pending_samples(handle);
+    if (flush == JNI_TRUE) {
+        if (pending + stream_retained_samples(handle) == 0U) {
+            reset_stream(handle);
+            return 0L;
+        }
+        return static_cast<jlong>(reinterpret_cast<intptr_t>(cut_window(handle, pending, true)));
+    }
+    if (take_samples <= 0) {
+        return 0L;
+    }
+    const size_t taken = static_cast<size_t>(std::min(static_cast<int>(take_samples), handle->stream_max_window_samples));
+    if (pending < taken) {
+        return 0L;
+    }
+    return static_cast<jlong>(reinterpret_cast<intptr_t>(cut_window(handle, taken, false)));
+}
+
+// Returns the window text with status, timing and confidence packed into meta (see
+// RecognitionResult.unpack); null only with an exception pending.
+extern "C"
+JNIEXPORT jstring JNICALL
+Java_com_micklab_voicelistener_WhisperEngine_nativeStreamDecode(
+    JNIEnv * env,
+    jobject /* thiz */,
+    jlong native_handle,
+    jlong job_handle,
+    jlong trace_id,
+    jint queue_length,
+    jfloatArray meta
+) {
+    std::unique_ptr<WindowJob> job(reinterpret_cast<WindowJob *>(static_cast<intptr_t>(job_handle)));
+    WhisperHandle * handle = cast_handle(native_handle);
+    WindowDecode decode;
+    if (!has_context(handle) || job == nullptr) {
+        return pack_result(env, handle, nullptr, decode, false, meta);
+    }
+    if (!infer_window(env, handle, *job, static_cast<long long>(trace_id), std::max(0, static_cast<int>(queue_length)), &decode)) {
+        return nullptr;
+    }
+    // A blank window hands its last samples back to the front of the next one, in case it cut into
+    // the start of an utterance. A window rejected as non-speech does not, so the noise is not decoded
+    // again.
+    const bool no_speech = decode.no_speech();
+    if (!no_speech && decode.text.empty() && !job->flush) {
+        restore_retry_tail(handle, *job);
+    }
+    return pack_result(env, handle, job.get(), decode, no_speech, meta);
+}
+
+extern "C"
+JNIEXPORT void JNICALL
+Java_com_micklab_voicelistener_WhisperEngine_nativeStreamDropJob(
+    JNIEnv * /* env */,
+    jobject /* thiz */,
+    jlong job_handle
+) {
+    delete reinterpret_cast<WindowJob *>(static_cast<intptr_t>(job_handle));
+}
+
+extern "C"
+JNIEXPORT void JNICALL
+Java_com_micklab_voicelistener_WhisperEngine_nativeStreamReset(
+    JNIEnv * /* env */,
+    jobject /* thiz */,
+    jlong native_handle
+) {
+    WhisperHandle * handle = cast_handle(native_handle);
+    if (!has_context(handle)) {
+        return;
+    }
+    std::lock_guard<std::mutex> guard(handle->stream_mutex);
+    reset_stream(handle);
+}
+
+extern "C"
+JNIEXPORT jint JNICALL
+Java_com_micklab_voicelistener_WhisperEngine_nativeStreamRetainedSamples(
+    JNIEnv * /* env */,
+    jobject /* thiz */,
+    jlong native_handle
+) {
+    WhisperHandle * handle = cast_handle(native_handle);
+    if (!has_context(handle)) {
+        return 0;
+    }
+    std::lock_guard<std::mutex> guard(handle->stream_mutex);
+    return static_cast<jint>(stream_retained_samples(handle));
 }
 
 extern "C"
@@ -485,7 +1501,9 @@ Java_com_micklab_voicelistener_WhisperEngine_nativeRelease(
         return;
     }
 
+    free_states(handle.get());
     std::lock_guard<std::mutex> guard(handle->mutex);
+    std::lock_guard<std::mutex> stream_guard(handle->stream_mutex);
     log_perf(
         env,
         -1,
@@ -495,10 +1513,99 @@ Java_com_micklab_voicelistener_WhisperEngine_nativeRelease(
             + " threadCount=" + std::to_string(handle->thread_count)
             + " language=" + (handle->language.empty() ? std::string("auto") : handle->language)
     );
+    if (handle->reduced_ctx_stats.calls > 0) {
+        log_perf(
+            env,
+            -1,
+            "native.audio_ctx.summary",
+            "reduced[" + describe_audio_ctx_stats(handle->reduced_ctx_stats) + "]"
+                + " full[" + describe_audio_ctx_stats(handle->full_ctx_stats) + "]"
+                + " fallbacks=" + std::to_string(handle->reduced_ctx_fallbacks)
+        );
+    }
     if (handle->context != nullptr) {
-        whisper_free(handle->context);
+        const long long rss_before_kb = resident_set_kb();
+        const int model_refs = release_shared_model(handle->context);
         handle->context = nullptr;
+        log_perf(
+            env,
+            -1,
+            "native.model.release",
+            "modelRefs=" + std::to_string(model_refs)
+                + " freed=" + std::string(model_refs == 0 ? "true" : "false")
+                + " rssBeforeKb=" + std::to_string(rss_before_kb)
+                + " rssAfterKb=" + std::to_string(resident_set_kb())
+        );
+    }
+    handle->stream.clear();
+    handle->stream.shrink_to_fit();
+}
+
+extern "C"
+JNIEXPORT jint JNICALL
+JNI_OnLoad(JavaVM * vm, void * /* reserved */) {
+    JNIEnv * env = nullptr;
+    if (vm->GetEnv(reinterpret_cast<void **>(&env), JNI_VERSION_1_6) != JNI_OK) {
+        return JNI_ERR;
+    }
+    jclass logger_class = env->FindClass("com/micklab/voicelistener/WhisperPerfLogger");
+    if (logger_class == nullptr) {
+        __android_log_print(ANDROID_LOG_ERROR, kLogTag, "Unable to resolve WhisperPerfLogger for file logging.");
+        env->ExceptionClear();
+        return JNI_VERSION_1_6;
     }
-    handle->pcmf32.clear();
-    handle->pcm16.clear();
+    jmethodID log_method = env->GetStaticMethodID(
+        logger_class,
+        "logFromNative",
+        "(JLjava/lang/String;Ljava/lang/String;)V"
+    );
+    if (log_method == nullptr) {
+        __android_log_print(ANDROID_LOG_ERROR, kLogTag, "Unable to resolve WhisperPerfLogger.logFromNative.");
+        env->ExceptionClear();
+        env->DeleteLocalRef(logger_class);
+        return JNI_VERSION_1_6;
+    }
+    g_perf_logger_class = static_cast<jclass>(env->NewGlobalRef(logger_class));
+    g_perf_log_method = g_perf_logger_class != nullptr ? log_method : nullptr;
+    env->DeleteLocalRef(logger_class);
+    return JNI_VERSION_1_6;
+}
+
+// Copies up to buffer.length / kPerfEventWords queued events into buffer and returns how many.
+extern "C"
+JNIEXPORT jint JNICALL
+Java_com_micklab_voicelistener_NativePerfEvents_nativeDrain(
+    JNIEnv * env,
+    jclass /* clazz */,
+    jlongArray buffer
+) {
+    if (buffer == nullptr) {
+        return 0;
+    }
+    static_assert(sizeof(PerfEvent) == sizeof(jlong) * kPerfEventWords, "PerfEvent must pack as jlong words");
+    const jsize capacity = env->GetArrayLength(buffer) / kPerfEventWords;
+    std::vector<PerfEvent> events;
+    events.reserve(static_cast<size_t>(std::max<jsize>(0, capacity)));
+    PerfEvent event;
+    while (static_cast<jsize>(events.size()) < capacity && g_perf_ring.pop(&event)) {
+        events.push_back(event);
+    }
+    if (!events.empty()) {
+        env->SetLongArrayRegion(
+            buffer,
+            0,
+            static_cast<jsize>(events.size()) * kPerfEventWords,
+            reinterpret_cast<const jlong *>(events.data())
+        );
+    }
+    return static_cast<jint>(events.size());
+}
+
+extern "C"
+JNIEXPORT jlong JNICALL
+Java_com_micklab_voicelistener_NativePerfEvents_nativeDroppedEvents(
+    JNIEnv * /* env */,
+    jclass /* clazz */
+) {
+    return static_cast<jlong>(g_perf_ring.dropped());
 }
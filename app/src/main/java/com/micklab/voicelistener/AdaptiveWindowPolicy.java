@@ -0,0 +1,195 @@
+package com.micklab.voicelistener;
+
+import java.util.Locale;
+
+// Decides how much buffered audio goes into each whisper_full call. Whisper pads every call to a
+// 30 s mel window, so the encoder cost per call is nearly flat; the window therefore starts short
+// for a fast first result, doubles while speech continues, and is cut early once the oldest
+// buffered sample has waited past the deadline. The deadline is dropped while decoding runs slower
+// than real time, so a backlog is cleared with fewer, larger calls. Not thread-safe.
+public final class AdaptiveWindowPolicy {
+    public enum Trigger {
+        SIZE,
+        DEADLINE,
+        BOUNDARY
+    }
+
+    static final int DEFAULT_MIN_WINDOW_MS = 1000;
+    static final int DEFAULT_MAX_WINDOW_MS = 8000;
+    static final int DEFAULT_DEADLINE_MS = 3000;
+    // Shorter windows are not worth a decode even at the deadline.
+    static final int MIN_DECODE_MS = 256;
+
+    private final int sampleRateHz;
+    private final int minWindowSamples;
+    private final int maxWindowSamples;
+    private final int minDecodeSamples;
+    private final long deadlineNs;
+
+    private int targetWindowSamples;
+    private int pendingSamples = 0;
+    private long pendingSinceNs = 0L;
+    private Trigger lastTrigger = Trigger.SIZE;
+    private double lastRtf = 0.0;
+    private long windowCount = 0L;
+    private long decodedSamples = 0L;
+    private long decodeNanos = 0L;
+    private int largestWindowSamples = 0;
+
+    public AdaptiveWindowPolicy(int sampleRateHz) {
+        this(sampleRateHz, DEFAULT_MIN_WINDOW_MS, DEFAULT_MAX_WINDOW_MS, DEFAULT_DEADLINE_MS);
+    }
+
+    public AdaptiveWindowPolicy(int sampleRateHz, int minWindowMs, int maxWindowMs, int deadlineMs) {
+        if (sampleRateHz <= 0) {
+            throw new IllegalArgumentException("Sample rate must be positive: " + sampleRateHz);
+        }
+        if (minWindowMs <= 0 || maxWindowMs < minWindowMs) {
+            throw new IllegalArgumentException("Invalid window range: " + minWindowMs + ".." + maxWindowMs + " ms");
+        }
+        if (deadlineMs <= 0) {
+            throw new IllegalArgumentException("Deadline must be positive: " + deadlineMs);
+        }
+        this.sampleRateHz = sampleRateHz;
+        this.minWindowSamples = msToSamples(minWindowMs);
+        this.maxWindowSamples = msToSamples(maxWindowMs);
+        this.minDecodeSamples = Math.min(minWindowSamples, msToSamples(MIN_DECODE_MS));
+        this.deadlineNs = deadlineMs * 1_000_000L;
+        this.targetWindowSamples = minWindowSamples;
+    }
+
+    public void onSamplesBuffered(int samples, long nowNs) {
+        if (samples <= 0) {
+            return;
+        }
+        if (pendingSamples == 0) {
+            pendingSinceNs = nowNs;
+        }
+        pendingSamples += samples;
+    }
+
+    // Replaces the count with the one the buffer itself reports, so a push it clamped or dropped
+    // cannot leave this mirror ahead of or behind the audio actually held.
+    public void syncPending(int samples, long nowNs) {
+        int synced = Math.max(0, samples);
+        if (synced == 0) {
+            pendingSinceNs = 0L;
+        } else if (pendingSamples == 0) {
+            pendingSinceNs = nowNs;
+        }
+        pendingSamples = synced;
+    }
+
+    // Returns how many buffered samples to decode now, or 0 to keep buffering.
+    public int takeWindow(long nowNs) {
+        int take = nextWindow(nowNs);
+        if (take > 0) {
+            commitWindow(take, nowNs);
+        }
+        return take;
+    }
+
+    // Like takeWindow, but consumes nothing; call commitWindow once the window has actually been cut.
+    public int nextWindow(long nowNs) {
+        if (pendingSamples < minDecodeSamples) {
+            return 0;
+        }
+        boolean full = pendingSamples >= targetWindowSamples;
+        boolean late = lastRtf < 1.0 && nowNs - pendingSinceNs >= deadlineNs;
+        if (!full && !late) {
+            return 0;
+        }
+        return Math.min(pendingSamples, maxWindowSamples);
+    }
+
+    public void commitWindow(int take, long nowNs) {
+        boolean full = pendingSamples >= targetWindowSamples;
+        pendingSamples -= Math.min(pendingSamples, Math.max(0, take));
+        pendingSinceNs = pendingSamples > 0 ? nowNs : 0L;
+        lastTrigger = full ? Trigger.SIZE : Trigger.DEADLINE;
+        if (full) {
+            targetWindowSamples = Math.min(maxWindowSamples, targetWindowSamples * 2);
+        }
+    }
+
+    // Speech ended: everything buffered goes out and the next utterance starts from the short window.
+    public int takeAll() {
+        int take = pendingSamples;
+        reset();
+        lastTrigger = Trigger.BOUNDARY;
+        return take;
+    }
+
+    public void reset() {
+        pendingSamples = 0;
+        pendingSinceNs = 0L;
+        targetWindowSamples = minWindowSamples;
+    }
+
+    // Returns the real-time factor of the decoded window (decode time / audio time).
+    public double recordDecoded(int samples, long elapsedNanos) {
+        if (samples <= 0) {
+            return 0.0;
+        }
+        double audioNanos = samples * 1_000_000_000.0 / sampleRateHz;
+        lastRtf = Math.max(0L, elapsedNanos) / audioNanos;
+        windowCount++;
+        decodedSamples += samples;
+        decodeNanos += Math.max(0L, elapsedNanos);
+        largestWindowSamples = Math.max(largestWindowSamples, samples);
+        return lastRtf;
+    }
+
+    public Trigger getLastTrigger() {
+        return lastTrigger;
+    }
+
+    public int getPendingSamples() {
+        return pendingSamples;
+    }
+
+    public int getTargetWindowSamples() {
+        return targetWindowSamples;
+    }
+
+    public int getMaxWindowSamples() {
+        return maxWindowSamples;
+    }
+
+    public double getLastRtf() {
+        return lastRtf;
+    }
+
+    public long getWindowCount() {
+        return windowCount;
+    }
+
+    public double getAverageRtf() {
+        if (decodedSamples == 0L) {
+            return 0.0;
+        }
+        return decodeNanos / (decodedSamples * 1_000_000_000.0 / sampleRateHz);
+    }
+
+    public String describe() {
+        long averageWindowMs = windowCount == 0L ? 0L : samplesToMs(decodedSamples / windowCount);
+        return String.format(
+            Locale.US,
+            "windows=%d avgWindowMs=%d maxWindowMs=%d avgRtf=%.3f lastRtf=%.3f targetWindowMs=%d",
+            windowCount,
+            averageWindowMs,
+            samplesToMs(largestWindowSamples),
+            getAverageRtf(),
+            lastRtf,
+            samplesToMs(targetWindowSamples)
+        );
+    }
+
+    private int msToSamples(int ms) {
+        return (int) ((long) ms * sampleRateHz / 1000L);
+    }
+
+    private long samplesToMs(long samples) {
+        return samples * 1000L / sampleRateHz;
+    }
+}
@@ -0,0 +1,160 @@
+package com.micklab.voicelistener;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.ShortBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Frames live in native-order direct buffers: AudioRecord writes into them and whisper_jni reads
+// them through GetDirectBufferAddress, so captured samples never pass through a Java array.
+public final class AudioFramePool {
+    private final Frame[] frames;
+    private final int frameSamples;
+    private final AtomicLong overflowAllocations = new AtomicLong(0L);
+    private int cursor = 0;
+
+    public AudioFramePool(int capacity, int frameSamples) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Frame pool capacity must be positive.");
+        }
+        if (frameSamples <= 0) {
+            throw new IllegalArgumentException("Frame size must be positive.");
+        }
+        this.frameSamples = frameSamples;
+        this.frames = new Frame[capacity];
+        for (int index = 0; index < capacity; index++) {
+            frames[index] = new Frame(frameSamples);
+        }
+    }
+
+    public static Frame wrap(short[] samples) {
+        if (samples == null) {
+            throw new IllegalArgumentException("Frame samples must not be null.");
+        }
+        Frame frame = new Frame(samples.length);
+        frame.pcm().duplicate().put(samples);
+        frame.claim();
+        frame.setLength(samples.length);
+        return frame;
+    }
+
+    // Single producer only: the capture thread acquires, any thread may release.
+    public Frame acquire() {
+        for (int attempt = 0; attempt < frames.length; attempt++) {
+            Frame candidate = frames[cursor];
+            cursor = cursor + 1 == frames.length ? 0 : cursor + 1;
+            if (candidate.claim()) {
+                candidate.setLength(0);
+                return candidate;
+            }
+        }
+        overflowAllocations.incrementAndGet();
+        Frame overflow = new Frame(frameSamples);
+        overflow.claim();
+        return overflow;
+    }
+
+    public int capacity() {
+        return frames.length;
+    }
+
+    public int frameSamples() {
+        return frameSamples;
+    }
+
+    public int availableCount() {
+        int available = 0;
+        for (Frame frame : frames) {
+            if (frame.refCount() == 0) {
+                available++;
+            }
+        }
+        return available;
+    }
+
+    public long getOverflowAllocationCount() {
+        return overflowAllocations.get();
+    }
+
+    public static final class Frame {
+        private final ByteBuffer data;
+        private final ShortBuffer pcm;
+        private final AtomicInteger refCount = new AtomicInteger(0);
+        private final FrameFeatures features = new FrameFeatures();
+        private volatile int length;
+
+        private Frame(int capacitySamples) {
+            this.data = ByteBuffer.allocateDirect(capacitySamples * 2).order(ByteOrder.nativeOrder());
+            this.pcm = data.asShortBuffer();
+        }
+
+        // The whole backing buffer, for AudioRecord.read(ByteBuffer) and the native push. Its position
+        // is never moved; samples [0, length()) are valid.
+        public ByteBuffer data() {
+            return data;
+        }
+
+        // Shared view over data(). Shared by every consumer, so use absolute get/put only.
+        public ShortBuffer pcm() {
+            return pcm;
+        }
+
+        public int capacity() {
+            return pcm.capacity();
+        }
+
+        public int length() {
+            return length;
+        }
+
+        public void setLength(int length) {
+            if (length < 0 || length > pcm.capacity()) {
+                throw new IllegalArgumentException("Frame length out of range: " + length);
+            }
+            this.length = length;
+            features.invalidate();
+        }
+
+        // Computed once per frame by the first caller (the capture thread) and shared by every consumer.
+        public FrameFeatures features() {
+            int currentLength = length;
+            if (!features.isComputedFor(currentLength)) {
+                features.compute(pcm, currentLength);
+            }
+            return features;
+        }
+
+        public Frame retain() {
+            int previous = refCount.getAndIncrement();
+            if (previous <= 0) {
+                refCount.getAndDecrement();
+                throw new IllegalStateException("Cannot retain a released audio frame.");
+            }
+            return this;
+        }
+
+        public void release() {
+            int remaining = refCount.decrementAndGet();
+            if (remaining < 0) {
+                refCount.incrementAndGet();
+                throw new IllegalStateException("Audio frame released more times than retained.");
+            }
+        }
+
+        // A heap copy, for engines without a direct-buffer path.
+        public short[] toSampleArray() {
+            short[] copy = new short[length];
+            pcm.duplicate().get(copy);
+            return copy;
+        }
+
+        int refCount() {
+            return refCount.get();
+        }
+
+        private boolean claim() {
+            return refCount.compareAndSet(0, 1);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.micklab.voicelistener;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeSet;
+
+// Per-core maximum frequency as reported by cpufreq, used to tell big cores from little ones.
+// Cores whose frequency cannot be read count as 0 kHz, i.e. the slowest tier.
+public final class CpuTopology {
+    public static final File SYSFS_CPU_ROOT = new File("/sys/devices/system/cpu");
+    // Core masks are 64-bit, matching the native affinity call.
+    static final int MAX_CPUS = 64;
+
+    private final long[] maxFreqKhz;
+
+    public CpuTopology(long[] maxFreqKhz) {
+        if (maxFreqKhz == null || maxFreqKhz.length == 0) {
+            throw new IllegalArgumentException("At least one CPU is required.");
+        }
+        this.maxFreqKhz = Arrays.copyOf(maxFreqKhz, Math.min(maxFreqKhz.length, MAX_CPUS));
+    }
+
+    public static CpuTopology read(File cpuRoot, int cpuCount) {
+        int count = Math.max(1, Math.min(cpuCount, MAX_CPUS));
+        long[] freqs = new long[count];
+        for (int cpu = 0; cpu < count; cpu++) {
+            freqs[cpu] = readLong(new File(cpuRoot, "cpu" + cpu + "/cpufreq/cpuinfo_max_freq"));
+        }
+        return new CpuTopology(freqs);
+    }
+
+    public static CpuTopology readSystem() {
+        return read(SYSFS_CPU_ROOT, Runtime.getRuntime().availableProcessors());
+    }
+
+    public int cpuCount() {
+        return maxFreqKhz.length;
+    }
+
+    public boolean isHeterogeneous() {
+        return tierFrequencies().size() > 1;
+    }
+
+    // One mask per frequency tier, fastest first: the fastest cores alone, then those plus the next
+    // tier, and so on. The last mask covers every core.
+    public List<Long> tierMasks() {
+        List<Long> masks = new ArrayList<>();
+        for (long threshold : tierFrequencies().descendingSet()) {
+            long mask = 0L;
+            for (int cpu = 0; cpu < maxFreqKhz.length; cpu++) {
+                if (maxFreqKhz[cpu] >= threshold) {
+                    mask |= 1L << cpu;
+                }
+            }
+            masks.add(mask);
+        }
+        return masks;
+    }
+
+    public String describe() {
+        return "cpus=" + maxFreqKhz.length + " maxFreqKhz=" + Arrays.toString(maxFreqKhz);
+    }
+
+    private TreeSet<Long> tierFrequencies() {
+        TreeSet<Long> tiers = new TreeSet<>();
+        for (long freq : maxFreqKhz) {
+            tiers.add(freq);
+        }
+        return tiers;
+    }
+
+    private static long readLong(File file) {
+        try (BufferedReader reader = new BufferedReader(
+            new InputStreamReader(new FileInputStream(file), StandardCharsets.US_ASCII))) {
+            String line = reader.readLine();
+            return line == null ? 0L : Long.parseLong(line.trim());
+        } catch (IOException | NumberFormatException e) {
+            return 0L;
+        }
+    }
+}
@@ -7,7 +7,12 @@ class DefaultSpeechRecognizerEngineFactory : SpeechRecognizerEngineFactory {
             EngineType.WHISPER -> WhisperEngine(
                 sampleRateHz = config.sampleRateHz,
                 language = config.language,
-                threadCount = config.threadCount
+                threadCount = config.threadCount,
+                coreMask = config.coreMask,
+                reducedAudioContext = config.reducedAudioContext,
+                decoderStates = config.decoderStates,
+                warmup = config.warmup,
+                profile = config.inferenceProfile
             ).apply {
                 loadModel(config.modelPath)
             }
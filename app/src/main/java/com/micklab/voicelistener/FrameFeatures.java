@@ -0,0 +1,84 @@
+package com.micklab.voicelistener;
+
+import java.nio.ShortBuffer;
+
+public final class FrameFeatures {
+    public static final int CLIP_LEVEL = 32_000;
+
+    private int sampleCount = -1;
+    private double rms;
+    private int peak;
+    private int zeroCrossings;
+    private int clippedSamples;
+
+    public static FrameFeatures of(short[] samples, int length) {
+        return new FrameFeatures().compute(samples == null ? null : ShortBuffer.wrap(samples), length);
+    }
+
+    // One pass over the frame with absolute reads, so a view shared with other consumers is not moved.
+    // Zero crossings and clipped samples are counted from sign bits rather than per-sample comparisons.
+    public FrameFeatures compute(ShortBuffer samples, int length) {
+        if (samples == null || length <= 0) {
+            sampleCount = 0;
+            rms = 0.0;
+            peak = 0;
+            zeroCrossings = 0;
+            clippedSamples = 0;
+            return this;
+        }
+
+        long sumSquares = 0L;
+        int maxMagnitude = 0;
+        int crossings = 0;
+        int clipped = 0;
+        int previous = samples.get(0);
+        for (int index = 0; index < length; index++) {
+            int sample = samples.get(index);
+            int magnitude = sample < 0 ? -sample : sample;
+            sumSquares += (long) sample * sample;
+            maxMagnitude = Math.max(maxMagnitude, magnitude);
+            crossings += (previous ^ sample) >>> 31;
+            clipped += (CLIP_LEVEL - 1 - magnitude) >>> 31;
+            previous = sample;
+        }
+
+        sampleCount = length;
+        rms = Math.sqrt((double) sumSquares / length);
+        peak = maxMagnitude;
+        zeroCrossings = crossings;
+        clippedSamples = clipped;
+        return this;
+    }
+
+    public void invalidate() {
+        sampleCount = -1;
+    }
+
+    public boolean isComputedFor(int length) {
+        return sampleCount == length;
+    }
+
+    public int sampleCount() {
+        return Math.max(0, sampleCount);
+    }
+
+    public double rms() {
+        return rms;
+    }
+
+    public int peak() {
+        return peak;
+    }
+
+    public int zeroCrossings() {
+        return zeroCrossings;
+    }
+
+    public double zeroCrossingRate() {
+        return sampleCount > 1 ? zeroCrossings / (double) (sampleCount - 1) : 0.0;
+    }
+
+    public int clippedSamples() {
+        return clippedSamples;
+    }
+}
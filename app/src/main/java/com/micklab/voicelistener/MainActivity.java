@@ -57,9 +57,8 @@ public class MainActivity extends Activity {
 
     private Handler uiHandler;
     private Runnable periodicUpdateRunnable;
-    private Runnable indicatorUpdateRunnable;
+    private ServiceTelemetry.Listener telemetryListener;
     private static final int UPDATE_INTERVAL_MS = 5000; // 5s
-    private static final int INDICATOR_UPDATE_INTERVAL_MS = 250;
     private static final int VAD_MIN = 100;
     private static final int VAD_MAX = 5000;
 
@@ -74,7 +73,6 @@ public class MainActivity extends Activity {
     private static final String PREF_MODEL_DOWNLOAD_ACTIVE = "model_download_active";
     private static final String PREF_MODEL_DOWNLOAD_PROGRESS = "model_download_progress";
     private static final String PREF_MODEL_DOWNLOAD_NAME = "model_download_name";
-    private static final String PREF_CURRENT_RMS = "current_rms";
 
     private Spinner modelSpinner;
     private ArrayAdapter<String> modelSpinnerAdapter;
@@ -777,7 +775,10 @@ public class MainActivity extends Activity {
     }
 
     private void updateStatusFromPrefs() {
-        String state = prefs.getString(PREF_MON_STATE, null);
+        String state = ServiceTelemetry.getInstance().getMonitorState();
+        if (state == null) {
+            state = prefs.getString(PREF_MON_STATE, null);
+        }
         if (state == null) {
             state = isServiceRunning ? MON_STATE_RUNNING : MON_STATE_STOPPED;
         }
@@ -1078,9 +1079,17 @@ public class MainActivity extends Activity {
 
     private void updateWhisperDownloadProgressIndicator() {
         if (whisperModelDownloadProgressBar == null || whisperModelDownloadProgressText == null) return;
-        boolean active = prefs.getBoolean(WhisperModelManager.PREF_MODEL_DOWNLOAD_ACTIVE, false);
-        int progress = prefs.getInt(WhisperModelManager.PREF_MODEL_DOWNLOAD_PROGRESS, 0);
-        String modelName = prefs.getString(WhisperModelManager.PREF_MODEL_DOWNLOAD_NAME, "");
+        ServiceTelemetry.DownloadProgress download = ServiceTelemetry.getInstance().getWhisperModelDownload();
+        if (download == null) {
+            download = new ServiceTelemetry.DownloadProgress(
+                prefs.getBoolean(WhisperModelManager.PREF_MODEL_DOWNLOAD_ACTIVE, false),
+                prefs.getInt(WhisperModelManager.PREF_MODEL_DOWNLOAD_PROGRESS, 0),
+                prefs.getString(WhisperModelManager.PREF_MODEL_DOWNLOAD_NAME, "")
+            );
+        }
+        boolean active = download.isActive();
+        int progress = download.getProgress();
+        String modelName = download.getModelName();
 
         if (active) {
             if (progress < 0) {
@@ -1140,9 +1149,17 @@ public class MainActivity extends Activity {
 
     private void updateDownloadProgressIndicator() {
         if (modelDownloadProgressBar == null || modelDownloadProgressText == null) return;
-        boolean active = prefs.getBoolean(PREF_MODEL_DOWNLOAD_ACTIVE, false);
-        int progress = prefs.getInt(PREF_MODEL_DOWNLOAD_PROGRESS, 0);
-        String modelName = prefs.getString(PREF_MODEL_DOWNLOAD_NAME, "");
+        ServiceTelemetry.DownloadProgress download = ServiceTelemetry.getInstance().getModelDownload();
+        if (download == null) {
+            download = new ServiceTelemetry.DownloadProgress(
+                prefs.getBoolean(PREF_MODEL_DOWNLOAD_ACTIVE, false),
+                prefs.getInt(PREF_MODEL_DOWNLOAD_PROGRESS, 0),
+                prefs.getString(PREF_MODEL_DOWNLOAD_NAME, "")
+            );
+        }
+        boolean active = download.isActive();
+        int progress = download.getProgress();
+        String modelName = download.getModelName();
 
         if (active) {
             if (progress < 0) {
@@ -1188,7 +1205,7 @@ public class MainActivity extends Activity {
 
     private void updateVolumeIndicator() {
         if (volumeIndicatorSeekBar == null || volumeIndicatorLabel == null) return;
-        float rmsValue = prefs.getFloat(PREF_CURRENT_RMS, 0f);
+        float rmsValue = ServiceTelemetry.getInstance().getLevel();
         int rmsInt = Math.max(0, Math.round(rmsValue));
         volumeIndicatorLabel.setText("入力音量 (RMS): " + rmsInt);
         int clamped = Math.max(VAD_MIN, Math.min(rmsInt, VAD_MAX));
@@ -1345,21 +1362,27 @@ public class MainActivity extends Activity {
                 }
             };
         }
-        if (indicatorUpdateRunnable == null) {
-            indicatorUpdateRunnable = new Runnable() {
-                @Override
-                public void run() {
-                    try {
+        if (telemetryListener == null) {
+            // サービスからの変更通知はメインスレッドでまとめて届く
+            telemetryListener = (telemetry, changedMask) -> {
+                try {
+                    if ((changedMask & ServiceTelemetry.CHANGED_LEVEL) != 0) {
+                        updateVolumeIndicator();
+                    }
+                    if ((changedMask & ServiceTelemetry.CHANGED_MONITOR_STATE) != 0) {
+                        updateStatusFromPrefs();
+                    }
+                    if ((changedMask & ServiceTelemetry.CHANGED_MODEL_DOWNLOAD) != 0) {
                         updateDownloadProgressIndicator();
+                    }
+                    if ((changedMask & ServiceTelemetry.CHANGED_WHISPER_MODEL_DOWNLOAD) != 0) {
                         updateWhisperDownloadProgressIndicator();
-                        updateVolumeIndicator();
-                    } catch (Exception ignored) {}
-                    uiHandler.postDelayed(this, INDICATOR_UPDATE_INTERVAL_MS);
-                }
+                    }
+                } catch (Exception ignored) {}
             };
         }
+        ServiceTelemetry.getInstance().addListener(telemetryListener);
         uiHandler.post(periodicUpdateRunnable);
-        uiHandler.post(indicatorUpdateRunnable);
     }
 
     @Override
@@ -1369,8 +1392,8 @@ public class MainActivity extends Activity {
         if (uiHandler != null && periodicUpdateRunnable != null) {
             uiHandler.removeCallbacks(periodicUpdateRunnable);
         }
-        if (uiHandler != null && indicatorUpdateRunnable != null) {
-            uiHandler.removeCallbacks(indicatorUpdateRunnable);
+        if (telemetryListener != null) {
+            ServiceTelemetry.getInstance().removeListener(telemetryListener);
         }
     }
 
@@ -0,0 +1,98 @@
+package com.micklab.voicelistener;
+
+import java.util.Locale;
+
+// Decides when the Whisper model should step down to a cheaper one or back up, from the real-time
+// factor of decoded windows, the decode backlog and the device thermal status. Both directions
+// must hold for a sustained period, and every switch is followed by a cool-down, so a single slow
+// window or a brief burst of speech never flips the model. Not thread-safe.
+public final class ModelLoadController {
+    public enum Decision {
+        HOLD,
+        DOWNGRADE,
+        UPGRADE
+    }
+
+    // Mirrors PowerManager.THERMAL_STATUS_*; kept here so the policy has no Android dependency.
+    public static final int THERMAL_STATUS_NONE = 0;
+    public static final int THERMAL_STATUS_MODERATE = 2;
+    public static final int THERMAL_STATUS_SEVERE = 3;
+
+    static final double OVERLOAD_RTF = 1.0;
+    static final double UNDERLOAD_RTF = 0.5;
+    static final long DEFAULT_OVERLOAD_SUSTAIN_MS = 15_000L;
+    static final long DEFAULT_UNDERLOAD_SUSTAIN_MS = 120_000L;
+    static final long DEFAULT_COOLDOWN_MS = 60_000L;
+    // Weight of the newest window in the smoothed RTF.
+    private static final double RTF_SMOOTHING = 0.3;
+
+    private final long overloadSustainMs;
+    private final long underloadSustainMs;
+    private final long cooldownMs;
+
+    private double smoothedRtf = -1.0;
+    private long overloadedSinceMs = -1L;
+    private long underloadedSinceMs = -1L;
+    private long lastSwitchMs = Long.MIN_VALUE;
+
+    public ModelLoadController() {
+        this(DEFAULT_OVERLOAD_SUSTAIN_MS, DEFAULT_UNDERLOAD_SUSTAIN_MS, DEFAULT_COOLDOWN_MS);
+    }
+
+    public ModelLoadController(long overloadSustainMs, long underloadSustainMs, long cooldownMs) {
+        if (overloadSustainMs < 0L || underloadSustainMs < 0L || cooldownMs < 0L) {
+            throw new IllegalArgumentException("Durations must not be negative.");
+        }
+        this.overloadSustainMs = overloadSustainMs;
+        this.underloadSustainMs = underloadSustainMs;
+        this.cooldownMs = cooldownMs;
+    }
+
+    // Called once per decoded window. Overload is decoding slower than real time with windows already
+    // waiting behind it, or severe thermal throttling; underload is a comfortably fast, empty pipeline
+    // on a device that is not warm.
+    public Decision onWindowDecoded(double rtf, int queuedWindows, int thermalStatus, long nowMs) {
+        smoothedRtf = smoothedRtf < 0.0 ? rtf : smoothedRtf + RTF_SMOOTHING * (rtf - smoothedRtf);
+        boolean overloaded = (smoothedRtf > OVERLOAD_RTF && queuedWindows > 0)
+            || thermalStatus >= THERMAL_STATUS_SEVERE;
+        boolean underloaded = smoothedRtf < UNDERLOAD_RTF
+            && queuedWindows == 0
+            && thermalStatus < THERMAL_STATUS_MODERATE;
+        overloadedSinceMs = overloaded ? (overloadedSinceMs < 0L ? nowMs : overloadedSinceMs) : -1L;
+        underloadedSinceMs = underloaded ? (underloadedSinceMs < 0L ? nowMs : underloadedSinceMs) : -1L;
+
+        if (lastSwitchMs != Long.MIN_VALUE && nowMs - lastSwitchMs < cooldownMs) {
+            return Decision.HOLD;
+        }
+        if (overloadedSinceMs >= 0L && nowMs - overloadedSinceMs >= overloadSustainMs) {
+            return Decision.DOWNGRADE;
+        }
+        if (underloadedSinceMs >= 0L && nowMs - underloadedSinceMs >= underloadSustainMs) {
+            return Decision.UPGRADE;
+        }
+        return Decision.HOLD;
+    }
+
+    // The caller acted on a decision (or found no model to move to): measurements so far describe the
+    // previous model, so start over and wait out the cool-down.
+    public void onSwitched(long nowMs) {
+        smoothedRtf = -1.0;
+        overloadedSinceMs = -1L;
+        underloadedSinceMs = -1L;
+        lastSwitchMs = nowMs;
+    }
+
+    public double getSmoothedRtf() {
+        return smoothedRtf;
+    }
+
+    public String describe() {
+        return String.format(
+            Locale.US,
+            "smoothedRtf=%.3f overloadedSinceMs=%d underloadedSinceMs=%d",
+            smoothedRtf,
+            overloadedSinceMs,
+            underloadedSinceMs
+        );
+    }
+}
@@ -0,0 +1,131 @@
+package com.micklab.voicelistener;
+
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Per-window native perf stages are queued in a fixed-size ring inside whisper_jni instead of being
+// logged on the inference thread. This drains them in batches on a background thread and writes each
+// one through WhisperPerfLogger, so the lines land up to DRAIN_DELAY_MS after the engine's own.
+// The native library is loaded by WhisperEngine, the only caller.
+public final class NativePerfEvents {
+    // Event layout shared with whisper_jni.cpp: [kind, traceId, fields...].
+    static final int EVENT_WORDS = 24;
+    static final long KIND_STREAM_INFER = 1L;
+    static final long KIND_AUDIO_CTX_PROBE = 2L;
+    private static final int BATCH_EVENTS = 64;
+    private static final long DRAIN_DELAY_MS = 500L;
+    private static final String[] CTX_FALLBACK_NAMES = {"none", "empty", "short"};
+
+    private static final AtomicBoolean drainScheduled = new AtomicBoolean(false);
+    private static final ScheduledExecutorService drainExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "WhisperPerfDrain");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // Guarded by the class lock.
+    private static final long[] batch = new long[BATCH_EVENTS * EVENT_WORDS];
+    private static long reportedDropped;
+
+    private NativePerfEvents() {
+    }
+
+    // Cheap enough for the inference thread: at most one drain is pending, and it picks up every
+    // event recorded before it runs.
+    public static void requestDrain() {
+        if (!drainScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            drainExecutor.schedule(() -> {
+                drainScheduled.set(false);
+                drain();
+            }, DRAIN_DELAY_MS, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            drainScheduled.set(false);
+        }
+    }
+
+    // Writes out everything queued so far. Also called directly where the log must be complete,
+    // e.g. before the engine's stop summary.
+    public static synchronized int drain() {
+        int total = 0;
+        int count;
+        do {
+            count = nativeDrain(batch);
+            for (int index = 0; index < count; index++) {
+                int offset = index * EVENT_WORDS;
+                WhisperPerfLogger.logTrace(batch[offset + 1], stage(batch[offset]), details(batch, offset));
+            }
+            total += count;
+        } while (count == BATCH_EVENTS);
+        long dropped = nativeDroppedEvents();
+        if (dropped > reportedDropped) {
+            WhisperPerfLogger.logTrace(
+                RecognitionTraceContext.NO_TRACE_ID,
+                "native.perf.dropped",
+                "events=" + (dropped - reportedDropped) + " totalDropped=" + dropped
+            );
+            reportedDropped = dropped;
+        }
+        return total;
+    }
+
+    static String stage(long kind) {
+        if (kind == KIND_STREAM_INFER) {
+            return "native.stream.infer";
+        }
+        if (kind == KIND_AUDIO_CTX_PROBE) {
+            return "native.audio_ctx.probe";
+        }
+        return "native.perf.unknown";
+    }
+
+    static String details(long[] words, int offset) {
+        long kind = words[offset];
+        int field = offset + 2;
+        if (kind == KIND_STREAM_INFER) {
+            return "startedAtMs=" + words[field]
+                + " finishedAtMs=" + words[field + 1]
+                + " samples=" + words[field + 2]
+                + " bufferMs=" + words[field + 3]
+                + " retrySamples=" + words[field + 4]
+                + " pendingSamples=" + words[field + 5]
+                + " threadCount=" + words[field + 6]
+                + " concurrentDecodes=" + words[field + 7]
+                + " stateWaitMs=" + words[field + 8]
+                + " queueLength=" + words[field + 9]
+                + " audioCtx=" + words[field + 10]
+                + " inferMs=" + words[field + 11]
+                + " reducedInferMs=" + words[field + 12]
+                + " ctxFallback=" + ctxFallbackName(words[field + 13])
+                + " noSpeech=" + (words[field + 14] != 0L)
+                + " noSpeechProb=" + String.format(Locale.US, "%.6f", Float.intBitsToFloat((int) words[field + 15]))
+                + " rejectedChars=" + words[field + 16]
+                + " extractMs=" + words[field + 17]
+                + " segments=" + words[field + 18]
+                + " chars=" + words[field + 19]
+                + " flush=" + (words[field + 20] != 0L);
+        }
+        if (kind == KIND_AUDIO_CTX_PROBE) {
+            return "samples=" + words[field]
+                + " audioCtx=" + words[field + 1]
+                + " reducedInferMs=" + words[field + 2]
+                + " fullInferMs=" + words[field + 3]
+                + " reducedChars=" + words[field + 4]
+                + " fullChars=" + words[field + 5];
+        }
+        return "kind=" + kind;
+    }
+
+    private static String ctxFallbackName(long code) {
+        return code >= 0L && code < CTX_FALLBACK_NAMES.length ? CTX_FALLBACK_NAMES[(int) code] : Long.toString(code);
+    }
+
+    private static native int nativeDrain(long[] buffer);
+
+    private static native long nativeDroppedEvents();
+}
@@ -0,0 +1,88 @@
+package com.micklab.voicelistener;
+
+import java.util.Arrays;
+
+// Minimum-statistics noise estimate: the smoothed frame RMS is tracked as a running minimum over a
+// window split into sub-windows, so speech pauses anywhere in the window pull the floor down while
+// speech itself cannot raise it. Each frame is O(1); the sub-window ring is rescanned only when a
+// sub-window closes.
+public final class NoiseFloorTracker {
+    static final int DEFAULT_WINDOW_MS = 1536;
+    static final int DEFAULT_SUB_WINDOWS = 8;
+    private static final double SMOOTHING = 0.7;
+    // The minimum of a noisy RMS sits below its mean; scale it back up (about sqrt(1.5) in power terms).
+    private static final double MINIMUM_BIAS = 1.22;
+    private static final double MIN_FLOOR_RMS = 1.0;
+
+    private final double[] subWindowMinima;
+    private final int framesPerSubWindow;
+    private int subWindowIndex = 0;
+    private int framesInSubWindow = 0;
+    private double currentMinimum = Double.POSITIVE_INFINITY;
+    private double windowMinimum = Double.POSITIVE_INFINITY;
+    private double smoothedRms = 0.0;
+    private boolean primed = false;
+
+    public NoiseFloorTracker(int frameMs) {
+        this(DEFAULT_SUB_WINDOWS, framesPerSubWindow(frameMs));
+    }
+
+    NoiseFloorTracker(int subWindows, int framesPerSubWindow) {
+        if (subWindows <= 0 || framesPerSubWindow <= 0) {
+            throw new IllegalArgumentException("Noise window must be positive.");
+        }
+        this.subWindowMinima = new double[subWindows];
+        this.framesPerSubWindow = framesPerSubWindow;
+        Arrays.fill(subWindowMinima, Double.POSITIVE_INFINITY);
+    }
+
+    // Replaces the whole window with a previously tracked minimum, e.g. one persisted before a restart.
+    public void seed(double minimumRms) {
+        double seeded = Math.max(MIN_FLOOR_RMS, minimumRms);
+        Arrays.fill(subWindowMinima, seeded);
+        windowMinimum = seeded;
+        currentMinimum = Double.POSITIVE_INFINITY;
+        framesInSubWindow = 0;
+        smoothedRms = seeded;
+        primed = true;
+    }
+
+    public void update(double frameRms) {
+        smoothedRms = primed ? (SMOOTHING * smoothedRms) + ((1.0 - SMOOTHING) * frameRms) : frameRms;
+        primed = true;
+        if (smoothedRms < currentMinimum) {
+            currentMinimum = smoothedRms;
+        }
+        framesInSubWindow++;
+        if (framesInSubWindow < framesPerSubWindow) {
+            return;
+        }
+        subWindowMinima[subWindowIndex] = currentMinimum;
+        subWindowIndex = subWindowIndex + 1 == subWindowMinima.length ? 0 : subWindowIndex + 1;
+        currentMinimum = Double.POSITIVE_INFINITY;
+        framesInSubWindow = 0;
+        double minimum = Double.POSITIVE_INFINITY;
+        for (double value : subWindowMinima) {
+            minimum = Math.min(minimum, value);
+        }
+        windowMinimum = minimum;
+    }
+
+    // Raw minimum over the window; this is the value to persist and seed() with later.
+    public double getTrackedMinimum() {
+        double minimum = Math.min(windowMinimum, currentMinimum);
+        return Double.isInfinite(minimum) ? 0.0 : minimum;
+    }
+
+    public double getNoiseFloorRms() {
+        return Math.max(MIN_FLOOR_RMS, getTrackedMinimum() * MINIMUM_BIAS);
+    }
+
+    private static int framesPerSubWindow(int frameMs) {
+        if (frameMs <= 0) {
+            throw new IllegalArgumentException("Frame size must be positive: " + frameMs);
+        }
+        int subWindowMs = DEFAULT_WINDOW_MS / DEFAULT_SUB_WINDOWS;
+        return Math.max(1, (subWindowMs + frameMs - 1) / frameMs);
+    }
+}
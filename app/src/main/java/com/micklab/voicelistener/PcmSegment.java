@@ -0,0 +1,44 @@
+package com.micklab.voicelistener;
+
+import java.util.Arrays;
+
+// A finished VAD segment handed off without copying: it borrows the accumulator's backing array,
+// which may be longer than length(). recycle() returns the array once the consumer is done with it.
+public final class PcmSegment {
+    private final SegmentAccumulator owner;
+    private short[] samples;
+    private final int length;
+
+    PcmSegment(SegmentAccumulator owner, short[] samples, int length) {
+        this.owner = owner;
+        this.samples = samples;
+        this.length = length;
+    }
+
+    public short[] samples() {
+        short[] current = samples;
+        if (current == null) {
+            throw new IllegalStateException("PCM segment was already recycled.");
+        }
+        return current;
+    }
+
+    public int length() {
+        return length;
+    }
+
+    public short[] toSampleArray() {
+        return Arrays.copyOf(samples(), length);
+    }
+
+    public synchronized void recycle() {
+        short[] current = samples;
+        if (current == null) {
+            return;
+        }
+        samples = null;
+        if (owner != null) {
+            owner.recycle(current);
+        }
+    }
+}
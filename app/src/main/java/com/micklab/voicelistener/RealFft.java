@@ -0,0 +1,105 @@
+package com.micklab.voicelistener;
+
+// Real-input radix-2 FFT: packs the N real samples into an N/2-point complex FFT and splits the
+// result, so a frame costs roughly half of a full complex transform. Not thread-safe.
+public final class RealFft {
+    private final int size;
+    private final int half;
+    private final int[] bitReversed;
+    private final double[] twiddleCos;
+    private final double[] twiddleSin;
+    private final double[] splitCos;
+    private final double[] splitSin;
+    private final double[] re;
+    private final double[] im;
+
+    public RealFft(int size) {
+        if (size < 4 || Integer.bitCount(size) != 1) {
+            throw new IllegalArgumentException("FFT size must be a power of two >= 4: " + size);
+        }
+        this.size = size;
+        this.half = size / 2;
+        this.bitReversed = new int[half];
+        int bits = Integer.numberOfTrailingZeros(half);
+        for (int index = 0; index < half; index++) {
+            bitReversed[index] = bits == 0 ? 0 : Integer.reverse(index) >>> (Integer.SIZE - bits);
+        }
+        this.twiddleCos = new double[Math.max(1, half / 2)];
+        this.twiddleSin = new double[twiddleCos.length];
+        for (int index = 0; index < twiddleCos.length; index++) {
+            double angle = -2.0 * Math.PI * index / half;
+            twiddleCos[index] = Math.cos(angle);
+            twiddleSin[index] = Math.sin(angle);
+        }
+        this.splitCos = new double[half];
+        this.splitSin = new double[half];
+        for (int index = 0; index < half; index++) {
+            double angle = -2.0 * Math.PI * index / size;
+            splitCos[index] = Math.cos(angle);
+            splitSin[index] = Math.sin(angle);
+        }
+        this.re = new double[half];
+        this.im = new double[half];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int binCount() {
+        return half + 1;
+    }
+
+    // power[k] = |X[k]|^2 for k = 0..size/2.
+    public void powerSpectrum(float[] input, float[] power) {
+        if (input == null || input.length < size) {
+            throw new IllegalArgumentException("FFT input must hold " + size + " samples.");
+        }
+        if (power == null || power.length < half + 1) {
+            throw new IllegalArgumentException("FFT output must hold " + (half + 1) + " bins.");
+        }
+        for (int index = 0; index < half; index++) {
+            int target = bitReversed[index];
+            re[target] = input[2 * index];
+            im[target] = input[2 * index + 1];
+        }
+        for (int length = 2; length <= half; length <<= 1) {
+            int span = length / 2;
+            int step = half / length;
+            for (int start = 0; start < half; start += length) {
+                for (int offset = 0; offset < span; offset++) {
+                    double wr = twiddleCos[offset * step];
+                    double wi = twiddleSin[offset * step];
+                    int a = start + offset;
+                    int b = a + span;
+                    double tr = re[b] * wr - im[b] * wi;
+                    double ti = re[b] * wi + im[b] * wr;
+                    re[b] = re[a] - tr;
+                    im[b] = im[a] - ti;
+                    re[a] += tr;
+                    im[a] += ti;
+                }
+            }
+        }
+
+        double dc = re[0] + im[0];
+        double nyquist = re[0] - im[0];
+        power[0] = (float) (dc * dc);
+        power[half] = (float) (nyquist * nyquist);
+        for (int k = 1; k < half; k++) {
+            double zr = re[k];
+            double zi = im[k];
+            double cr = re[half - k];
+            double ci = -im[half - k];
+            double evenRe = 0.5 * (zr + cr);
+            double evenIm = 0.5 * (zi + ci);
+            double oddRe = 0.5 * (zi - ci);
+            double oddIm = -0.5 * (zr - cr);
+            double wr = splitCos[k];
+            double wi = splitSin[k];
+            double xr = evenRe + oddRe * wr - oddIm * wi;
+            double xi = evenIm + oddRe * wi + oddIm * wr;
+            power[k] = (float) (xr * xr + xi * xi);
+        }
+    }
+}
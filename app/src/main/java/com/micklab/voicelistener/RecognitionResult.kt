@@ -0,0 +1,90 @@
+package com.micklab.voicelistener
+
+// startMs/endMs are on the engine's stream clock (ms of audio since its stream last reset, at start,
+// flush or discard), or -1 when the engine does not report timing. avgTokenProb is the mean probability of the segment's text tokens, NaN if unknown.
+data class RecognitionSegment(
+    val text: String,
+    val startMs: Long,
+    val endMs: Long,
+    val avgTokenProb: Float
+)
+
+data class RecognitionResult(
+    val text: String,
+    val segments: List<RecognitionSegment>,
+    // The window was judged non-speech and its text discarded; distinct from a blank speech window.
+    val noSpeech: Boolean = false,
+    val noSpeechProb: Float = 0f,
+    // Stream-clock start of the decoded window and the retry tail it began with, i.e. audio an earlier
+    // window already covered; -1 and 0 when the engine does not report timing.
+    val windowStartMs: Long = -1L,
+    val retryMs: Long = 0L
+) {
+    // Token-probability mean across segments weighted by text length; NaN when no segment has one.
+    fun confidence(): Float {
+        var weighted = 0.0
+        var weight = 0
+        for (segment in segments) {
+            if (segment.avgTokenProb.isNaN() || segment.text.isEmpty()) {
+                continue
+            }
+            weighted += segment.avgTokenProb.toDouble() * segment.text.length
+            weight += segment.text.length
+        }
+        return if (weight == 0) Float.NaN else (weighted / weight).toFloat()
+    }
+
+    companion object {
+        @JvmField
+        val EMPTY = RecognitionResult("", emptyList())
+
+        // Packed layout written by the JNI decode: a header of RESULT_HEADER floats
+        // [status, segments written, max no-speech prob, segments produced, window start ms, retry ms],
+        // then RESULT_STRIDE floats per segment [t0 ms, t1 ms, avg token prob, end offset of its text in
+        // the string]. Times are on the stream clock.
+        const val RESULT_HEADER = 6
+        const val RESULT_STRIDE = 4
+        const val RESULT_MAX_SEGMENTS = 16
+        const val RESULT_CAPACITY = RESULT_HEADER + RESULT_STRIDE * RESULT_MAX_SEGMENTS
+        private const val STATUS_NO_SPEECH = 1
+
+        @JvmStatic
+        fun ofText(text: String): RecognitionResult {
+            if (text.isEmpty()) {
+                return EMPTY
+            }
+            return RecognitionResult(text, listOf(RecognitionSegment(text, -1L, -1L, Float.NaN)))
+        }
+
+        @JvmStatic
+        fun unpack(packed: String, meta: FloatArray): RecognitionResult {
+            require(meta.size >= RESULT_HEADER) { "Packed result header is truncated: ${meta.size}" }
+            val noSpeech = meta[0].toInt() == STATUS_NO_SPEECH
+            val noSpeechProb = meta[2]
+            val count = meta[1].toInt().coerceIn(0, (meta.size - RESULT_HEADER) / RESULT_STRIDE)
+            val segments = ArrayList<RecognitionSegment>(count)
+            var start = 0
+            for (index in 0 until count) {
+                val base = RESULT_HEADER + index * RESULT_STRIDE
+                val end = meta[base + 3].toInt().coerceIn(start, packed.length)
+                segments.add(
+                    RecognitionSegment(
+                        text = packed.substring(start, end).trim(),
+                        startMs = meta[base].toLong(),
+                        endMs = meta[base + 1].toLong(),
+                        avgTokenProb = meta[base + 2]
+                    )
+                )
+                start = end
+            }
+            return RecognitionResult(
+                packed.trim(),
+                segments,
+                noSpeech,
+                noSpeechProb,
+                windowStartMs = meta[4].toLong(),
+                retryMs = meta[5].toLong()
+            )
+        }
+    }
+}
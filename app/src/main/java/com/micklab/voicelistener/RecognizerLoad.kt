@@ -0,0 +1,12 @@
+package com.micklab.voicelistener
+
+// Point-in-time view of how far an engine's decoding lags behind capture.
+data class RecognizerLoad(
+    // Windows decoded since the engine was created; a new value means lastRtf is fresh.
+    val windows: Long,
+    val lastRtf: Double,
+    // Windows cut but not yet finished decoding, running or waiting for a decoder.
+    val queuedWindows: Int,
+    val pendingSamples: Int,
+    val modelPath: String?
+)
@@ -0,0 +1,13 @@
+package com.micklab.voicelistener;
+
+public final class RmsFrameClassifier implements SpeechFrameClassifier {
+    @Override
+    public boolean isSpeech(AudioFramePool.Frame frame, double energyThreshold) {
+        return frame.features().rms() >= energyThreshold;
+    }
+
+    @Override
+    public VadMode mode() {
+        return VadMode.RMS;
+    }
+}
@@ -0,0 +1,187 @@
+package com.micklab.voicelistener;
+
+import java.nio.ShortBuffer;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Collects a speech segment into one power-of-two short[] and keeps the frames heard before speech
+// in a fixed ring of copies. Segments leave as PcmSegment views; recycled arrays are reused so a
+// steady stream of segments stops allocating once the buffers have grown to the longest segment.
+// Appends must come from one thread; recycle() may be called from any thread.
+public final class SegmentAccumulator {
+    private static final int MAX_SPARE_BUFFERS = 4;
+
+    private final short[][] preRollSlots;
+    private final int[] preRollLengths;
+    private int preRollStart = 0;
+    private int preRollCount = 0;
+    private final int minimumCapacity;
+    private short[] buffer;
+    private int length = 0;
+    private final ConcurrentLinkedQueue<short[]> spareBuffers = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger spareCount = new AtomicInteger(0);
+    private long arrayAllocations = 0L;
+    private long growCount = 0L;
+    private long segmentsHandedOff = 0L;
+
+    public SegmentAccumulator(int preRollFrames, int initialCapacity) {
+        if (preRollFrames < 0) {
+            throw new IllegalArgumentException("Pre-roll frame count must not be negative.");
+        }
+        if (initialCapacity <= 0) {
+            throw new IllegalArgumentException("Initial capacity must be positive.");
+        }
+        this.preRollSlots = new short[preRollFrames][];
+        this.preRollLengths = new int[preRollFrames];
+        this.minimumCapacity = roundUpToPowerOfTwo(initialCapacity);
+        this.buffer = allocate(minimumCapacity);
+    }
+
+    public void rememberPreRoll(short[] samples, int sampleCount) {
+        if (preRollSlots.length == 0 || sampleCount <= 0) {
+            return;
+        }
+        System.arraycopy(samples, 0, nextPreRollSlot(sampleCount), 0, sampleCount);
+    }
+
+    // Capture frames are direct buffers shared with other consumers, so they are read with absolute gets.
+    public void rememberPreRoll(ShortBuffer samples, int sampleCount) {
+        if (preRollSlots.length == 0 || sampleCount <= 0) {
+            return;
+        }
+        copy(samples, nextPreRollSlot(sampleCount), 0, sampleCount);
+    }
+
+    private short[] nextPreRollSlot(int sampleCount) {
+        int slot;
+        if (preRollCount == preRollSlots.length) {
+            slot = preRollStart;
+            preRollStart = (preRollStart + 1) % preRollSlots.length;
+        } else {
+            slot = (preRollStart + preRollCount) % preRollSlots.length;
+            preRollCount++;
+        }
+        short[] target = preRollSlots[slot];
+        if (target == null || target.length < sampleCount) {
+            target = allocate(sampleCount);
+            preRollSlots[slot] = target;
+        }
+        preRollLengths[slot] = sampleCount;
+        return target;
+    }
+
+    // Moves the pre-roll ring, oldest first, to the front of the current segment.
+    public void startSegmentFromPreRoll() {
+        for (int index = 0; index < preRollCount; index++) {
+            int slot = (preRollStart + index) % preRollSlots.length;
+            append(preRollSlots[slot], preRollLengths[slot]);
+        }
+        clearPreRoll();
+    }
+
+    public void append(short[] samples, int sampleCount) {
+        if (sampleCount <= 0) {
+            return;
+        }
+        ensureCapacity(length + sampleCount);
+        System.arraycopy(samples, 0, buffer, length, sampleCount);
+        length += sampleCount;
+    }
+
+    public void append(ShortBuffer samples, int sampleCount) {
+        if (sampleCount <= 0) {
+            return;
+        }
+        ensureCapacity(length + sampleCount);
+        copy(samples, buffer, length, sampleCount);
+        length += sampleCount;
+    }
+
+    private static void copy(ShortBuffer source, short[] target, int targetOffset, int sampleCount) {
+        for (int index = 0; index < sampleCount; index++) {
+            target[targetOffset + index] = source.get(index);
+        }
+    }
+
+    public int length() {
+        return length;
+    }
+
+    public int preRollFrameCount() {
+        return preRollCount;
+    }
+
+    public PcmSegment takeSegment() {
+        if (length == 0) {
+            return null;
+        }
+        PcmSegment segment = new PcmSegment(this, buffer, length);
+        segmentsHandedOff++;
+        buffer = nextBuffer(buffer.length);
+        length = 0;
+        return segment;
+    }
+
+    public void clearSegment() {
+        length = 0;
+    }
+
+    public void clearPreRoll() {
+        preRollStart = 0;
+        preRollCount = 0;
+    }
+
+    public long getArrayAllocationCount() {
+        return arrayAllocations;
+    }
+
+    public long getGrowCount() {
+        return growCount;
+    }
+
+    public long getSegmentsHandedOff() {
+        return segmentsHandedOff;
+    }
+
+    void recycle(short[] released) {
+        if (released == null || released.length < minimumCapacity) {
+            return;
+        }
+        if (spareCount.incrementAndGet() > MAX_SPARE_BUFFERS) {
+            spareCount.decrementAndGet();
+            return;
+        }
+        spareBuffers.offer(released);
+    }
+
+    private short[] nextBuffer(int preferredCapacity) {
+        short[] spare;
+        while ((spare = spareBuffers.poll()) != null) {
+            spareCount.decrementAndGet();
+            if (spare.length >= preferredCapacity) {
+                return spare;
+            }
+        }
+        return allocate(preferredCapacity);
+    }
+
+    private void ensureCapacity(int required) {
+        if (required <= buffer.length) {
+            return;
+        }
+        short[] grown = allocate(roundUpToPowerOfTwo(required));
+        System.arraycopy(buffer, 0, grown, 0, length);
+        buffer = grown;
+        growCount++;
+    }
+
+    private short[] allocate(int capacity) {
+        arrayAllocations++;
+        return new short[capacity];
+    }
+
+    private static int roundUpToPowerOfTwo(int value) {
+        int highest = Integer.highestOneBit(Math.max(1, value));
+        return highest == value ? value : highest << 1;
+    }
+}
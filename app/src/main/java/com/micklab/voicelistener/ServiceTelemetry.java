@@ -0,0 +1,150 @@
+package com.micklab.voicelistener;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+// In-process channel between VoiceListenerService and the UI. Writers only store the latest value
+// and mark it dirty; listeners are notified at most once per dispatch with every slot that changed.
+public final class ServiceTelemetry {
+    public static final int CHANGED_LEVEL = 1;
+    public static final int CHANGED_MONITOR_STATE = 1 << 1;
+    public static final int CHANGED_MODEL_DOWNLOAD = 1 << 2;
+    public static final int CHANGED_WHISPER_MODEL_DOWNLOAD = 1 << 3;
+
+    public interface Listener {
+        void onTelemetryChanged(ServiceTelemetry telemetry, int changedMask);
+    }
+
+    public static final class DownloadProgress {
+        private final boolean active;
+        private final int progress;
+        private final String modelName;
+
+        public DownloadProgress(boolean active, int progress, String modelName) {
+            this.active = active;
+            this.progress = progress;
+            this.modelName = modelName == null ? "" : modelName;
+        }
+
+        public boolean isActive() {
+            return active;
+        }
+
+        public int getProgress() {
+            return progress;
+        }
+
+        public String getModelName() {
+            return modelName;
+        }
+    }
+
+    private static volatile ServiceTelemetry instance;
+
+    private final Executor dispatcher;
+    private final CopyOnWriteArrayList<Listener> listeners = new CopyOnWriteArrayList<>();
+    private final AtomicInteger pendingMask = new AtomicInteger(0);
+    private final Runnable deliverTask = this::deliverPending;
+    private volatile float level = 0f;
+    private volatile String monitorState;
+    private final AtomicReference<DownloadProgress> modelDownload = new AtomicReference<>();
+    private final AtomicReference<DownloadProgress> whisperModelDownload = new AtomicReference<>();
+
+    ServiceTelemetry(Executor dispatcher) {
+        if (dispatcher == null) {
+            throw new IllegalArgumentException("Telemetry dispatcher must not be null.");
+        }
+        this.dispatcher = dispatcher;
+    }
+
+    public static ServiceTelemetry getInstance() {
+        ServiceTelemetry current = instance;
+        if (current == null) {
+            synchronized (ServiceTelemetry.class) {
+                current = instance;
+                if (current == null) {
+                    Handler mainHandler = new Handler(Looper.getMainLooper());
+                    current = new ServiceTelemetry(mainHandler::post);
+                    instance = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    public void addListener(Listener listener) {
+        if (listener != null) {
+            listeners.addIfAbsent(listener);
+        }
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    public void publishLevel(float rms) {
+        if (level == rms) {
+            return;
+        }
+        level = rms;
+        markChanged(CHANGED_LEVEL);
+    }
+
+    public void publishMonitorState(String state) {
+        monitorState = state;
+        markChanged(CHANGED_MONITOR_STATE);
+    }
+
+    public void publishModelDownload(boolean active, int progress, String modelName) {
+        modelDownload.set(new DownloadProgress(active, progress, modelName));
+        markChanged(CHANGED_MODEL_DOWNLOAD);
+    }
+
+    public void publishWhisperModelDownload(boolean active, int progress, String modelName) {
+        whisperModelDownload.set(new DownloadProgress(active, progress, modelName));
+        markChanged(CHANGED_WHISPER_MODEL_DOWNLOAD);
+    }
+
+    public float getLevel() {
+        return level;
+    }
+
+    // Null until the service publishes in this process; callers fall back to the persisted value.
+    public String getMonitorState() {
+        return monitorState;
+    }
+
+    public DownloadProgress getModelDownload() {
+        return modelDownload.get();
+    }
+
+    public DownloadProgress getWhisperModelDownload() {
+        return whisperModelDownload.get();
+    }
+
+    private void markChanged(int bit) {
+        if (listeners.isEmpty()) {
+            // New listeners read the slots when they register, so nothing needs to be queued.
+            return;
+        }
+        int previous = pendingMask.getAndUpdate(mask -> mask | bit);
+        if (previous == 0) {
+            dispatcher.execute(deliverTask);
+        }
+    }
+
+    private void deliverPending() {
+        int changed = pendingMask.getAndSet(0);
+        if (changed == 0) {
+            return;
+        }
+        for (Listener listener : listeners) {
+            listener.onTelemetryChanged(this, changed);
+        }
+    }
+}
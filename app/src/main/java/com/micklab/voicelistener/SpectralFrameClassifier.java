@@ -0,0 +1,118 @@
+package com.micklab.voicelistener;
+
+import java.nio.ShortBuffer;
+
+// Energy gate first, then spectral shape: voiced speech concentrates its energy in the
+// 300-3400 Hz band and is harmonic (low flatness), while fans and HVAC sit below the band and
+// keyboard clicks or hiss are close to flat. The FFT only runs on frames that pass the energy gate.
+// The Hann window spans the frame itself and the FFT input is zero-padded up to the next power of
+// two, so 10 ms and 20 ms frames are tapered at both ends rather than cut off mid-window.
+public final class SpectralFrameClassifier implements SpeechFrameClassifier {
+    public static final double DEFAULT_MIN_SPEECH_BAND_RATIO = 0.5;
+    public static final double DEFAULT_MAX_SPECTRAL_FLATNESS = 0.4;
+    private static final double SPEECH_BAND_LOW_HZ = 300.0;
+    private static final double SPEECH_BAND_HIGH_HZ = 3400.0;
+    private static final double POWER_FLOOR = 1e-3;
+
+    private final RealFft fft;
+    private final float[] window;
+    private final float[] input;
+    private final float[] power;
+    private final int bandLowBin;
+    private final int bandHighBin;
+    private final double minSpeechBandRatio;
+    private final double maxSpectralFlatness;
+    private double lastSpeechBandRatio = 0.0;
+    private double lastSpectralFlatness = 1.0;
+    private long analyzedFrames = 0L;
+    private int windowLength = 0;
+
+    public SpectralFrameClassifier(int sampleRateHz, int frameSamples) {
+        this(sampleRateHz, frameSamples, DEFAULT_MIN_SPEECH_BAND_RATIO, DEFAULT_MAX_SPECTRAL_FLATNESS);
+    }
+
+    public SpectralFrameClassifier(int sampleRateHz, int frameSamples, double minSpeechBandRatio, double maxSpectralFlatness) {
+        if (sampleRateHz <= 0) {
+            throw new IllegalArgumentException("Sample rate must be positive.");
+        }
+        if (frameSamples < 2) {
+            throw new IllegalArgumentException("Frame must hold at least two samples: " + frameSamples);
+        }
+        int fftSize = Math.max(4, Integer.highestOneBit(frameSamples - 1) << 1);
+        this.fft = new RealFft(fftSize);
+        this.window = new float[frameSamples];
+        buildWindow(frameSamples);
+        this.input = new float[fftSize];
+        this.power = new float[fft.binCount()];
+        double binHz = sampleRateHz / (double) fftSize;
+        int lastBin = fft.binCount() - 1;
+        this.bandLowBin = Math.max(1, Math.min(lastBin, (int) Math.ceil(SPEECH_BAND_LOW_HZ / binHz)));
+        this.bandHighBin = Math.max(bandLowBin, Math.min(lastBin, (int) Math.floor(SPEECH_BAND_HIGH_HZ / binHz)));
+        this.minSpeechBandRatio = minSpeechBandRatio;
+        this.maxSpectralFlatness = maxSpectralFlatness;
+    }
+
+    @Override
+    public boolean isSpeech(AudioFramePool.Frame frame, double energyThreshold) {
+        if (frame.features().rms() < energyThreshold) {
+            return false;
+        }
+        analyze(frame.pcm(), frame.length());
+        return lastSpeechBandRatio >= minSpeechBandRatio && lastSpectralFlatness <= maxSpectralFlatness;
+    }
+
+    @Override
+    public VadMode mode() {
+        return VadMode.SPECTRAL;
+    }
+
+    public double lastSpeechBandRatio() {
+        return lastSpeechBandRatio;
+    }
+
+    public double lastSpectralFlatness() {
+        return lastSpectralFlatness;
+    }
+
+    public long getAnalyzedFrameCount() {
+        return analyzedFrames;
+    }
+
+    private void analyze(ShortBuffer samples, int length) {
+        int count = Math.min(length, window.length);
+        if (count != windowLength) {
+            // Only a short final read lands here; the window is rebuilt to taper that frame too.
+            buildWindow(count);
+        }
+        for (int index = 0; index < count; index++) {
+            input[index] = samples.get(index) * window[index];
+        }
+        for (int index = count; index < input.length; index++) {
+            input[index] = 0f;
+        }
+        fft.powerSpectrum(input, power);
+        analyzedFrames++;
+
+        double totalPower = 0.0;
+        for (int bin = 1; bin < power.length; bin++) {
+            totalPower += power[bin];
+        }
+        double bandPower = 0.0;
+        double logSum = 0.0;
+        for (int bin = bandLowBin; bin <= bandHighBin; bin++) {
+            double value = power[bin] + POWER_FLOOR;
+            bandPower += value;
+            logSum += Math.log(value);
+        }
+        int bandBins = bandHighBin - bandLowBin + 1;
+        lastSpeechBandRatio = totalPower > 0.0 ? Math.min(1.0, bandPower / totalPower) : 0.0;
+        lastSpectralFlatness = Math.exp(logSum / bandBins) / (bandPower / bandBins);
+    }
+
+    private void buildWindow(int length) {
+        for (int index = 0; index < length; index++) {
+            window[index] = length < 2 ? 1f : (float) (0.5 - 0.5 * Math.cos(2.0 * Math.PI * index / (length - 1)));
+        }
+        windowLength = length;
+    }
+}
@@ -0,0 +1,9 @@
+package com.micklab.voicelistener;
+
+// Per-frame speech/non-speech decision used by VoiceActivityDetector. The detector owns the
+// segmenting state machine and the adaptive energy threshold; classifiers only look at one frame.
+public interface SpeechFrameClassifier {
+    boolean isSpeech(AudioFramePool.Frame frame, double energyThreshold);
+
+    VadMode mode();
+}
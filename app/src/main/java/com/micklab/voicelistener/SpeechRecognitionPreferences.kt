@@ -5,6 +5,14 @@ import android.content.Context
 object SpeechRecognitionPreferences {
     private const val PREFS_NAME = "VoiceListenerPrefs"
     private const val PREF_ACTIVE_ENGINE = "active_engine"
+    private const val PREF_VAD_MODE_PREFIX = "vad_mode_"
+    private const val PREF_VAD_FRAME_MS_PREFIX = "vad_frame_ms_"
+    private const val PREF_VAD_HANGOVER_MS_PREFIX = "vad_hangover_ms_"
+    private const val PREF_VAD_MIN_SPEECH_MS_PREFIX = "vad_min_speech_ms_"
+    private const val PREF_VAD_MAX_SEGMENT_MS_PREFIX = "vad_max_segment_ms_"
+    private const val PREF_NOISE_FLOOR_PREFIX = "vad_noise_floor_source_"
+    private const val PREF_WHISPER_THREADS_PREFIX = "whisper_threads_"
+    private const val PREF_WHISPER_INFERENCE_PROFILE = "whisper_inference_profile"
 
     @JvmStatic
     fun getActiveEngine(context: Context): EngineType {
@@ -19,4 +27,107 @@ object SpeechRecognitionPreferences {
             .putString(PREF_ACTIVE_ENGINE, engineType.name)
             .apply()
     }
+
+    // RMS for every engine. SPECTRAL is opt-in only through setVadMode: its thresholds are not yet
+    // validated on real speech, and per frame it can reject unvoiced fricatives at word onsets.
+    @JvmStatic
+    fun getVadMode(context: Context, engineType: EngineType): VadMode {
+        val prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE)
+        return VadMode.fromPreference(prefs.getString(vadModeKey(engineType), null), VadMode.RMS)
+    }
+
+    @JvmStatic
+    fun setVadMode(context: Context, engineType: EngineType, mode: VadMode) {
+        context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE)
+            .edit()
+            .putString(vadModeKey(engineType), mode.name)
+            .apply()
+    }
+
+    @JvmStatic
+    fun getVadTiming(context: Context, engineType: EngineType): VadTiming {
+        val prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE)
+        val defaults = VadTiming.defaultsFor(engineType)
+        val suffix = engineType.name.lowercase()
+        val frameMs = prefs.getInt(PREF_VAD_FRAME_MS_PREFIX + suffix, defaults.frameMs())
+        return try {
+            VadTiming(
+                if (VadTiming.isSupportedFrameMs(frameMs)) frameMs else defaults.frameMs(),
+                prefs.getInt(PREF_VAD_HANGOVER_MS_PREFIX + suffix, defaults.hangoverMs()),
+                prefs.getInt(PREF_VAD_MIN_SPEECH_MS_PREFIX + suffix, defaults.minSpeechMs()),
+                prefs.getInt(PREF_VAD_MAX_SEGMENT_MS_PREFIX + suffix, defaults.maxSegmentMs()),
+                defaults.preRollMs()
+            )
+        } catch (e: IllegalArgumentException) {
+            defaults
+        }
+    }
+
+    @JvmStatic
+    fun setVadTiming(context: Context, engineType: EngineType, timing: VadTiming) {
+        val suffix = engineType.name.lowercase()
+        context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE)
+            .edit()
+            .putInt(PREF_VAD_FRAME_MS_PREFIX + suffix, timing.frameMs())
+            .putInt(PREF_VAD_HANGOVER_MS_PREFIX + suffix, timing.hangoverMs())
+            .putInt(PREF_VAD_MIN_SPEECH_MS_PREFIX + suffix, timing.minSpeechMs())
+            .putInt(PREF_VAD_MAX_SEGMENT_MS_PREFIX + suffix, timing.maxSegmentMs())
+            .apply()
+    }
+
+    // Raw tracked minimum per AudioRecord source; 0 when nothing has been measured yet.
+    @JvmStatic
+    fun getNoiseFloorMinimum(context: Context, audioSource: Int): Double {
+        val prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE)
+        return prefs.getFloat(PREF_NOISE_FLOOR_PREFIX + audioSource, 0f).toDouble()
+    }
+
+    @JvmStatic
+    fun setNoiseFloorMinimum(context: Context, audioSource: Int, minimumRms: Double) {
+        if (minimumRms <= 0.0) {
+            return
+        }
+        context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE)
+            .edit()
+            .putFloat(PREF_NOISE_FLOOR_PREFIX + audioSource, minimumRms.toFloat())
+            .apply()
+    }
+
+    @JvmStatic
+    fun getWhisperInferenceProfile(context: Context): WhisperInferenceProfile {
+        val prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE)
+        return WhisperInferenceProfile.fromPreference(prefs.getString(PREF_WHISPER_INFERENCE_PROFILE, null))
+    }
+
+    @JvmStatic
+    fun setWhisperInferenceProfile(context: Context, profile: WhisperInferenceProfile) {
+        context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE)
+            .edit()
+            .putString(PREF_WHISPER_INFERENCE_PROFILE, profile.name)
+            .apply()
+    }
+
+    // Calibrated Whisper threads per model name. A result measured on a different file or device
+    // reads as missing, so a changed model is calibrated again.
+    @JvmStatic
+    fun getWhisperThreadSetting(context: Context, modelName: String, identity: String): ThreadSetting? {
+        val prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE)
+        val stored = prefs.getString(PREF_WHISPER_THREADS_PREFIX + modelName, null) ?: return null
+        val separator = stored.lastIndexOf('\n')
+        if (separator < 0 || stored.substring(0, separator) != identity) {
+            return null
+        }
+        return ThreadSetting.decode(stored.substring(separator + 1))
+    }
+
+    @JvmStatic
+    fun setWhisperThreadSetting(context: Context, modelName: String, identity: String, setting: ThreadSetting) {
+        context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE)
+            .edit()
+            .putString(PREF_WHISPER_THREADS_PREFIX + modelName, identity + "\n" + setting.encode())
+            .apply()
+    }
+
+    private fun vadModeKey(engineType: EngineType): String =
+        PREF_VAD_MODE_PREFIX + engineType.name.lowercase()
 }
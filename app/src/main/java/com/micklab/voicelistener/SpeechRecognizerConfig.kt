@@ -5,13 +5,34 @@ data class SpeechRecognizerConfig @JvmOverloads constructor(
     val modelPath: String,
     val sampleRateHz: Int = 16_000,
     val language: String = "ja",
-    val threadCount: Int = defaultThreadCount()
+    val threadCount: Int = defaultThreadCount(),
+    // Whisper only: cores the inference threads are pinned to, one bit per CPU; 0 leaves them unpinned.
+    val coreMask: Long = 0L,
+    // Whisper only: size the encoder context to short windows instead of the full 30 s.
+    val reducedAudioContext: Boolean = true,
+    // Whisper only: decoder states sharing one loaded model, i.e. windows decoded in parallel. Each
+    // state gets threadCount / decoderStates threads, so live capture, which decodes one window at a
+    // time, keeps a single state; more only pay off when a backlog is decoded in bulk.
+    val decoderStates: Int = defaultDecoderStates(),
+    // Whisper only: decode synthetic audio on every state after loading, before the model goes live.
+    val warmup: Boolean = true,
+    // Whisper only: sampling, fallback, attention and context trade-offs; see WhisperInferenceProfile.
+    val inferenceProfile: WhisperInferenceProfile = WhisperInferenceProfile.BALANCED
 ) {
+    fun withInferenceProfile(profile: WhisperInferenceProfile): SpeechRecognizerConfig =
+        copy(inferenceProfile = profile)
+
+    fun withThreadSetting(setting: ThreadSetting): SpeechRecognizerConfig =
+        copy(threadCount = setting.threadCount, coreMask = setting.coreMask)
+
     companion object {
         @JvmStatic
         fun defaultThreadCount(): Int {
             val available = Runtime.getRuntime().availableProcessors()
             return available.coerceIn(2, 8)
         }
+
+        @JvmStatic
+        fun defaultDecoderStates(): Int = 1
     }
 }
@@ -1,9 +1,59 @@
 package com.micklab.voicelistener
 
+import java.nio.ByteBuffer
+import java.nio.ByteOrder
+import java.util.concurrent.CompletableFuture
+
 interface SpeechRecognizerEngine {
     fun start()
     fun stop()
     fun transcribe(buffer: ShortArray): String
+
+    // Samples [0, length) of a buffer that may be longer, e.g. a pooled VAD segment array.
+    fun transcribe(buffer: ShortArray, length: Int): String =
+        transcribe(if (length == buffer.size) buffer else buffer.copyOf(length))
     fun flush(): String = ""
+    fun discardPending() {}
     fun release()
+
+    // The buffer is consumed before this returns, so callers may reuse it right away.
+    // Engines that decode synchronously complete the future in place.
+    fun submit(buffer: ShortArray): CompletableFuture<String> = completeWith { transcribe(buffer) }
+
+    fun submit(buffer: ShortArray, length: Int): CompletableFuture<String> =
+        if (length == buffer.size) submit(buffer) else completeWith { transcribe(buffer, length) }
+
+    fun submitFlush(): CompletableFuture<String> = completeWith { flush() }
+
+    // Segment timing and confidence where the engine has them; text-only engines report one untimed
+    // segment.
+    fun submitResult(buffer: ShortArray): CompletableFuture<RecognitionResult> =
+        submit(buffer).thenApply { RecognitionResult.ofText(it) }
+
+    fun submitResult(buffer: ShortArray, length: Int): CompletableFuture<RecognitionResult> =
+        submit(buffer, length).thenApply { RecognitionResult.ofText(it) }
+
+    // Native-order PCM16 in a direct buffer, samples [0, sampleCount); consumed before this returns,
+    // like the array form. Engines without a direct path copy it out.
+    fun submitResult(pcm: ByteBuffer, sampleCount: Int): CompletableFuture<RecognitionResult> {
+        val samples = ShortArray(sampleCount)
+        pcm.duplicate().order(ByteOrder.nativeOrder()).asShortBuffer().get(samples)
+        return submitResult(samples)
+    }
+
+    fun submitFlushResult(): CompletableFuture<RecognitionResult> =
+        submitFlush().thenApply { RecognitionResult.ofText(it) }
+
+    // null for engines that do not track decoding load.
+    fun loadSnapshot(): RecognizerLoad? = null
+
+    private fun completeWith(block: () -> String): CompletableFuture<String> {
+        val future = CompletableFuture<String>()
+        try {
+            future.complete(block())
+        } catch (e: RuntimeException) {
+            future.completeExceptionally(e)
+        }
+        return future
+    }
 }
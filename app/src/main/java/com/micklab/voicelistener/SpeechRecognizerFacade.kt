@@ -1,6 +1,11 @@
 package com.micklab.voicelistener
 
 import kotlin.concurrent.withLock
+import java.nio.ByteBuffer
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.Executors
+import java.util.concurrent.Future
 import java.util.concurrent.TimeUnit
 import java.util.concurrent.locks.ReentrantLock
 
@@ -10,18 +15,91 @@ class SpeechRecognizerFacade @JvmOverloads constructor(
     private val lock = ReentrantLock()
     private var currentEngine: SpeechRecognizerEngine = NoOpSpeechRecognizerEngine()
     private var currentEngineType: EngineType? = null
+    private var currentConfig: SpeechRecognizerConfig? = null
     private var started = false
+    // Guarded by lock. A built engine waiting for the current one to reach an utterance boundary.
+    private var pendingEngine: SpeechRecognizerEngine? = null
+    private var pendingConfig: SpeechRecognizerConfig? = null
+    private var selectionSeq = 0L
+    private var selectionsInFlight = 0
+    // True until audio is submitted after the last flush/discard, i.e. no utterance is half-fed.
+    private var atBoundary = true
+    private val loaderExecutor = Executors.newSingleThreadExecutor { runnable ->
+        Thread(runnable, LOADER_THREAD_NAME).apply {
+            isDaemon = true
+        }
+    }
 
     fun selectEngine(config: SpeechRecognizerConfig) {
-        val nextEngine = engineFactory.create(config)
-        lock.withLock {
-            replaceEngineLocked(nextEngine, config.engineType)
+        try {
+            selectEngineAsync(config).get()
+        } catch (e: InterruptedException) {
+            Thread.currentThread().interrupt()
+            throw IllegalStateException("Speech recognizer selection interrupted.", e)
+        } catch (e: ExecutionException) {
+            val cause = e.cause
+            when (cause) {
+                is RuntimeException -> throw cause
+                is Error -> throw cause
+                else -> throw IllegalStateException("Speech recognizer selection failed.", cause ?: e)
+            }
+        }
+    }
+
+    // Builds the engine off the caller's thread; the current engine keeps recognizing until the
+    // replacement is ready. A Whisper model change on the same settings reuses the running engine
+    // and swaps only the native model.
+    fun selectEngineAsync(config: SpeechRecognizerConfig): CompletableFuture<Void?> {
+        val selection = lock.withLock {
+            selectionsInFlight++
+            try {
+                startSelectionLocked(config)
+            } catch (e: RuntimeException) {
+                selectionsInFlight--
+                throw e
+            }
+        }
+        return selection.whenComplete { _, _ ->
+            lock.withLock { selectionsInFlight-- }
         }
     }
 
+    // True while a selected engine or model is still being built.
+    fun isEngineLoading(): Boolean = lock.withLock { selectionsInFlight > 0 || pendingEngine != null }
+
+    private fun startSelectionLocked(config: SpeechRecognizerConfig): CompletableFuture<Void?> {
+        val seq = ++selectionSeq
+        val engine = currentEngine
+        if (engine is WhisperEngine && currentConfig?.copy(modelPath = config.modelPath) == config) {
+            discardPendingEngineLocked()
+            return engine.loadModelAsync(config.modelPath).thenRun {
+                lock.withLock {
+                    if (seq == selectionSeq) {
+                        currentConfig = config
+                    }
+                }
+            }
+        }
+        return CompletableFuture.supplyAsync({ engineFactory.create(config) }, loaderExecutor)
+            .thenAccept { nextEngine ->
+                lock.withLock {
+                    if (seq != selectionSeq) {
+                        nextEngine.release()
+                        return@thenAccept
+                    }
+                    discardPendingEngineLocked()
+                    pendingEngine = nextEngine
+                    pendingConfig = config
+                    swapAtBoundaryLocked()
+                }
+            }
+    }
+
     fun setFallbackToNoOp() {
         lock.withLock {
-            replaceEngineLocked(NoOpSpeechRecognizerEngine(), null)
+            selectionSeq++
+            discardPendingEngineLocked()
+            replaceEngineLocked(NoOpSpeechRecognizerEngine(), null, null)
         }
     }
 
@@ -29,12 +107,18 @@ class SpeechRecognizerFacade @JvmOverloads constructor(
 
     fun currentEngineType(): EngineType? = lock.withLock { currentEngineType }
 
+    fun currentConfig(): SpeechRecognizerConfig? = lock.withLock { currentConfig }
+
+    // Read outside the facade lock; engines guard their own counters.
+    fun loadSnapshot(): RecognizerLoad? = lock.withLock { currentEngine }.loadSnapshot()
+
     override fun toString(): String = lock.withLock {
         "SpeechRecognizerFacade(engineType=$currentEngineType, started=$started)"
     }
 
     fun start() {
         lock.withLock {
+            swapAtBoundaryLocked()
             started = true
             currentEngine.start()
         }
@@ -44,51 +128,103 @@ class SpeechRecognizerFacade @JvmOverloads constructor(
         lock.withLock {
             started = false
             currentEngine.stop()
+            atBoundary = true
+            swapAtBoundaryLocked()
         }
     }
 
-    fun transcribe(buffer: ShortArray): String {
+    fun transcribe(buffer: ShortArray): String = awaitResult(submit(buffer))
+
+    fun flush(): String = awaitResult(submitFlush())
+
+    fun submit(buffer: ShortArray): CompletableFuture<String> = submitResult(buffer).thenApply { it.text }
+
+    fun submitFlush(): CompletableFuture<String> = submitFlushResult().thenApply { it.text }
+
+    // Only the hand-off to the engine happens under the lock; completion is reported on the
+    // engine's own thread, so stop()/selectEngine() never wait for a decode to finish.
+    fun submitResult(buffer: ShortArray): CompletableFuture<RecognitionResult> =
+        submitSamples(buffer.size) { it.submitResult(buffer) }
+
+    // Samples [0, length) only; a pooled segment array goes to the engine without being trimmed.
+    fun submitResult(buffer: ShortArray, length: Int): CompletableFuture<RecognitionResult> {
+        require(length in 0..buffer.size) { "Sample count exceeds buffer: $length" }
+        return submitSamples(length) { it.submitResult(buffer, length) }
+    }
+
+    // Direct capture frames go to the engine as they are; see SpeechRecognizerEngine.submitResult.
+    fun submitResult(pcm: ByteBuffer, sampleCount: Int): CompletableFuture<RecognitionResult> =
+        submitSamples(sampleCount) { it.submitResult(pcm, sampleCount) }
+
+    private fun submitSamples(
+        sampleCount: Int,
+        submit: (SpeechRecognizerEngine) -> CompletableFuture<RecognitionResult>
+    ): CompletableFuture<RecognitionResult> {
         val enteredNs = System.nanoTime()
         return lock.withLock {
             val lockWaitMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - enteredNs)
             val engineType = currentEngineType
-            if (buffer.isEmpty()) {
+            if (sampleCount <= 0) {
                 if (engineType == EngineType.WHISPER) {
                     logWhisperPerf(
                         "facade.transcribe.skip",
                         "engineType=$engineType samples=0 lockWaitMs=$lockWaitMs started=$started"
                     )
                 }
-                return ""
+                return CompletableFuture.completedFuture(RecognitionResult.EMPTY)
             }
             val delegateStartedNs = System.nanoTime()
-            val result = currentEngine.transcribe(buffer)
+            swapAtBoundaryLocked()
+            atBoundary = false
+            val future = submit(currentEngine)
             if (engineType == EngineType.WHISPER) {
-                val delegateMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - delegateStartedNs)
-                logWhisperPerf(
-                    "facade.transcribe",
-                    "engineType=$engineType samples=${buffer.size} chars=${result.length} lockWaitMs=$lockWaitMs delegateMs=$delegateMs started=$started"
-                )
+                val traceId = RecognitionTraceContext.currentId()
+                val submitMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - delegateStartedNs)
+                val wasStarted = started
+                future.whenComplete { result, _ ->
+                    val delegateMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - delegateStartedNs)
+                    WhisperPerfLogger.logTrace(
+                        traceId,
+                        "facade.transcribe",
+                        "engineType=$engineType samples=$sampleCount chars=${result?.text?.length ?: 0} segments=${result?.segments?.size ?: 0} lockWaitMs=$lockWaitMs submitMs=$submitMs delegateMs=$delegateMs started=$wasStarted"
+                    )
+                }
             }
-            result
+            future
         }
     }
 
-    fun flush(): String {
+    fun submitFlushResult(): CompletableFuture<RecognitionResult> {
         val enteredNs = System.nanoTime()
         return lock.withLock {
             val lockWaitMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - enteredNs)
             val engineType = currentEngineType
             val delegateStartedNs = System.nanoTime()
-            val result = currentEngine.flush()
+            val future = currentEngine.submitFlushResult()
+            atBoundary = true
+            swapAtBoundaryLocked()
             if (engineType == EngineType.WHISPER) {
-                val delegateMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - delegateStartedNs)
-                logWhisperPerf(
-                    "facade.flush",
-                    "engineType=$engineType chars=${result.length} lockWaitMs=$lockWaitMs delegateMs=$delegateMs started=$started"
-                )
+                val traceId = RecognitionTraceContext.currentId()
+                val submitMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - delegateStartedNs)
+                val wasStarted = started
+                future.whenComplete { result, _ ->
+                    val delegateMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - delegateStartedNs)
+                    WhisperPerfLogger.logTrace(
+                        traceId,
+                        "facade.flush",
+                        "engineType=$engineType chars=${result?.text?.length ?: 0} segments=${result?.segments?.size ?: 0} lockWaitMs=$lockWaitMs submitMs=$submitMs delegateMs=$delegateMs started=$wasStarted"
+                    )
+                }
             }
-            result
+            future
+        }
+    }
+
+    fun discardPending() {
+        lock.withLock {
+            currentEngine.discardPending()
+            atBoundary = true
+            swapAtBoundaryLocked()
         }
     }
 
@@ -99,17 +235,60 @@ class SpeechRecognizerFacade @JvmOverloads constructor(
     fun release() {
         lock.withLock {
             started = false
+            selectionSeq++
+            discardPendingEngineLocked()
             currentEngine.stop()
             currentEngine.release()
             currentEngine = NoOpSpeechRecognizerEngine()
             currentEngineType = null
+            currentConfig = null
+            loaderExecutor.shutdown()
+        }
+    }
+
+    private fun awaitResult(future: Future<String>): String {
+        return try {
+            future.get()
+        } catch (e: InterruptedException) {
+            Thread.currentThread().interrupt()
+            throw IllegalStateException("Speech recognition interrupted.", e)
+        } catch (e: ExecutionException) {
+            val cause = e.cause
+            when (cause) {
+                is RuntimeException -> throw cause
+                is Error -> throw cause
+                else -> throw IllegalStateException("Speech recognition failed.", cause ?: e)
+            }
         }
     }
 
-    private fun replaceEngineLocked(nextEngine: SpeechRecognizerEngine, nextType: EngineType?) {
+    private fun swapAtBoundaryLocked() {
+        val nextEngine = pendingEngine ?: return
+        if (started && !atBoundary) {
+            return
+        }
+        val nextConfig = pendingConfig
+        pendingEngine = null
+        pendingConfig = null
+        replaceEngineLocked(nextEngine, nextConfig?.engineType, nextConfig)
+    }
+
+    private fun discardPendingEngineLocked() {
+        pendingEngine?.release()
+        pendingEngine = null
+        pendingConfig = null
+    }
+
+    private fun replaceEngineLocked(
+        nextEngine: SpeechRecognizerEngine,
+        nextType: EngineType?,
+        nextConfig: SpeechRecognizerConfig?
+    ) {
         val previousEngine = currentEngine
         currentEngine = nextEngine
         currentEngineType = nextType
+        currentConfig = nextConfig
+        atBoundary = true
         if (started) {
             currentEngine.start()
         } else {
@@ -124,5 +303,7 @@ class SpeechRecognizerFacade @JvmOverloads constructor(
     companion object {
         @JvmStatic
         fun createDefault(): SpeechRecognizerFacade = SpeechRecognizerFacade()
+
+        private const val LOADER_THREAD_NAME = "SpeechRecognizerLoader"
     }
 }
@@ -0,0 +1,343 @@
+package com.micklab.voicelistener;
+
+import android.util.Log;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+// Bounded single-producer/single-consumer ring between the capture thread and one long-lived
+// transcription worker. Work items are preallocated and reused; the hot path is two volatile
+// index updates and, only when the worker is parked, an unpark. The capture thread is the only
+// producer for its whole life, including the final flush it submits as it exits.
+public final class TranscriptionQueue {
+    private static final String TAG = "TranscriptionQueue";
+    // Slots held back from audio so flush/discard markers still fit when the ring is full of frames.
+    private static final int CONTROL_RESERVE = 4;
+    private static final int STATE_RUNNING = 0;
+    private static final int STATE_DRAINING = 1;
+    private static final int STATE_STOPPED = 2;
+
+    public enum Kind {
+        FRAME,
+        SEGMENT,
+        FLUSH,
+        DISCARD
+    }
+
+    public interface Processor {
+        void process(Work work);
+    }
+
+    // Overflow that lives outside the ring (e.g. on disk). The worker only asks for it once the ring is
+    // empty, so everything in the ring is older than anything in the backlog.
+    public interface Backlog {
+        boolean hasPending();
+
+        // Worker thread only; fills `work` with the oldest backlog item, or returns false if there is none.
+        boolean fillNext(Work work);
+    }
+
+    public static final class Work {
+        private Kind kind;
+        private AudioFramePool.Frame frame;
+        private PcmSegment segment;
+        private long traceId;
+        private String triggerReason;
+        private int relatedSamples;
+        private long queuedAtNs;
+        private long speechEndedAtNs;
+
+        public Kind kind() {
+            return kind;
+        }
+
+        public AudioFramePool.Frame frame() {
+            return frame;
+        }
+
+        public PcmSegment segment() {
+            return segment;
+        }
+
+        public long traceId() {
+            return traceId;
+        }
+
+        public String triggerReason() {
+            return triggerReason;
+        }
+
+        public int relatedSamples() {
+            return relatedSamples;
+        }
+
+        public long queuedAtNs() {
+            return queuedAtNs;
+        }
+
+        // 0 when the work was not triggered by the end of an utterance.
+        public long speechEndedAtNs() {
+            return speechEndedAtNs;
+        }
+
+        public int sampleCount() {
+            if (frame != null) {
+                return frame.length();
+            }
+            return segment == null ? 0 : segment.length();
+        }
+
+        private void fill(
+            Kind nextKind,
+            AudioFramePool.Frame nextFrame,
+            PcmSegment nextSegment,
+            long nextTraceId,
+            String nextTriggerReason,
+            int nextRelatedSamples,
+            long nextSpeechEndedAtNs
+        ) {
+            kind = nextKind;
+            frame = nextFrame;
+            segment = nextSegment;
+            traceId = nextTraceId;
+            triggerReason = nextTriggerReason;
+            relatedSamples = nextRelatedSamples;
+            speechEndedAtNs = nextSpeechEndedAtNs;
+            queuedAtNs = System.nanoTime();
+        }
+
+        void fillFromBacklog(Kind nextKind, PcmSegment nextSegment, long nextTraceId, String nextTriggerReason, int nextRelatedSamples) {
+            fill(nextKind, null, nextSegment, nextTraceId, nextTriggerReason, nextRelatedSamples, 0L);
+        }
+
+        private void releaseAudioAndClear() {
+            if (frame != null) {
+                frame.release();
+            }
+            if (segment != null) {
+                segment.recycle();
+            }
+            kind = null;
+            frame = null;
+            segment = null;
+            triggerReason = null;
+            speechEndedAtNs = 0L;
+        }
+    }
+
+    private final Work[] slots;
+    private final int mask;
+    private final Processor processor;
+    private final Backlog backlog;
+    private final Work backlogWork = new Work();
+    private final Thread worker;
+    private final AtomicLong head = new AtomicLong(0L);
+    private final AtomicLong tail = new AtomicLong(0L);
+    private volatile boolean workerParked = false;
+    private volatile int state = STATE_RUNNING;
+    private volatile int highWaterMark = 0;
+    private volatile long droppedCount = 0L;
+    private volatile long completedCount = 0L;
+    private volatile Processor spillProcessor;
+
+    public TranscriptionQueue(int capacity, String threadName, Processor processor) {
+        this(capacity, threadName, processor, null);
+    }
+
+    public TranscriptionQueue(int capacity, String threadName, Processor processor, Backlog backlog) {
+        if (capacity <= CONTROL_RESERVE || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Queue capacity must be a power of two above " + CONTROL_RESERVE + ": " + capacity);
+        }
+        if (processor == null) {
+            throw new IllegalArgumentException("Queue processor must not be null.");
+        }
+        this.slots = new Work[capacity];
+        for (int index = 0; index < capacity; index++) {
+            slots[index] = new Work();
+        }
+        this.mask = capacity - 1;
+        this.processor = processor;
+        this.backlog = backlog;
+        this.worker = new Thread(this::runWorker, threadName);
+        this.worker.setDaemon(false);
+    }
+
+    public void start() {
+        worker.start();
+    }
+
+    public boolean isAccepting() {
+        return state == STATE_RUNNING;
+    }
+
+    // The queue takes its own reference to the frame; the caller keeps (and releases) its own.
+    public boolean offerFrame(AudioFramePool.Frame frame, long traceId, String triggerReason) {
+        Work work = claim(false);
+        if (work == null) {
+            return false;
+        }
+        work.fill(Kind.FRAME, frame.retain(), null, traceId, triggerReason, 0, 0L);
+        publish();
+        return true;
+    }
+
+    // Ownership of the segment moves to the queue only when this returns true.
+    public boolean offerSegment(PcmSegment segment, long traceId, String triggerReason) {
+        return offerSegment(segment, traceId, triggerReason, 0L);
+    }
+
+    public boolean offerSegment(PcmSegment segment, long traceId, String triggerReason, long speechEndedAtNs) {
+        Work work = claim(false);
+        if (work == null) {
+            return false;
+        }
+        work.fill(Kind.SEGMENT, null, segment, traceId, triggerReason, 0, speechEndedAtNs);
+        publish();
+        return true;
+    }
+
+    public boolean offerControl(Kind kind, long traceId, String triggerReason, int relatedSamples) {
+        return offerControl(kind, traceId, triggerReason, relatedSamples, 0L);
+    }
+
+    public boolean offerControl(Kind kind, long traceId, String triggerReason, int relatedSamples, long speechEndedAtNs) {
+        if (kind != Kind.FLUSH && kind != Kind.DISCARD) {
+            throw new IllegalArgumentException("Not a control work kind: " + kind);
+        }
+        Work work = claim(true);
+        if (work == null) {
+            return false;
+        }
+        work.fill(kind, null, null, traceId, triggerReason, relatedSamples, speechEndedAtNs);
+        publish();
+        return true;
+    }
+
+    public int capacity() {
+        return slots.length;
+    }
+
+    public int depth() {
+        return (int) (tail.get() - head.get());
+    }
+
+    public int highWaterMark() {
+        return highWaterMark;
+    }
+
+    public long droppedCount() {
+        return droppedCount;
+    }
+
+    public long completedCount() {
+        return completedCount;
+    }
+
+    // Stops accepting work and lets the worker finish everything already queued.
+    public boolean drainAndStop(long timeout, TimeUnit unit) throws InterruptedException {
+        if (state == STATE_RUNNING) {
+            state = STATE_DRAINING;
+        }
+        LockSupport.unpark(worker);
+        if (worker.isAlive()) {
+            worker.join(Math.max(1L, unit.toMillis(timeout)));
+        }
+        return !worker.isAlive();
+    }
+
+    // Wakes the worker after the producer has added to the backlog instead of the ring.
+    public void signalBacklog() {
+        if (workerParked) {
+            LockSupport.unpark(worker);
+        }
+    }
+
+    // Drops queued work (releasing its audio) and interrupts an in-flight item.
+    public void stopNow() {
+        stopNow(null);
+    }
+
+    // Like stopNow(), but queued work is handed to `spill` on the worker thread instead of being dropped.
+    public void stopNow(Processor spill) {
+        spillProcessor = spill;
+        state = STATE_STOPPED;
+        LockSupport.unpark(worker);
+        worker.interrupt();
+    }
+
+    private Work claim(boolean control) {
+        if (state != STATE_RUNNING) {
+            return null;
+        }
+        long currentTail = tail.get();
+        int limit = control ? slots.length : slots.length - CONTROL_RESERVE;
+        if (currentTail - head.get() >= limit) {
+            droppedCount++;
+            return null;
+        }
+        return slots[(int) (currentTail & mask)];
+    }
+
+    private void publish() {
+        long nextTail = tail.get() + 1L;
+        tail.set(nextTail);
+        int depth = (int) (nextTail - head.get());
+        if (depth > highWaterMark) {
+            highWaterMark = depth;
+        }
+        if (workerParked) {
+            LockSupport.unpark(worker);
+        }
+    }
+
+    private void runWorker() {
+        while (true) {
+            long currentHead = head.get();
+            if (currentHead == tail.get()) {
+                if (state != STATE_STOPPED && backlog != null && runBacklogItem()) {
+                    continue;
+                }
+                if (state != STATE_RUNNING) {
+                    break;
+                }
+                workerParked = true;
+                if (currentHead == tail.get() && state == STATE_RUNNING && (backlog == null || !backlog.hasPending())) {
+                    LockSupport.park(this);
+                }
+                workerParked = false;
+                continue;
+            }
+            Work work = slots[(int) (currentHead & mask)];
+            try {
+                if (state != STATE_STOPPED) {
+                    processor.process(work);
+                } else if (spillProcessor != null) {
+                    spillProcessor.process(work);
+                }
+            } catch (RuntimeException e) {
+                Log.e(TAG, "Transcription work failed", e);
+            } finally {
+                work.releaseAudioAndClear();
+                head.set(currentHead + 1L);
+                completedCount++;
+            }
+        }
+    }
+
+    private boolean runBacklogItem() {
+        Work work = backlogWork;
+        try {
+            if (!backlog.fillNext(work)) {
+                return false;
+            }
+            processor.process(work);
+        } catch (RuntimeException e) {
+            Log.e(TAG, "Backlog work failed", e);
+        } finally {
+            work.releaseAudioAndClear();
+        }
+        completedCount++;
+        return true;
+    }
+}
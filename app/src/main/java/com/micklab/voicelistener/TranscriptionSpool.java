@@ -0,0 +1,495 @@
+package com.micklab.voicelistener;
+
+import android.util.Log;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.ShortBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.CRC32;
+
+// Disk overflow for the transcription queue. Work that would exceed the in-memory backlog is appended
+// as compact PCM16 records to rolling files and handed back to the worker, oldest first, once the ring
+// is empty. Files survive restarts and crashes: a torn record at the tail is cut off when the spool is
+// reopened, and a cursor file remembers how far the worker got. All methods lock the spool; it is only
+// used once the recognizer has already fallen behind.
+public final class TranscriptionSpool implements TranscriptionQueue.Backlog {
+    private static final String TAG = "TranscriptionSpool";
+    private static final String FILE_PREFIX = "spool-";
+    private static final String FILE_SUFFIX = ".pcm";
+    private static final String CURSOR_FILE = "spool.cursor";
+    private static final int RECORD_MAGIC = 0x564C5350;
+    // magic, kind, traceId, capturedAtMs, relatedSamples, triggerLength (trigger bytes follow)
+    private static final int HEADER_BYTES = 4 + 1 + 8 + 8 + 4 + 2;
+    private static final int CRC_BYTES = 4;
+    private static final long DEFAULT_MAX_FILE_BYTES = 1L << 20;
+    private static final int MAX_RECORD_SAMPLES = 16_000 * 120;
+
+    public static final class Record {
+        private final TranscriptionQueue.Kind kind;
+        private final long traceId;
+        private final long capturedAtMs;
+        private final int relatedSamples;
+        private final String triggerReason;
+        private final short[] samples;
+
+        Record(TranscriptionQueue.Kind kind, long traceId, long capturedAtMs, int relatedSamples, String triggerReason, short[] samples) {
+            this.kind = kind;
+            this.traceId = traceId;
+            this.capturedAtMs = capturedAtMs;
+            this.relatedSamples = relatedSamples;
+            this.triggerReason = triggerReason;
+            this.samples = samples;
+        }
+
+        public TranscriptionQueue.Kind kind() {
+            return kind;
+        }
+
+        public long traceId() {
+            return traceId;
+        }
+
+        public long capturedAtMs() {
+            return capturedAtMs;
+        }
+
+        public int relatedSamples() {
+            return relatedSamples;
+        }
+
+        public String triggerReason() {
+            return triggerReason;
+        }
+
+        public short[] samples() {
+            return samples;
+        }
+    }
+
+    private final File directory;
+    private final long maxFileBytes;
+    private final CRC32 crc = new CRC32();
+    private byte[] scratch = new byte[4096];
+
+    private FileOutputStream writer;
+    private long writeSeq;
+    private long writeFileBytes;
+    private RandomAccessFile reader;
+    private long readSeq;
+    private long readOffset;
+    private int pendingRecords;
+    private volatile boolean hasPending;
+    private volatile boolean enabled = true;
+    private long spooledRecords = 0L;
+    private long spooledBytes = 0L;
+    private int recoveredRecords = 0;
+
+    public TranscriptionSpool(File directory) throws IOException {
+        this(directory, DEFAULT_MAX_FILE_BYTES);
+    }
+
+    TranscriptionSpool(File directory, long maxFileBytes) throws IOException {
+        if (directory == null) {
+            throw new IllegalArgumentException("Spool directory must not be null.");
+        }
+        if (maxFileBytes <= 0L) {
+            throw new IllegalArgumentException("Spool file size must be positive.");
+        }
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Failed to create spool directory: " + directory);
+        }
+        this.directory = directory;
+        this.maxFileBytes = maxFileBytes;
+        recover();
+    }
+
+    // Lets the owner hold the backlog back (e.g. while no engine is running) without losing it.
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public synchronized void append(
+        TranscriptionQueue.Kind kind,
+        long traceId,
+        long capturedAtMs,
+        int relatedSamples,
+        String triggerReason,
+        short[] samples,
+        int offset,
+        int length
+    ) throws IOException {
+        if (length > 0 && (samples == null || offset < 0 || offset + length > samples.length)) {
+            throw new IllegalArgumentException("Invalid spool record.");
+        }
+        append(kind, traceId, capturedAtMs, relatedSamples, triggerReason, length > 0 ? ShortBuffer.wrap(samples, offset, length) : null, length);
+    }
+
+    // Writes `length` samples from the buffer's position; the buffer itself is not moved.
+    public synchronized void append(
+        TranscriptionQueue.Kind kind,
+        long traceId,
+        long capturedAtMs,
+        int relatedSamples,
+        String triggerReason,
+        ShortBuffer samples,
+        int length
+    ) throws IOException {
+        if (kind == null || length < 0 || (length > 0 && (samples == null || samples.remaining() < length))) {
+            throw new IllegalArgumentException("Invalid spool record.");
+        }
+        byte[] trigger = (triggerReason == null ? "" : triggerReason).getBytes(StandardCharsets.UTF_8);
+        int triggerLength = Math.min(trigger.length, Short.MAX_VALUE);
+        int recordBytes = HEADER_BYTES + triggerLength + 4 + (length * 2) + CRC_BYTES;
+        ByteBuffer record = ByteBuffer.wrap(scratchFor(recordBytes), 0, recordBytes).order(ByteOrder.LITTLE_ENDIAN);
+        record.putInt(RECORD_MAGIC);
+        record.put((byte) kind.ordinal());
+        record.putLong(traceId);
+        record.putLong(capturedAtMs);
+        record.putInt(relatedSamples);
+        record.putShort((short) triggerLength);
+        record.put(trigger, 0, triggerLength);
+        record.putInt(length);
+        if (length > 0) {
+            ShortBuffer source = samples.duplicate();
+            source.limit(source.position() + length);
+            record.asShortBuffer().put(source);
+        }
+        record.position(record.position() + (length * 2));
+        crc.reset();
+        crc.update(scratch, 0, recordBytes - CRC_BYTES);
+        record.putInt((int) crc.getValue());
+
+        if (writer == null) {
+            openWriter(writeSeq + 1L);
+        }
+        // 1レコードを1回のwriteで書き、途中で落ちても末尾の欠けたレコードだけで済むようにする
+        writer.write(scratch, 0, recordBytes);
+        writeFileBytes += recordBytes;
+        pendingRecords++;
+        hasPending = true;
+        spooledRecords++;
+        spooledBytes += recordBytes;
+        if (writeFileBytes >= maxFileBytes) {
+            closeWriter();
+        }
+    }
+
+    // Unlike hasPending(), ignores setEnabled(); producers use it to keep new work behind the backlog.
+    public boolean hasPendingRecords() {
+        return hasPending;
+    }
+
+    @Override
+    public boolean hasPending() {
+        return enabled && hasPending;
+    }
+
+    @Override
+    public boolean fillNext(TranscriptionQueue.Work work) {
+        if (!enabled) {
+            return false;
+        }
+        Record record;
+        try {
+            record = take();
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to read spooled transcription work", e);
+            return false;
+        }
+        if (record == null) {
+            return false;
+        }
+        PcmSegment segment = record.samples().length == 0 ? null : new PcmSegment(null, record.samples(), record.samples().length);
+        TranscriptionQueue.Kind kind = record.kind() == TranscriptionQueue.Kind.FRAME ? TranscriptionQueue.Kind.SEGMENT : record.kind();
+        work.fillFromBacklog(kind, segment, record.traceId(), record.triggerReason(), record.relatedSamples());
+        return true;
+    }
+
+    public synchronized Record take() throws IOException {
+        while (pendingRecords > 0) {
+            if (reader == null && !openReader()) {
+                // 件数と実ファイルが食い違った場合は残りを諦めて作り直す
+                Log.w(TAG, "Spool files missing for " + pendingRecords + " pending records.");
+                deleteAll();
+                return null;
+            }
+            Record record = readRecord(reader, readOffset);
+            if (record == null) {
+                // このファイルは読み切った。書き込み中のファイルでなければ削除して次へ進む
+                closeReader();
+                if (readSeq != writeSeq || writer == null) {
+                    deleteQuietly(spoolFile(readSeq));
+                }
+                readSeq++;
+                readOffset = 0L;
+                continue;
+            }
+            readOffset = reader.getFilePointer();
+            pendingRecords--;
+            if (pendingRecords == 0) {
+                deleteAll();
+            } else {
+                writeCursor();
+            }
+            return record;
+        }
+        hasPending = false;
+        return null;
+    }
+
+    public synchronized int pendingRecordCount() {
+        return pendingRecords;
+    }
+
+    public synchronized int getRecoveredRecordCount() {
+        return recoveredRecords;
+    }
+
+    public synchronized long getSpooledRecordCount() {
+        return spooledRecords;
+    }
+
+    public synchronized long getSpooledBytes() {
+        return spooledBytes;
+    }
+
+    public synchronized void close() {
+        closeReader();
+        closeWriter();
+    }
+
+    public synchronized String describe() {
+        return String.format(
+            Locale.US,
+            "spoolPending=%d spooled=%d spooledBytes=%d recovered=%d",
+            pendingRecords,
+            spooledRecords,
+            spooledBytes,
+            recoveredRecords
+        );
+    }
+
+    private void recover() throws IOException {
+        List<Long> sequences = listSequences();
+        long[] cursor = readCursor();
+        int recovered = 0;
+        for (long seq : sequences) {
+            File file = spoolFile(seq);
+            if (seq < cursor[0]) {
+                deleteQuietly(file);
+                continue;
+            }
+            long startOffset = seq == cursor[0] ? cursor[1] : 0L;
+            try (RandomAccessFile scan = new RandomAccessFile(file, "rw")) {
+                long offset = 0L;
+                int records = 0;
+                while (true) {
+                    Record record = readRecord(scan, offset);
+                    if (record == null) {
+                        break;
+                    }
+                    offset = scan.getFilePointer();
+                    if (offset > startOffset) {
+                        records++;
+                    }
+                }
+                if (offset < scan.length()) {
+                    // クラッシュで途中まで書かれたレコードを切り捨てる
+                    scan.setLength(offset);
+                }
+                recovered += records;
+            }
+        }
+        pendingRecords = recovered;
+        recoveredRecords = recovered;
+        hasPending = recovered > 0;
+        if (recovered == 0) {
+            deleteAll();
+            return;
+        }
+        readSeq = Math.max(cursor[0], sequences.get(0));
+        readOffset = readSeq == cursor[0] ? cursor[1] : 0L;
+        writeSeq = sequences.get(sequences.size() - 1);
+    }
+
+    private Record readRecord(RandomAccessFile file, long offset) throws IOException {
+        long length = file.length();
+        if (offset + HEADER_BYTES > length) {
+            return null;
+        }
+        file.seek(offset);
+        byte[] header = scratchFor(HEADER_BYTES);
+        file.readFully(header, 0, HEADER_BYTES);
+        ByteBuffer view = ByteBuffer.wrap(header, 0, HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        if (view.getInt() != RECORD_MAGIC) {
+            return null;
+        }
+        int kindIndex = view.get();
+        long traceId = view.getLong();
+        long capturedAtMs = view.getLong();
+        int relatedSamples = view.getInt();
+        int triggerLength = view.getShort();
+        TranscriptionQueue.Kind[] kinds = TranscriptionQueue.Kind.values();
+        if (kindIndex < 0 || kindIndex >= kinds.length || triggerLength < 0) {
+            return null;
+        }
+        if (offset + HEADER_BYTES + triggerLength + 4 > length) {
+            return null;
+        }
+        file.seek(offset + HEADER_BYTES + triggerLength);
+        int sampleCount;
+        try {
+            sampleCount = Integer.reverseBytes(file.readInt());
+        } catch (EOFException e) {
+            return null;
+        }
+        if (sampleCount < 0 || sampleCount > MAX_RECORD_SAMPLES) {
+            return null;
+        }
+        int recordBytes = HEADER_BYTES + triggerLength + 4 + (sampleCount * 2) + CRC_BYTES;
+        if (offset + recordBytes > length) {
+            return null;
+        }
+        byte[] body = scratchFor(recordBytes);
+        file.seek(offset);
+        file.readFully(body, 0, recordBytes);
+        crc.reset();
+        crc.update(body, 0, recordBytes - CRC_BYTES);
+        ByteBuffer full = ByteBuffer.wrap(body, 0, recordBytes).order(ByteOrder.LITTLE_ENDIAN);
+        if ((int) crc.getValue() != full.getInt(recordBytes - CRC_BYTES)) {
+            return null;
+        }
+        String trigger = new String(body, HEADER_BYTES, triggerLength, StandardCharsets.UTF_8);
+        short[] samples = new short[sampleCount];
+        full.position(HEADER_BYTES + triggerLength + 4);
+        full.asShortBuffer().get(samples);
+        return new Record(kinds[kindIndex], traceId, capturedAtMs, relatedSamples, trigger, samples);
+    }
+
+    private byte[] scratchFor(int bytes) {
+        if (scratch.length < bytes) {
+            scratch = new byte[Integer.highestOneBit(bytes - 1) << 1];
+        }
+        return scratch;
+    }
+
+    private void openWriter(long seq) throws IOException {
+        writeSeq = seq;
+        writer = new FileOutputStream(spoolFile(seq), true);
+        writeFileBytes = spoolFile(seq).length();
+    }
+
+    private void closeWriter() {
+        if (writer == null) {
+            return;
+        }
+        try {
+            writer.getFD().sync();
+            writer.close();
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to close spool file", e);
+        }
+        writer = null;
+    }
+
+    private boolean openReader() throws IOException {
+        List<Long> sequences = listSequences();
+        for (long seq : sequences) {
+            if (seq >= readSeq) {
+                if (seq != readSeq) {
+                    readSeq = seq;
+                    readOffset = 0L;
+                }
+                reader = new RandomAccessFile(spoolFile(seq), "r");
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void closeReader() {
+        if (reader == null) {
+            return;
+        }
+        try {
+            reader.close();
+        } catch (IOException ignored) {
+        }
+        reader = null;
+    }
+
+    private void writeCursor() {
+        try (RandomAccessFile cursor = new RandomAccessFile(new File(directory, CURSOR_FILE), "rw")) {
+            cursor.writeLong(readSeq);
+            cursor.writeLong(readOffset);
+        } catch (IOException e) {
+            // 失敗しても再起動時に同じ音声を二重に認識するだけなので続行する
+            Log.w(TAG, "Failed to persist spool cursor", e);
+        }
+    }
+
+    private long[] readCursor() {
+        File file = new File(directory, CURSOR_FILE);
+        if (!file.isFile()) {
+            return new long[] {0L, 0L};
+        }
+        try (RandomAccessFile cursor = new RandomAccessFile(file, "r")) {
+            return new long[] {cursor.readLong(), cursor.readLong()};
+        } catch (IOException e) {
+            return new long[] {0L, 0L};
+        }
+    }
+
+    private void deleteAll() {
+        closeReader();
+        closeWriter();
+        for (long seq : listSequences()) {
+            deleteQuietly(spoolFile(seq));
+        }
+        deleteQuietly(new File(directory, CURSOR_FILE));
+        pendingRecords = 0;
+        hasPending = false;
+        readSeq = writeSeq + 1L;
+        readOffset = 0L;
+    }
+
+    private List<Long> listSequences() {
+        String[] names = directory.list();
+        List<Long> sequences = new ArrayList<>();
+        if (names == null) {
+            return sequences;
+        }
+        for (String name : names) {
+            if (!name.startsWith(FILE_PREFIX) || !name.endsWith(FILE_SUFFIX)) {
+                continue;
+            }
+            try {
+                sequences.add(Long.parseLong(name.substring(FILE_PREFIX.length(), name.length() - FILE_SUFFIX.length())));
+            } catch (NumberFormatException ignored) {
+            }
+        }
+        Long[] sorted = sequences.toArray(new Long[0]);
+        Arrays.sort(sorted);
+        return Arrays.asList(sorted);
+    }
+
+    private File spoolFile(long seq) {
+        return new File(directory, String.format(Locale.US, "%s%012d%s", FILE_PREFIX, seq, FILE_SUFFIX));
+    }
+
+    private static void deleteQuietly(File file) {
+        if (file.exists() && !file.delete()) {
+            Log.w(TAG, "Failed to delete spool file: " + file);
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.micklab.voicelistener
+
+enum class VadMode {
+    RMS,
+    SPECTRAL;
+
+    companion object {
+        @JvmStatic
+        fun fromPreference(rawValue: String?, defaultMode: VadMode): VadMode {
+            val normalized = rawValue?.trim()
+            return entries.firstOrNull { it.name.equals(normalized, ignoreCase = true) } ?: defaultMode
+        }
+    }
+}
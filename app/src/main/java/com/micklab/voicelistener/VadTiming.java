@@ -0,0 +1,111 @@
+package com.micklab.voicelistener;
+
+import java.util.Locale;
+
+// Capture frame size and VAD endpointing expressed in milliseconds. Frame counts for the detector
+// are derived from these, rounding up so a setting is never shorter than requested.
+public final class VadTiming {
+    public static final int[] SUPPORTED_FRAME_MS = {10, 20, 32, 64};
+    public static final int DEFAULT_FRAME_MS = 64;
+    public static final int DEFAULT_PRE_ROLL_MS = 384;
+
+    private final int frameMs;
+    private final int hangoverMs;
+    private final int minSpeechMs;
+    private final int maxSegmentMs;
+    private final int preRollMs;
+
+    public VadTiming(int frameMs, int hangoverMs, int minSpeechMs, int maxSegmentMs, int preRollMs) {
+        if (!isSupportedFrameMs(frameMs)) {
+            throw new IllegalArgumentException("Unsupported frame size: " + frameMs + "ms");
+        }
+        if (hangoverMs <= 0 || minSpeechMs <= 0 || maxSegmentMs <= 0 || preRollMs < 0) {
+            throw new IllegalArgumentException("VAD timings must be positive.");
+        }
+        this.frameMs = frameMs;
+        this.hangoverMs = hangoverMs;
+        this.minSpeechMs = minSpeechMs;
+        this.maxSegmentMs = Math.max(minSpeechMs, maxSegmentMs);
+        this.preRollMs = preRollMs;
+    }
+
+    public static VadTiming defaultsFor(EngineType engineType) {
+        if (engineType == EngineType.WHISPER) {
+            return new VadTiming(DEFAULT_FRAME_MS, 384, 256, 1280, DEFAULT_PRE_ROLL_MS);
+        }
+        return new VadTiming(DEFAULT_FRAME_MS, 960, 512, 4096, DEFAULT_PRE_ROLL_MS);
+    }
+
+    public static boolean isSupportedFrameMs(int frameMs) {
+        for (int supported : SUPPORTED_FRAME_MS) {
+            if (supported == frameMs) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public VadTiming withFrameMs(int nextFrameMs) {
+        return nextFrameMs == frameMs ? this : new VadTiming(nextFrameMs, hangoverMs, minSpeechMs, maxSegmentMs, preRollMs);
+    }
+
+    public int frameMs() {
+        return frameMs;
+    }
+
+    public int hangoverMs() {
+        return hangoverMs;
+    }
+
+    public int minSpeechMs() {
+        return minSpeechMs;
+    }
+
+    public int maxSegmentMs() {
+        return maxSegmentMs;
+    }
+
+    public int preRollMs() {
+        return preRollMs;
+    }
+
+    public int frameSamples(int sampleRateHz) {
+        return sampleRateHz * frameMs / 1000;
+    }
+
+    public int maxSilenceFrames() {
+        return framesFor(hangoverMs);
+    }
+
+    public int minSpeechFrames() {
+        return framesFor(minSpeechMs);
+    }
+
+    public int maxContinuousSpeechFrames() {
+        return framesFor(maxSegmentMs);
+    }
+
+    public int preRollFrames() {
+        return preRollMs == 0 ? 0 : framesFor(preRollMs);
+    }
+
+    public String describe() {
+        return String.format(
+            Locale.US,
+            "frameMs=%d hangoverMs=%d minSpeechMs=%d maxSegmentMs=%d preRollMs=%d maxSilenceFrames=%d minSpeechFrames=%d maxContinuousSpeechFrames=%d preRollFrames=%d",
+            frameMs,
+            hangoverMs,
+            minSpeechMs,
+            maxSegmentMs,
+            preRollMs,
+            maxSilenceFrames(),
+            minSpeechFrames(),
+            maxContinuousSpeechFrames(),
+            preRollFrames()
+        );
+    }
+
+    private int framesFor(int millis) {
+        return Math.max(1, (millis + frameMs - 1) / frameMs);
+    }
+}
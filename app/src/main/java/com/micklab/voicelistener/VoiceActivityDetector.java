@@ -1,13 +1,9 @@
 package com.micklab.voicelistener;
 
-import java.util.ArrayDeque;
-import java.util.ArrayList;
-import java.util.Deque;
-
 public class VoiceActivityDetector {
-    private static final int PRE_SPEECH_FRAMES = 6;
+    static final int PRE_SPEECH_FRAMES = 6;
     private static final int DEFAULT_MAX_CONTINUOUS_SPEECH_FRAMES = 64;
-    private static final double NOISE_FLOOR_ALPHA = 0.08;
+    private static final int INITIAL_SEGMENT_CAPACITY = 16 * 1024;
     private static final double DYNAMIC_THRESHOLD_MULTIPLIER = 1.8;
 
     private double rmsThreshold;
@@ -15,32 +11,97 @@ public class VoiceActivityDetector {
     private final int minSpeechFrames;
     private final int maxContinuousSpeechFrames;
 
-    private final ArrayList<short[]> bufferedFrames = new ArrayList<>();
-    private final Deque<short[]> preSpeechFrames = new ArrayDeque<>();
+    private final SegmentAccumulator accumulator;
     private int speechFrames = 0;
     private int silenceFrames = 0;
     private boolean inSpeech = false;
-    private double noiseFloorRms;
+    private boolean lastFrameSpeech = false;
+    private final NoiseFloorTracker noiseFloor;
+    private final SpeechFrameClassifier classifier;
+    private long classifiedFrames = 0L;
+    private long classifierNanos = 0L;
 
     public VoiceActivityDetector(double rmsThreshold, int maxSilenceFrames, int minSpeechFrames) {
         this(rmsThreshold, maxSilenceFrames, minSpeechFrames, DEFAULT_MAX_CONTINUOUS_SPEECH_FRAMES);
     }
 
     public VoiceActivityDetector(double rmsThreshold, int maxSilenceFrames, int minSpeechFrames, int maxContinuousSpeechFrames) {
+        this(rmsThreshold, maxSilenceFrames, minSpeechFrames, maxContinuousSpeechFrames, new RmsFrameClassifier());
+    }
+
+    public VoiceActivityDetector(
+        double rmsThreshold,
+        int maxSilenceFrames,
+        int minSpeechFrames,
+        int maxContinuousSpeechFrames,
+        SpeechFrameClassifier classifier
+    ) {
+        this(rmsThreshold, maxSilenceFrames, minSpeechFrames, maxContinuousSpeechFrames, PRE_SPEECH_FRAMES, classifier);
+    }
+
+    public VoiceActivityDetector(
+        double rmsThreshold,
+        int maxSilenceFrames,
+        int minSpeechFrames,
+        int maxContinuousSpeechFrames,
+        int preSpeechFrames,
+        SpeechFrameClassifier classifier
+    ) {
+        this(
+            rmsThreshold,
+            maxSilenceFrames,
+            minSpeechFrames,
+            maxContinuousSpeechFrames,
+            preSpeechFrames,
+            classifier,
+            new NoiseFloorTracker(VadTiming.DEFAULT_FRAME_MS)
+        );
+    }
+
+    public VoiceActivityDetector(
+        double rmsThreshold,
+        int maxSilenceFrames,
+        int minSpeechFrames,
+        int maxContinuousSpeechFrames,
+        int preSpeechFrames,
+        SpeechFrameClassifier classifier,
+        NoiseFloorTracker noiseFloor
+    ) {
+        if (classifier == null) {
+            throw new IllegalArgumentException("Frame classifier must not be null.");
+        }
+        if (noiseFloor == null) {
+            throw new IllegalArgumentException("Noise floor tracker must not be null.");
+        }
+        this.classifier = classifier;
+        this.noiseFloor = noiseFloor;
+        this.accumulator = new SegmentAccumulator(preSpeechFrames, INITIAL_SEGMENT_CAPACITY);
         this.rmsThreshold = rmsThreshold;
         this.maxSilenceFrames = maxSilenceFrames;
         this.minSpeechFrames = minSpeechFrames;
         this.maxContinuousSpeechFrames = Math.max(minSpeechFrames, maxContinuousSpeechFrames);
-        this.noiseFloorRms = Math.max(1.0, rmsThreshold * 0.25);
+        // 保存済みの推定値が無い場合の初期値。warmStartNoiseFloorで上書きされる
+        this.noiseFloor.seed(rmsThreshold * 0.25);
     }
 
     public synchronized void setRmsThreshold(double rmsThreshold) {
         this.rmsThreshold = rmsThreshold;
-        if (noiseFloorRms <= 0.0) {
-            noiseFloorRms = Math.max(1.0, rmsThreshold * 0.25);
+    }
+
+    public synchronized void warmStartNoiseFloor(double trackedMinimumRms) {
+        if (trackedMinimumRms > 0.0) {
+            noiseFloor.seed(trackedMinimumRms);
         }
     }
 
+    public synchronized double getNoiseFloorMinimum() {
+        return noiseFloor.getTrackedMinimum();
+    }
+
+    public synchronized double getNoiseFloorRms() {
+        return noiseFloor.getNoiseFloorRms();
+    }
+
     public synchronized double getRmsThreshold() {
         return this.rmsThreshold;
     }
@@ -49,25 +110,45 @@ public class VoiceActivityDetector {
         if (frame == null || frame.length == 0) {
             return null;
         }
+        AudioFramePool.Frame wrapped = AudioFramePool.wrap(frame);
+        try {
+            return processFrame(wrapped);
+        } finally {
+            wrapped.release();
+        }
+    }
 
-        double frameRms = computeRms(frame);
+    public synchronized short[] processFrame(AudioFramePool.Frame frame) {
+        return toSampleArrayAndRecycle(processFrameSegment(frame));
+    }
+
+    // The returned segment borrows the detector's buffer; callers must recycle() it when done.
+    public synchronized PcmSegment processFrameSegment(AudioFramePool.Frame frame) {
+        if (frame == null || frame.length() == 0) {
+            return null;
+        }
+
+        double frameRms = frame.features().rms();
         double effectiveThreshold = getEffectiveThreshold();
-        boolean isSpeech = frameRms >= effectiveThreshold;
+        long classifyStartedNs = System.nanoTime();
+        boolean isSpeech = classifier.isSpeech(frame, effectiveThreshold);
+        classifierNanos += System.nanoTime() - classifyStartedNs;
+        classifiedFrames++;
+        lastFrameSpeech = isSpeech;
 
         if (!inSpeech) {
-            updateNoiseFloor(frameRms, effectiveThreshold);
-            rememberPreSpeechFrame(frame);
+            noiseFloor.update(frameRms);
+            accumulator.rememberPreRoll(frame.pcm(), frame.length());
             if (!isSpeech) {
                 return null;
             }
             inSpeech = true;
-            bufferedFrames.clear();
-            bufferedFrames.addAll(preSpeechFrames);
-            preSpeechFrames.clear();
+            accumulator.clearSegment();
+            accumulator.startSegmentFromPreRoll();
             speechFrames = 0;
             silenceFrames = 0;
         } else {
-            bufferedFrames.add(frame);
+            accumulator.append(frame.pcm(), frame.length());
         }
 
         if (isSpeech) {
@@ -81,7 +162,7 @@ public class VoiceActivityDetector {
             return emitBufferedSegmentAndContinue();
         }
         if (silenceFrames >= maxSilenceFrames) {
-            short[] segment = speechFrames >= minSpeechFrames ? concatFrames(bufferedFrames) : null;
+            PcmSegment segment = speechFrames >= minSpeechFrames ? accumulator.takeSegment() : null;
             reset();
             return segment;
         }
@@ -89,65 +170,75 @@ public class VoiceActivityDetector {
     }
 
     public synchronized short[] flush() {
-        short[] segment = speechFrames >= minSpeechFrames ? concatFrames(bufferedFrames) : null;
+        return toSampleArrayAndRecycle(flushSegment());
+    }
+
+    public synchronized PcmSegment flushSegment() {
+        PcmSegment segment = speechFrames >= minSpeechFrames ? accumulator.takeSegment() : null;
         reset();
         return segment;
     }
 
+    public VadMode getMode() {
+        return classifier.mode();
+    }
+
+    public synchronized long getClassifiedFrameCount() {
+        return classifiedFrames;
+    }
+
+    public synchronized long getClassifierNanos() {
+        return classifierNanos;
+    }
+
+    public synchronized long getSegmentArrayAllocationCount() {
+        return accumulator.getArrayAllocationCount();
+    }
+
+    public synchronized long getSegmentGrowCount() {
+        return accumulator.getGrowCount();
+    }
+
+    public synchronized boolean lastFrameWasSpeech() {
+        return lastFrameSpeech;
+    }
+
+    public synchronized boolean isInSpeech() {
+        return inSpeech;
+    }
+
+    public synchronized void clear() {
+        reset();
+    }
+
     private void reset() {
-        bufferedFrames.clear();
-        preSpeechFrames.clear();
+        accumulator.clearSegment();
+        accumulator.clearPreRoll();
         speechFrames = 0;
         silenceFrames = 0;
         inSpeech = false;
     }
 
-    private short[] emitBufferedSegmentAndContinue() {
-        short[] segment = speechFrames >= minSpeechFrames ? concatFrames(bufferedFrames) : null;
-        bufferedFrames.clear();
+    private PcmSegment emitBufferedSegmentAndContinue() {
+        PcmSegment segment = speechFrames >= minSpeechFrames ? accumulator.takeSegment() : null;
+        accumulator.clearSegment();
         speechFrames = 0;
         silenceFrames = 0;
         return segment;
     }
 
-    private void rememberPreSpeechFrame(short[] frame) {
-        if (preSpeechFrames.size() == PRE_SPEECH_FRAMES) {
-            preSpeechFrames.removeFirst();
+    private static short[] toSampleArrayAndRecycle(PcmSegment segment) {
+        if (segment == null) {
+            return null;
         }
-        preSpeechFrames.addLast(frame);
-    }
-
-    private void updateNoiseFloor(double frameRms, double effectiveThreshold) {
-        double sample = Math.min(frameRms, effectiveThreshold);
-        noiseFloorRms = (noiseFloorRms * (1.0 - NOISE_FLOOR_ALPHA)) + (sample * NOISE_FLOOR_ALPHA);
-        if (noiseFloorRms < 1.0) {
-            noiseFloorRms = 1.0;
+        try {
+            return segment.toSampleArray();
+        } finally {
+            segment.recycle();
         }
     }
 
     private double getEffectiveThreshold() {
-        return Math.max(rmsThreshold, noiseFloorRms * DYNAMIC_THRESHOLD_MULTIPLIER);
-    }
-
-    private double computeRms(short[] frame) {
-        double sum = 0.0;
-        for (short sample : frame) {
-            sum += sample * (double) sample;
-        }
-        return Math.sqrt(sum / frame.length);
-    }
-
-    private short[] concatFrames(ArrayList<short[]> frames) {
-        int totalSamples = 0;
-        for (short[] chunk : frames) {
-            totalSamples += chunk.length;
-        }
-        short[] merged = new short[totalSamples];
-        int offset = 0;
-        for (short[] chunk : frames) {
-            System.arraycopy(chunk, 0, merged, offset, chunk.length);
-            offset += chunk.length;
-        }
-        return merged;
+        return Math.max(rmsThreshold, noiseFloor.getNoiseFloorRms() * DYNAMIC_THRESHOLD_MULTIPLIER);
     }
 }
@@ -17,6 +17,7 @@ import android.media.audiofx.NoiseSuppressor;
 import android.net.Uri;
 import android.net.wifi.WifiManager;
 import android.os.Build;
+import android.os.Debug;
 import android.os.Environment;
 import android.os.IBinder;
 import android.os.PowerManager;
@@ -31,20 +32,23 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.HttpURLConnection;
 import java.net.URL;
+import java.nio.ShortBuffer;
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.List;
 import java.util.Locale;
-import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
-import java.util.concurrent.ThreadFactory;
-import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
@@ -58,16 +62,18 @@ public class VoiceListenerService extends Service {
     private static final int SAMPLE_RATE_HZ = 16000;
     private static final int CHANNEL_CONFIG = AudioFormat.CHANNEL_IN_MONO;
     private static final int AUDIO_FORMAT = AudioFormat.ENCODING_PCM_16BIT;
-    private static final int FRAME_SAMPLES = 1024;
-    private static final int VOSK_MAX_SILENCE_FRAMES = 15;
-    private static final int VOSK_MIN_SPEECH_FRAMES = 8;
-    private static final int VOSK_MAX_CONTINUOUS_SPEECH_FRAMES = 64;
-    private static final int WHISPER_MAX_SILENCE_FRAMES = 6;
-    private static final int WHISPER_MIN_SPEECH_FRAMES = 4;
-    private static final int WHISPER_MAX_CONTINUOUS_SPEECH_FRAMES = 20;
+    private static final int TRANSCRIPTION_QUEUE_BACKLOG_MS = 4096;
     private static final double RMS_THRESHOLD = 900.0;
     private static final long SUMMARY_DEBOUNCE_MS = 4000L;
     private static final String TRANSCRIPTION_THREAD_NAME = "WhisperTranscriptionThread";
+    private static final String TRANSCRIPTION_SPOOL_DIR = "transcription_spool";
+    // リングがこの割合まで埋まったら、以降の投入はディスクへ退避する
+    private static final int SPOOL_THRESHOLD_DIVISOR = 2;
+    // 推論待ちのまま先行投入できる件数
+    private static final int MAX_IN_FLIGHT_RECOGNITIONS = 2;
+    // 計測前に、停止したセッションの残りの認識が終わるのを待つ上限
+    private static final long CALIBRATION_IDLE_WAIT_SECONDS = 30L;
+    private static final long CAPTURE_JOIN_TIMEOUT_MS = 1000L;
 
     private static final String LEGACY_VOSK_MODEL_FOLDER = "vosk-model-ja";
     private static final String MODELS_FOLDER = "models";
@@ -81,7 +87,6 @@ public class VoiceListenerService extends Service {
     private static final String PREF_MODEL_DOWNLOAD_ACTIVE = "model_download_active";
     private static final String PREF_MODEL_DOWNLOAD_PROGRESS = "model_download_progress";
     private static final String PREF_MODEL_DOWNLOAD_NAME = "model_download_name";
-    private static final String PREF_CURRENT_RMS = "current_rms";
     private static final String MON_STATE_RUNNING = "running";
     private static final String MON_STATE_PENDING = "pending";
     private static final String MON_STATE_STOPPED = "stopped";
@@ -99,8 +104,23 @@ public class VoiceListenerService extends Service {
     private LogManager2 logManager;
     private VoiceActivityDetector vad;
     private SpeechRecognizerFacade speechRecognizerFacade;
-    private ThreadPoolExecutor transcriptionExecutor;
+    private TranscriptionQueue transcriptionQueue;
+    private TranscriptionSpool transcriptionSpool;
+    private boolean spoolingLogged = false;
+    private final ArrayDeque<CompletableFuture<Void>> inFlightRecognitions = new ArrayDeque<>();
+    private volatile CompletableFuture<Void> lastRecognitionCompletion;
+    // 推論負荷に応じてWhisperモデルを一段ずつ切り替える。自身でロックする
+    private final ModelLoadController modelLoadController = new ModelLoadController();
+    private long adaptiveWindowsSeen = -1L;
+    // 切替判定はファイルや設定を読み、モデルの読込も始めるため、ウィンドウを処理した推論スレッドではなくここで行う
+    private final ExecutorService modelAdaptExecutor = Executors.newSingleThreadExecutor();
     private ExecutorService modelInstallerExecutor;
+    private ExecutorService calibrationExecutor;
+    // 録音中に要求された計測。認識とコアを奪い合うと偏った設定が保存されてしまうため、録音停止後に実行する
+    // calibrationLock で保護する
+    private final Object calibrationLock = new Object();
+    private Runnable pendingCalibration;
+    private volatile long captureSessionSeq = 0L;
     private ScheduledExecutorService summaryExecutor;
     private SharedPreferences sharedPrefs;
     private SharedPreferences.OnSharedPreferenceChangeListener prefsListener;
@@ -112,12 +132,25 @@ public class VoiceListenerService extends Service {
     private AutomaticGainControl automaticGainControl;
     private AcousticEchoCanceler acousticEchoCanceler;
     private Thread captureThread;
+    private AudioFramePool framePool;
+    private WhisperStreamGate whisperStreamGate;
     private volatile boolean isCapturing = false;
     private long lastRmsPublishMs = 0L;
+    private VadTiming vadTiming = VadTiming.defaultsFor(EngineType.VOSK);
+    private int captureFrameMs = 0;
+    private long lastSpeechFrameNs = 0L;
+    private long endpointCount = 0L;
+    private long endpointTotalMs = 0L;
+    private long endpointMaxMs = 0L;
+    private long captureCpuNanos = 0L;
+    private long capturedFrameCount = 0L;
+    private long capturedClippedSamples = 0L;
+    private int capturedPeak = 0;
     private PowerManager.WakeLock cpuWakeLock;
     private WifiManager.WifiLock wifiWakeLock;
     private ScheduledFuture<?> pendingSummaryFuture;
     private int activeAudioSource = MediaRecorder.AudioSource.MIC;
+    private int noiseFloorAudioSource = MediaRecorder.AudioSource.MIC;
 
     @Override
     public void onCreate() {
@@ -146,7 +179,8 @@ public class VoiceListenerService extends Service {
         };
         sharedPrefs.registerOnSharedPreferenceChangeListener(prefsListener);
 
-        transcriptionExecutor = createTranscriptionExecutor();
+        transcriptionSpool = openTranscriptionSpool();
+        transcriptionQueue = createTranscriptionQueue();
         modelInstallerExecutor = Executors.newSingleThreadExecutor();
         summaryExecutor = Executors.newSingleThreadScheduledExecutor();
         speechRecognizerFacade = SpeechRecognizerFacade.createDefault();
@@ -260,18 +294,20 @@ public class VoiceListenerService extends Service {
             // UIの停止要求: 録音は停止し、既にキューに入っている処理を完了したらサービスを終了する
             try { if (logManager != null) logManager.writeLog("監視停止要求を受信: 録音を停止し、保留処理完了後に終了します", false); } catch (Exception ignored) {}
             // set pending state
-            try { if (sharedPrefs != null) sharedPrefs.edit().putString(PREF_MON_STATE, MON_STATE_PENDING).apply(); } catch (Exception ignored) {}
+            publishMonitorState(MON_STATE_PENDING);
             stopAudioCapture();
-            ExecutorService drainingExecutor = transcriptionExecutor;
-            if (drainingExecutor != null) {
+            TranscriptionQueue drainingQueue = transcriptionQueue;
+            if (drainingQueue != null) {
                 if (modelInstallerExecutor == null) modelInstallerExecutor = Executors.newSingleThreadExecutor();
                 modelInstallerExecutor.execute(() -> {
                     try {
-                        drainingExecutor.shutdown();
-                        boolean terminated = drainingExecutor.awaitTermination(120, TimeUnit.SECONDS);
+                        boolean terminated = drainingQueue.drainAndStop(120, TimeUnit.SECONDS);
                         if (!terminated) {
-                            drainingExecutor.shutdownNow();
+                            // 残りは破棄せずディスクへ退避し、次回の起動時に認識する
+                            drainingQueue.stopNow(this::spillTranscriptionWork);
                         }
+                        awaitInFlightRecognitions(30, TimeUnit.SECONDS);
+                        setTranscriptionSpoolEnabled(false);
                         if (speechRecognizerFacade != null) {
                             speechRecognizerFacade.stop();
                         }
@@ -282,12 +318,12 @@ public class VoiceListenerService extends Service {
                         Thread.currentThread().interrupt();
                         try { if (logManager != null) logManager.writeLog("監視停止待機中に割込: " + e.getMessage(), false); } catch (Exception ignored) {}
                     } finally {
-                        if (transcriptionExecutor == drainingExecutor) {
-                            transcriptionExecutor = null;
+                        if (transcriptionQueue == drainingQueue) {
+                            transcriptionQueue = null;
                         }
                         try { if (logManager != null) logManager.writeLog("保留処理完了、サービスを停止します", false); } catch (Exception ignored) {}
                         // set stopped state
-                        try { if (sharedPrefs != null) sharedPrefs.edit().putString(PREF_MON_STATE, MON_STATE_STOPPED).apply(); } catch (Exception ignored) {}
+                        publishMonitorState(MON_STATE_STOPPED);
                         stopSelf();
                     }
                 });
@@ -301,7 +337,7 @@ public class VoiceListenerService extends Service {
                     shutdownSummaryExecutor(true);
                     refreshLiveSummary(true);
                     try { if (logManager != null) logManager.writeLog("保留処理なし、サービスを停止します", false); } catch (Exception ignored) {}
-                    try { if (sharedPrefs != null) sharedPrefs.edit().putString(PREF_MON_STATE, MON_STATE_STOPPED).apply(); } catch (Exception ignored) {}
+                    publishMonitorState(MON_STATE_STOPPED);
                     stopSelf();
                 });
             }
@@ -317,13 +353,17 @@ public class VoiceListenerService extends Service {
         super.onDestroy();
         Log.d(TAG, "VoiceListenerService destroyed");
 
+        synchronized (calibrationLock) {
+            pendingCalibration = null;
+        }
         stopAudioCapture();
         cancelPendingSummaryTask();
         shutdownSummaryExecutor(false);
 
-        if (transcriptionExecutor != null) {
-            transcriptionExecutor.shutdownNow();
-            transcriptionExecutor = null;
+        setTranscriptionSpoolEnabled(false);
+        if (transcriptionQueue != null) {
+            transcriptionQueue.stopNow(this::spillTranscriptionWork);
+            transcriptionQueue = null;
         }
 
         if (speechRecognizerFacade != null) {
@@ -334,15 +374,21 @@ public class VoiceListenerService extends Service {
             modelInstallerExecutor.shutdownNow();
             modelInstallerExecutor = null;
         }
+        if (calibrationExecutor != null) {
+            calibrationExecutor.shutdownNow();
+            calibrationExecutor = null;
+        }
+        modelAdaptExecutor.shutdownNow();
 
         // ensure state is stopped
-        try { if (sharedPrefs != null) sharedPrefs.edit().putString(PREF_MON_STATE, MON_STATE_STOPPED).apply(); } catch (Exception ignored) {}
+        publishMonitorState(MON_STATE_STOPPED);
+        ServiceTelemetry.getInstance().publishModelDownload(false, 0, "");
+        ServiceTelemetry.getInstance().publishLevel(0f);
         try {
             if (sharedPrefs != null) {
                 sharedPrefs.edit()
                     .putBoolean(PREF_MODEL_DOWNLOAD_ACTIVE, false)
                     .putInt(PREF_MODEL_DOWNLOAD_PROGRESS, 0)
-                    .putFloat(PREF_CURRENT_RMS, 0f)
                     .apply();
             }
         } catch (Exception ignored) {}
@@ -461,37 +507,73 @@ public class VoiceListenerService extends Service {
     }
 
     private VoiceActivityDetector createVoiceActivityDetector(EngineType engineType, double rmsThreshold) {
+        VadTiming timing = SpeechRecognitionPreferences.getVadTiming(this, engineType);
+        if (isCapturing && captureFrameMs > 0) {
+            // 録音中はフレーム長を変えられないため、次回の録音開始から反映する
+            timing = timing.withFrameMs(captureFrameMs);
+        }
+        vadTiming = timing;
+        int frameSamples = timing.frameSamples(SAMPLE_RATE_HZ);
+        VadMode vadMode = SpeechRecognitionPreferences.getVadMode(this, engineType);
+        SpeechFrameClassifier classifier = vadMode == VadMode.SPECTRAL
+            ? new SpectralFrameClassifier(SAMPLE_RATE_HZ, frameSamples)
+            : new RmsFrameClassifier();
         if (engineType == EngineType.WHISPER) {
             logWhisperTrace(
                 RecognitionTraceContext.NO_TRACE_ID,
                 "vad.config",
-                "engine=WHISPER frameSamples=" + FRAME_SAMPLES
-                    + " frameMs=" + samplesToMillis(FRAME_SAMPLES)
+                "engine=WHISPER mode=" + vadMode
+                    + " frameSamples=" + frameSamples
                     + " rmsThreshold=" + String.format(Locale.US, "%.1f", rmsThreshold)
-                    + " minSpeechFrames=" + WHISPER_MIN_SPEECH_FRAMES
-                    + " maxSilenceFrames=" + WHISPER_MAX_SILENCE_FRAMES
-                    + " maxContinuousSpeechFrames=" + WHISPER_MAX_CONTINUOUS_SPEECH_FRAMES
-            );
-            return new VoiceActivityDetector(
-                rmsThreshold,
-                WHISPER_MAX_SILENCE_FRAMES,
-                WHISPER_MIN_SPEECH_FRAMES,
-                WHISPER_MAX_CONTINUOUS_SPEECH_FRAMES
+                    + " " + timing.describe()
             );
         }
-        return new VoiceActivityDetector(
+        VoiceActivityDetector detector = new VoiceActivityDetector(
             rmsThreshold,
-            VOSK_MAX_SILENCE_FRAMES,
-            VOSK_MIN_SPEECH_FRAMES,
-            VOSK_MAX_CONTINUOUS_SPEECH_FRAMES
+            timing.maxSilenceFrames(),
+            timing.minSpeechFrames(),
+            timing.maxContinuousSpeechFrames(),
+            timing.preRollFrames(),
+            classifier,
+            new NoiseFloorTracker(timing.frameMs())
         );
+        warmStartNoiseFloor(detector, activeAudioSource);
+        return detector;
+    }
+
+    // 前回の騒音推定値から開始し、再起動直後の収束待ちで雑音を通さないようにする
+    private void warmStartNoiseFloor(VoiceActivityDetector detector, int audioSource) {
+        double savedMinimum = SpeechRecognitionPreferences.getNoiseFloorMinimum(this, audioSource);
+        detector.warmStartNoiseFloor(savedMinimum);
+        noiseFloorAudioSource = audioSource;
+        if (savedMinimum > 0.0 && isWhisperActiveEngine()) {
+            logWhisperTrace(
+                RecognitionTraceContext.NO_TRACE_ID,
+                "vad.noise.warm",
+                "audioSource=" + audioSourceLabel(audioSource)
+                    + " minimumRms=" + String.format(Locale.US, "%.1f", savedMinimum)
+                    + " floorRms=" + String.format(Locale.US, "%.1f", detector.getNoiseFloorRms())
+            );
+        }
+    }
+
+    private void persistNoiseFloor(VoiceActivityDetector detector) {
+        if (detector == null) {
+            return;
+        }
+        SpeechRecognitionPreferences.setNoiseFloorMinimum(this, noiseFloorAudioSource, detector.getNoiseFloorMinimum());
     }
 
     private void rebuildVoiceActivityDetector(EngineType engineType) {
         double rmsThreshold = sharedPrefs == null
             ? RMS_THRESHOLD
             : sharedPrefs.getFloat(PREF_RMS_THRESHOLD, (float) RMS_THRESHOLD);
+        VoiceActivityDetector previous = vad;
+        persistNoiseFloor(previous);
         vad = createVoiceActivityDetector(engineType, rmsThreshold);
+        if (previous != null) {
+            previous.clear();
+        }
     }
 
     private void installModelIfMissingAsync(File modelDir) {
@@ -562,6 +644,11 @@ public class VoiceListenerService extends Service {
     }
 
     private boolean initializeWhisperEngineWithModel(File modelFile) {
+        return initializeWhisperEngineWithModel(modelFile, true);
+    }
+
+    // calibrate=false なら未計測のモデルは既定のスレッド数のまま使う。負荷による切替では、端末が既に過負荷や高温のときに計測を始めない
+    private boolean initializeWhisperEngineWithModel(File modelFile, boolean calibrate) {
         if (!WhisperModelManager.hasModelContent(modelFile)) {
             logWhisperTrace(
                 RecognitionTraceContext.NO_TRACE_ID,
@@ -576,7 +663,18 @@ public class VoiceListenerService extends Service {
             SAMPLE_RATE_HZ,
             "ja",
             SpeechRecognizerConfig.defaultThreadCount()
+        ).withInferenceProfile(SpeechRecognitionPreferences.getWhisperInferenceProfile(this));
+        // プロファイルごとに最適なスレッド数が変わるため、計測結果もプロファイル別に持つ
+        String calibrationName = modelFile.getName() + "@" + config.getInferenceProfile().name();
+        String calibrationIdentity = WhisperThreadCalibrator.identity(
+            modelFile,
+            WhisperThreadCalibrator.deviceFingerprint(),
+            config.getDecoderStates()
         );
+        ThreadSetting calibrated = SpeechRecognitionPreferences.getWhisperThreadSetting(this, calibrationName, calibrationIdentity);
+        if (calibrated != null) {
+            config = config.withThreadSetting(calibrated);
+        }
         logWhisperTrace(
             RecognitionTraceContext.NO_TRACE_ID,
             "engine.configure.begin",
@@ -587,6 +685,9 @@ public class VoiceListenerService extends Service {
                     + " sampleRateHz=" + config.getSampleRateHz()
                     + " language=" + config.getLanguage()
                     + " threadCount=" + config.getThreadCount()
+                    + " coreMask=" + Long.toHexString(config.getCoreMask())
+                    + " calibrated=" + (calibrated != null)
+                    + " profile=" + config.getInferenceProfile()
                 + " availableProcessors=" + Runtime.getRuntime().availableProcessors()
         );
         long configureStartedNs = System.nanoTime();
@@ -601,47 +702,181 @@ public class VoiceListenerService extends Service {
         }
         logWhisperTrace(
             RecognitionTraceContext.NO_TRACE_ID,
-            "engine.configure.done",
+            "engine.configure.queued",
             "elapsedMs=" + nanosToMillis(System.nanoTime() - configureStartedNs)
                 + " modelPath=" + modelFile.getAbsolutePath()
         );
         Log.i(TAG, "ASR engine: " + config.getEngineType().getDisplayName() + " @ " + modelFile.getAbsolutePath());
+        if (calibrated == null && calibrate) {
+            calibrateWhisperThreadsAsync(config, calibrationName, calibrationIdentity);
+        }
         return true;
     }
 
+    // 端末とモデルの組み合わせごとに最速のスレッド数とコア割当を一度だけ計測して保存する
+    // 録音中は計測せず、停止後に実行する。計測中に認識が走った結果は保存しない
+    private void calibrateWhisperThreadsAsync(SpeechRecognizerConfig config, String modelName, String identity) {
+        if (isCapturing) {
+            parkCalibration(config, modelName, identity, "capturing");
+            return;
+        }
+        if (calibrationExecutor == null) {
+            calibrationExecutor = Executors.newSingleThreadExecutor();
+        }
+        calibrationExecutor.execute(() -> {
+            awaitInFlightRecognitions(CALIBRATION_IDLE_WAIT_SECONDS, TimeUnit.SECONDS);
+            long sessionSeq = captureSessionSeq;
+            long windowsBefore = liveWhisperWindows();
+            if (isCapturing || windowsBefore < 0L) {
+                parkCalibration(config, modelName, identity, "busy");
+                return;
+            }
+            if (hasTranscriptionBacklog()) {
+                parkCalibration(config, modelName, identity, "draining");
+                return;
+            }
+            long startedNs = System.nanoTime();
+            CpuTopology topology = CpuTopology.readSystem();
+            WhisperThreadCalibrator.Result result;
+            try {
+                result = WhisperThreadCalibrator.calibrate(config, topology);
+            } catch (Exception e) {
+                Log.w(TAG, "Whisper thread calibration failed", e);
+                logWhisperTrace(
+                    RecognitionTraceContext.NO_TRACE_ID,
+                    "engine.calibrate.error",
+                    "elapsedMs=" + nanosToMillis(System.nanoTime() - startedNs)
+                        + " error=" + e.getClass().getSimpleName() + ":" + String.valueOf(e.getMessage())
+                );
+                return;
+            }
+            long windowsAfter = liveWhisperWindows();
+            if (isCapturing || sessionSeq != captureSessionSeq || windowsAfter != windowsBefore) {
+                logWhisperTrace(
+                    RecognitionTraceContext.NO_TRACE_ID,
+                    "engine.calibrate.discard",
+                    "elapsedMs=" + nanosToMillis(System.nanoTime() - startedNs)
+                        + " capturing=" + isCapturing
+                        + " windowsBefore=" + windowsBefore
+                        + " windowsAfter=" + windowsAfter
+                        + " timingsMs=" + result.describe()
+                );
+                parkCalibration(config, modelName, identity, "overlapped");
+                return;
+            }
+            ThreadSetting best = result.getBest();
+            SpeechRecognitionPreferences.setWhisperThreadSetting(this, modelName, identity, best);
+            logWhisperTrace(
+                RecognitionTraceContext.NO_TRACE_ID,
+                "engine.calibrate",
+                "elapsedMs=" + nanosToMillis(System.nanoTime() - startedNs)
+                    + " " + topology.describe()
+                    + " timingsMs=" + result.describe()
+                    + " bestThreadCount=" + best.getThreadCount()
+                    + " bestCoreMask=" + Long.toHexString(best.getCoreMask())
+            );
+            try { if (logManager != null) logManager.writeLog("Whisperスレッド設定を計測しました: threads=" + best.getThreadCount() + " coreMask=" + Long.toHexString(best.getCoreMask()), false); } catch (Exception ignored) {}
+            // 計測中に別モデルへ切り替わっていなければ、計測結果でエンジンを組み直す（重みは共有される）
+            SpeechRecognizerFacade facade = speechRecognizerFacade;
+            SpeechRecognizerConfig tuned = config.withThreadSetting(best);
+            if (facade != null && config.equals(facade.currentConfig()) && !tuned.equals(config)) {
+                configureSpeechRecognizer(tuned);
+            }
+        });
+    }
+
+    // 次に録音が停止したときに再実行する。保持するのは現在のモデルを表す最新の要求だけ
+    private void parkCalibration(SpeechRecognizerConfig config, String modelName, String identity, String reason) {
+        synchronized (calibrationLock) {
+            pendingCalibration = () -> calibrateWhisperThreadsAsync(config, modelName, identity);
+        }
+        logWhisperTrace(
+            RecognitionTraceContext.NO_TRACE_ID,
+            "engine.calibrate.defer",
+            "reason=" + reason + " model=" + modelName
+        );
+    }
+
+    private void runPendingCalibration() {
+        Runnable pending;
+        synchronized (calibrationLock) {
+            pending = pendingCalibration;
+            pendingCalibration = null;
+        }
+        if (pending != null) {
+            pending.run();
+        }
+    }
+
+    // リングやスプールに未処理の音声が残る間（停止後の排出中を含む）は計測で排出を遅らせない
+    private boolean hasTranscriptionBacklog() {
+        TranscriptionQueue queue = transcriptionQueue;
+        TranscriptionSpool spool = transcriptionSpool;
+        return (queue != null && (queue.depth() > 0 || !queue.isAccepting()))
+            || (spool != null && spool.hasPendingRecords());
+    }
+
+    // 稼働中のWhisperエンジンが処理したウィンドウ数。推論待ち・推論中のウィンドウがあれば -1
+    private long liveWhisperWindows() {
+        SpeechRecognizerFacade facade = speechRecognizerFacade;
+        RecognizerLoad load = facade == null ? null : facade.loadSnapshot();
+        if (load == null) {
+            return 0L;
+        }
+        return load.getQueuedWindows() > 0 ? -1L : load.getWindows();
+    }
+
+    // モデルの読込は裏で行い、完了までは現在のエンジンで認識を続ける
     private boolean configureSpeechRecognizer(SpeechRecognizerConfig config) {
         if (speechRecognizerFacade == null) {
             speechRecognizerFacade = SpeechRecognizerFacade.createDefault();
         }
-        long selectStartedNs = System.nanoTime();
+        final SpeechRecognizerFacade facade = speechRecognizerFacade;
+        final long selectStartedNs = System.nanoTime();
+        CompletableFuture<Void> selection;
         try {
-            speechRecognizerFacade.selectEngine(config);
+            selection = facade.selectEngineAsync(config);
+        } catch (Exception e) {
+            reportSpeechRecognizerFailure(config, e, selectStartedNs);
+            return false;
+        }
+        selection.whenComplete((ignored, error) -> {
+            if (error != null) {
+                reportSpeechRecognizerFailure(config, unwrapCompletion(error), selectStartedNs);
+                // 別種のエンジンが残っている場合だけ無効化する。同種ならモデル差替え前のまま継続する
+                if (facade.currentEngineType() != config.getEngineType()) {
+                    facade.setFallbackToNoOp();
+                }
+                return;
+            }
             if (config.getEngineType() == EngineType.WHISPER) {
                 logWhisperTrace(
                     RecognitionTraceContext.NO_TRACE_ID,
                     "facade.selectEngine",
                     "elapsedMs=" + nanosToMillis(System.nanoTime() - selectStartedNs)
                         + " engineType=" + config.getEngineType()
+                        + " async=true"
                 );
             }
-            return true;
-        } catch (Exception e) {
-            Log.e(TAG, "Speech recognizer configuration failed: " + config.getEngineType().getDisplayName(), e);
-            if (config.getEngineType() == EngineType.WHISPER) {
-                logWhisperTrace(
-                    RecognitionTraceContext.NO_TRACE_ID,
-                    "facade.selectEngine.error",
-                    "elapsedMs=" + nanosToMillis(System.nanoTime() - selectStartedNs)
-                        + " error=" + e.getClass().getSimpleName() + ":" + String.valueOf(e.getMessage())
-                );
-            }
-            try {
-                if (logManager != null) {
-                    logManager.writeLog("認識エンジン初期化失敗 (" + config.getEngineType().getDisplayName() + "): " + e.getMessage(), false);
-                }
-            } catch (Exception ignored) {
+        });
+        return true;
+    }
+
+    private void reportSpeechRecognizerFailure(SpeechRecognizerConfig config, Throwable e, long selectStartedNs) {
+        Log.e(TAG, "Speech recognizer configuration failed: " + config.getEngineType().getDisplayName(), e);
+        if (config.getEngineType() == EngineType.WHISPER) {
+            logWhisperTrace(
+                RecognitionTraceContext.NO_TRACE_ID,
+                "facade.selectEngine.error",
+                "elapsedMs=" + nanosToMillis(System.nanoTime() - selectStartedNs)
+                    + " error=" + e.getClass().getSimpleName() + ":" + String.valueOf(e.getMessage())
+            );
+        }
+        try {
+            if (logManager != null) {
+                logManager.writeLog("認識エンジン初期化失敗 (" + config.getEngineType().getDisplayName() + "): " + e.getMessage(), false);
             }
-            return false;
+        } catch (Exception ignored) {
         }
     }
 
@@ -1055,28 +1290,138 @@ public class VoiceListenerService extends Service {
         return deleted;
     }
 
-    private void ensureTranscriptionExecutor() {
-        if (transcriptionExecutor == null || transcriptionExecutor.isShutdown() || transcriptionExecutor.isTerminated()) {
-            transcriptionExecutor = createTranscriptionExecutor();
+    // 待機中のキューだけを作り直す。処理中の音声を捨てないよう、残りがあればそのまま使う
+    private void resizeTranscriptionQueueIfIdle(int capacity) {
+        TranscriptionQueue current = transcriptionQueue;
+        if (current != null && current.isAccepting() && current.capacity() != capacity && current.depth() == 0) {
+            current.stopNow();
+            transcriptionQueue = null;
         }
+        ensureTranscriptionQueue();
     }
 
-    private ThreadPoolExecutor createTranscriptionExecutor() {
-        return new ThreadPoolExecutor(
-            1,
-            1,
-            0L,
-            TimeUnit.MILLISECONDS,
-            new LinkedBlockingQueue<>(),
-            new ThreadFactory() {
-                @Override
-                public Thread newThread(Runnable runnable) {
-                    Thread thread = new Thread(runnable, TRANSCRIPTION_THREAD_NAME);
-                    thread.setDaemon(false);
-                    return thread;
-                }
-            }
+    private void ensureTranscriptionQueue() {
+        if (transcriptionQueue == null || !transcriptionQueue.isAccepting()) {
+            transcriptionQueue = createTranscriptionQueue();
+        }
+    }
+
+    // 一定の音声長で容量を決め、フレームが短くてもワーカーが吸収できる滞留量を減らさない
+    private static int transcriptionQueueCapacity(int frameMs) {
+        int items = Math.max(64, TRANSCRIPTION_QUEUE_BACKLOG_MS / Math.max(1, frameMs));
+        return Integer.highestOneBit(items - 1) << 1;
+    }
+
+    private TranscriptionQueue createTranscriptionQueue() {
+        TranscriptionQueue queue = new TranscriptionQueue(
+            transcriptionQueueCapacity(vadTiming.frameMs()),
+            TRANSCRIPTION_THREAD_NAME,
+            this::runTranscriptionWork,
+            transcriptionSpool
         );
+        queue.start();
+        return queue;
+    }
+
+    private TranscriptionSpool openTranscriptionSpool() {
+        try {
+            TranscriptionSpool spool = new TranscriptionSpool(new File(getFilesDir(), TRANSCRIPTION_SPOOL_DIR));
+            // エンジンが動き出すまでは退避分を流さない
+            spool.setEnabled(false);
+            int recovered = spool.getRecoveredRecordCount();
+            if (recovered > 0) {
+                Log.i(TAG, "Recovered spooled transcription work: " + recovered);
+                try { if (logManager != null) logManager.writeLog("未処理の音声を復元: " + recovered + "件", false); } catch (Exception ignored) {}
+            }
+            return spool;
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to open transcription spool", e);
+            return null;
+        }
+    }
+
+    private void setTranscriptionSpoolEnabled(boolean enabled) {
+        TranscriptionSpool spool = transcriptionSpool;
+        if (spool == null) {
+            return;
+        }
+        spool.setEnabled(enabled);
+        TranscriptionQueue queue = transcriptionQueue;
+        if (enabled && queue != null) {
+            queue.signalBacklog();
+        }
+    }
+
+    // 認識が追いつかない間は、以降の投入をすべてディスクへ回して順序を保つ
+    private boolean spoolIfBacklogged(
+        TranscriptionQueue.Kind kind,
+        long traceId,
+        String triggerReason,
+        int relatedSamples,
+        ShortBuffer samples,
+        int length
+    ) {
+        TranscriptionSpool spool = transcriptionSpool;
+        TranscriptionQueue queue = transcriptionQueue;
+        if (spool == null || queue == null) {
+            return false;
+        }
+        if (!spool.hasPendingRecords() && queue.depth() < queue.capacity() / SPOOL_THRESHOLD_DIVISOR) {
+            spoolingLogged = false;
+            return false;
+        }
+        if (!appendToSpool(spool, kind, traceId, triggerReason, relatedSamples, samples, length)) {
+            return false;
+        }
+        queue.signalBacklog();
+        if (!spoolingLogged) {
+            spoolingLogged = true;
+            if (isWhisperActiveEngine()) {
+                logWhisperTrace(
+                    traceId,
+                    "queue.spool.start",
+                    "trigger=" + triggerReason + " " + describeTranscriptionQueue(queue) + " " + spool.describe()
+                );
+            }
+            try { if (logManager != null) logManager.writeLog("認識が追いつかないため音声をディスクへ退避します", false); } catch (Exception ignored) {}
+        }
+        return true;
+    }
+
+    // 停止時にリングへ残った処理を退避する。ワーカースレッドから呼ばれる
+    private void spillTranscriptionWork(TranscriptionQueue.Work work) {
+        TranscriptionSpool spool = transcriptionSpool;
+        ShortBuffer samples = null;
+        int length = 0;
+        if (work.frame() != null) {
+            samples = work.frame().pcm();
+            length = work.frame().length();
+        } else if (work.segment() != null) {
+            samples = ShortBuffer.wrap(work.segment().samples());
+            length = work.segment().length();
+        }
+        if (spool == null
+            || !appendToSpool(spool, work.kind(), work.traceId(), work.triggerReason(), work.relatedSamples(), samples, length)) {
+            reportTranscriptionDrop(work.triggerReason(), length);
+        }
+    }
+
+    private boolean appendToSpool(
+        TranscriptionSpool spool,
+        TranscriptionQueue.Kind kind,
+        long traceId,
+        String triggerReason,
+        int relatedSamples,
+        ShortBuffer samples,
+        int length
+    ) {
+        try {
+            spool.append(kind, traceId, System.currentTimeMillis(), relatedSamples, triggerReason, samples, length);
+            return true;
+        } catch (IOException | RuntimeException e) {
+            Log.e(TAG, "Failed to spool transcription work", e);
+            return false;
+        }
     }
 
     private void ensureSummaryExecutor() {
@@ -1354,7 +1699,18 @@ public class VoiceListenerService extends Service {
     }
 
     private void updateDownloadProgress(boolean active, int progress, String modelName, String activeKey, String progressKey, String nameKey) {
-        if (sharedPrefs == null) return;
+        ServiceTelemetry telemetry = ServiceTelemetry.getInstance();
+        boolean whisperDownload = WhisperModelManager.PREF_MODEL_DOWNLOAD_PROGRESS.equals(progressKey);
+        ServiceTelemetry.DownloadProgress previous = whisperDownload
+            ? telemetry.getWhisperModelDownload()
+            : telemetry.getModelDownload();
+        if (whisperDownload) {
+            telemetry.publishWhisperModelDownload(active, progress, modelName);
+        } else {
+            telemetry.publishModelDownload(active, progress, modelName);
+        }
+        // 進捗の更新はメモリ上だけで行い、開始と終了の切り替わりだけを設定に書き込む
+        if (sharedPrefs == null || (previous != null && previous.isActive() == active)) return;
         sharedPrefs.edit()
             .putBoolean(activeKey, active)
             .putInt(progressKey, progress)
@@ -1437,12 +1793,21 @@ public class VoiceListenerService extends Service {
         if (isCapturing) {
             return;
         }
-        ensureTranscriptionExecutor();
+        if (!awaitCaptureThreadExit()) {
+            String msg = "前回の録音スレッドが終了していないため録音を開始できません";
+            Log.w(TAG, msg);
+            try { if (logManager != null) logManager.writeLog(msg, false); } catch (Exception ignored) {}
+            return;
+        }
+        ensureTranscriptionQueue();
         ensureSummaryExecutor();
-        if (speechRecognizerFacade == null || !speechRecognizerFacade.hasActiveEngine()) {
+        if (speechRecognizerFacade == null
+                || (!speechRecognizerFacade.hasActiveEngine() && !speechRecognizerFacade.isEngineLoading())) {
             initializeAsrEngine();
         }
-        if (speechRecognizerFacade == null || !speechRecognizerFacade.hasActiveEngine()) {
+        // 初回ロード中は NoOp で受けつつ、ロード完了後に切り替える
+        if (speechRecognizerFacade == null
+                || (!speechRecognizerFacade.hasActiveEngine() && !speechRecognizerFacade.isEngineLoading())) {
             String msg = "認識エンジンを初期化できません。モデル設定を確認してください。";
             Log.e(TAG, msg);
             try { if (logManager != null) logManager.writeLog(msg, false); } catch (Exception ignored) {}
@@ -1486,15 +1851,23 @@ public class VoiceListenerService extends Service {
             return;
         }
 
-        int recordBufferBytes = Math.max(minBufferBytes * 2, FRAME_SAMPLES * 2 * 4);
+        // フレーム長の設定変更をここで反映する
+        rebuildVoiceActivityDetector(SpeechRecognitionPreferences.getActiveEngine(this));
+        int frameSamples = vadTiming.frameSamples(SAMPLE_RATE_HZ);
+        resizeTranscriptionQueueIfIdle(transcriptionQueueCapacity(vadTiming.frameMs()));
+        int recordBufferBytes = Math.max(minBufferBytes * 2, frameSamples * 2 * 4);
         audioRecord = createAudioRecord(recordBufferBytes);
         if (audioRecord == null) {
             Log.e(TAG, "AudioRecord initialization failed for all audio sources");
             return;
         }
+        if (vad != null && activeAudioSource != noiseFloorAudioSource) {
+            warmStartNoiseFloor(vad, activeAudioSource);
+        }
 
         try {
             speechRecognizerFacade.start();
+            setTranscriptionSpoolEnabled(true);
         } catch (RuntimeException e) {
             Log.e(TAG, "Failed to start speech recognizer", e);
             try { if (logManager != null) logManager.writeLog("認識エンジン開始失敗: " + e.getMessage(), false); } catch (Exception ignored) {}
@@ -1518,6 +1891,18 @@ public class VoiceListenerService extends Service {
             return;
         }
 
+        if (framePool == null || framePool.frameSamples() != frameSamples) {
+            framePool = new AudioFramePool(transcriptionQueueCapacity(vadTiming.frameMs()) * 2, frameSamples);
+        }
+        whisperStreamGate = new WhisperStreamGate(vadTiming.preRollFrames());
+        captureFrameMs = vadTiming.frameMs();
+        lastSpeechFrameNs = 0L;
+        resetEndOfUtteranceStats();
+        captureCpuNanos = 0L;
+        capturedFrameCount = 0L;
+        capturedClippedSamples = 0L;
+        capturedPeak = 0;
+        captureSessionSeq++;
         isCapturing = true;
         captureThread = new Thread(this::captureLoop, "AudioCaptureThread");
         captureThread.start();
@@ -1527,67 +1912,215 @@ public class VoiceListenerService extends Service {
                 RecognitionTraceContext.NO_TRACE_ID,
                 "capture.start",
                 "audioSource=" + audioSourceLabel(activeAudioSource)
-                    + " frameSamples=" + FRAME_SAMPLES
-                    + " frameMs=" + samplesToMillis(FRAME_SAMPLES)
+                    + " frameSamples=" + frameSamples
+                    + " frameMs=" + captureFrameMs
                     + " minBufferBytes=" + minBufferBytes
                     + " recordBufferBytes=" + recordBufferBytes
-                    + " " + describeExecutorState(transcriptionExecutor)
+                    + " framePoolCapacity=" + framePool.capacity()
+                    + " " + describeTranscriptionQueue(transcriptionQueue)
             );
         }
-        try { if (sharedPrefs != null) sharedPrefs.edit().putString(PREF_MON_STATE, MON_STATE_RUNNING).apply(); } catch (Exception ignored) {}
+        publishMonitorState(MON_STATE_RUNNING);
         try { if (logManager != null) logManager.writeLog("録音開始 (" + audioSourceLabel(activeAudioSource) + ")"); } catch (Exception ignored) {}
     }
 
     private void captureLoop() {
-        short[] readBuffer = new short[FRAME_SAMPLES];
+        AudioFramePool pool = framePool;
+        WhisperStreamGate gate = whisperStreamGate;
+        try {
+            captureFrames(pool, gate);
+        } finally {
+            finishCaptureSession(pool, gate);
+        }
+    }
+
+    private void captureFrames(AudioFramePool pool, WhisperStreamGate gate) {
+        WhisperStreamGate.FrameSink streamSink = this::submitStreamFrame;
         while (isCapturing && audioRecord != null) {
-            int readSamples = audioRecord.read(readBuffer, 0, readBuffer.length, AudioRecord.READ_BLOCKING);
-            if (readSamples <= 0) {
-                if (readSamples != AudioRecord.ERROR_INVALID_OPERATION
-                    && readSamples != AudioRecord.ERROR_BAD_VALUE) {
+            AudioFramePool.Frame frame = pool.acquire();
+            long cpuStartedNs = 0L;
+            try {
+                // ネイティブ側が直接読むダイレクトバッファへ録音する
+                int readBytes = audioRecord.read(frame.data(), frame.capacity() * 2, AudioRecord.READ_BLOCKING);
+                int readSamples = readBytes > 0 ? readBytes / 2 : readBytes;
+                if (readSamples <= 0) {
+                    if (readSamples != AudioRecord.ERROR_INVALID_OPERATION
+                        && readSamples != AudioRecord.ERROR_BAD_VALUE) {
+                        continue;
+                    }
+                    Log.w(TAG, "AudioRecord read failed: " + readSamples);
                     continue;
                 }
-                Log.w(TAG, "AudioRecord read failed: " + readSamples);
-                continue;
+
+                // 読み込み待ちを除いた、フレーム処理だけのCPU時間を測る
+                cpuStartedNs = Debug.threadCpuTimeNanos();
+                frame.setLength(readSamples);
+                FrameFeatures features = frame.features();
+                recordFrameFeatures(features);
+                publishCurrentRms(features);
+                PcmSegment segment = vad.processFrameSegment(frame);
+                if (vad.lastFrameWasSpeech()) {
+                    lastSpeechFrameNs = System.nanoTime();
+                }
+                // 発話終了で確定したセグメントだけ、最後の発話フレームからの遅延を計測対象にする
+                long speechEndedAtNs = segment != null && !vad.isInSpeech() ? lastSpeechFrameNs : 0L;
+                WhisperStreamGate.Transition transition = WhisperStreamGate.Transition.NONE;
+                if (isWhisperActiveEngine()) {
+                    // 発話区間(プリロール含む)のフレームだけをWhisperへ送り、無音は区切りとして扱う
+                    transition = gate.offer(frame, vad.isInSpeech(), streamSink);
+                }
+                if (transition == WhisperStreamGate.Transition.CLOSED && segment == null) {
+                    // セグメントにならない短い発話は、送信済みの音声を認識せずに破棄する
+                    submitStreamDiscard("vad.discard");
+                }
+                if (segment != null) {
+                    if (isWhisperActiveEngine()) {
+                        // Whisperはストリーミング済みなので、セグメントは区切りとしてのみ使う
+                        int segmentSamples = segment.length();
+                        segment.recycle();
+                        logWhisperTrace(
+                            RecognitionTraceContext.NO_TRACE_ID,
+                            "segment.ready",
+                            "samples=" + segmentSamples
+                                + " segmentMs=" + samplesToMillis(segmentSamples)
+                                + " flushReason=vad.segment"
+                                + " " + describeTranscriptionQueue(transcriptionQueue)
+                        );
+                        submitFlush("vad.segment", segmentSamples, speechEndedAtNs);
+                        continue;
+                    }
+                    submitForTranscription(segment, speechEndedAtNs);
+                }
+            } finally {
+                frame.release();
+                if (cpuStartedNs > 0L) {
+                    captureCpuNanos += Math.max(0L, Debug.threadCpuTimeNanos() - cpuStartedNs);
+                }
             }
+        }
+    }
 
-            short[] frame = Arrays.copyOf(readBuffer, readSamples);
-            publishCurrentRms(frame);
-            short[] segment = vad.processFrame(frame);
-            if (isWhisperActiveEngine()) {
-                submitForTranscription(frame, false, "stream.frame", 0);
+    // 録音スレッドの終了時に実行する。stopAudioCapture が待ちきれなかった場合も、最後のフラッシュはリング唯一の投入元から行われる
+    private void finishCaptureSession(AudioFramePool pool, WhisperStreamGate gate) {
+        flushCaptureSession(gate);
+        // VADと録音統計はこのスレッドだけが更新するので、停止側がスレッドを待ちきれなくてもここなら競合しない
+        if (pool != null && isWhisperActiveEngine()) {
+            logWhisperTrace(
+                RecognitionTraceContext.NO_TRACE_ID,
+                "capture.pool",
+                "capacity=" + pool.capacity()
+                    + " available=" + pool.availableCount()
+                    + " overflowAllocations=" + pool.getOverflowAllocationCount()
+                    + " " + describeTranscriptionQueue(transcriptionQueue)
+            );
+            if (transcriptionSpool != null) {
+                logWhisperTrace(RecognitionTraceContext.NO_TRACE_ID, "queue.spool", transcriptionSpool.describe());
             }
-            if (segment != null && segment.length > 0) {
+            if (vad != null) {
+                long classifiedFrames = vad.getClassifiedFrameCount();
+                long classifierNanos = vad.getClassifierNanos();
+                logWhisperTrace(
+                    RecognitionTraceContext.NO_TRACE_ID,
+                    "vad.cost",
+                    "mode=" + vad.getMode()
+                        + " frames=" + classifiedFrames
+                        + " totalMs=" + nanosToMillis(classifierNanos)
+                        + " avgUsPerFrame=" + (classifiedFrames == 0L ? 0L : classifierNanos / classifiedFrames / 1000L)
+                        + " segmentAllocations=" + vad.getSegmentArrayAllocationCount()
+                        + " segmentGrows=" + vad.getSegmentGrowCount()
+                );
+            }
+            if (gate != null) {
+                logWhisperTrace(
+                    RecognitionTraceContext.NO_TRACE_ID,
+                    "capture.gate",
+                    "streamedFrames=" + gate.getStreamedFrameCount()
+                        + " gatedFrames=" + gate.getGatedFrameCount()
+                );
+            }
+            logWhisperTrace(
+                RecognitionTraceContext.NO_TRACE_ID,
+                "capture.features",
+                "frames=" + capturedFrameCount
+                    + " clippedSamples=" + capturedClippedSamples
+                    + " peak=" + capturedPeak
+            );
+        }
+
+        logVadTimingSummary();
+        persistNoiseFloor(vad);
+    }
+
+    private void flushCaptureSession(WhisperStreamGate gate) {
+        if (transcriptionQueue == null) {
+            // サービス終了でキューが破棄済み
+            Log.w(TAG, "Transcription queue is gone; skipping the final capture flush.");
+            return;
+        }
+        if (vad != null) {
+            PcmSegment flushed = vad.flushSegment();
+            if (flushed != null) {
                 if (isWhisperActiveEngine()) {
+                    int flushedSamples = flushed.length();
+                    flushed.recycle();
                     logWhisperTrace(
                         RecognitionTraceContext.NO_TRACE_ID,
-                        "segment.ready",
-                        "samples=" + segment.length
-                            + " segmentMs=" + samplesToMillis(segment.length)
-                            + " flushReason=vad.segment"
-                            + " " + describeExecutorState(transcriptionExecutor)
+                        "segment.flush",
+                        "samples=" + flushedSamples
+                            + " segmentMs=" + samplesToMillis(flushedSamples)
+                            + " flushReason=capture.stop"
                     );
-                    submitForTranscription(null, true, "vad.segment", segment.length);
-                    continue;
+                    submitFlush("capture.stop", flushedSamples);
+                } else {
+                    submitForTranscription(flushed);
                 }
-                submitForTranscription(segment);
+            } else if (isWhisperActiveEngine()) {
+                submitFlush("capture.stop", 0);
             }
         }
+        if (gate != null) {
+            gate.clear();
+        }
     }
 
-    private void publishCurrentRms(short[] frame) {
-        if (sharedPrefs == null || frame == null || frame.length == 0) return;
+    // 待機後も前回の録音スレッドが動いていれば false を返す。そのスレッドは終了するまで投入元のまま
+    private boolean awaitCaptureThreadExit() {
+        Thread thread = captureThread;
+        if (thread == null) {
+            return true;
+        }
+        try {
+            thread.join(CAPTURE_JOIN_TIMEOUT_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (thread.isAlive()) {
+            return false;
+        }
+        captureThread = null;
+        return true;
+    }
+
+    private void recordFrameFeatures(FrameFeatures features) {
+        capturedFrameCount++;
+        capturedClippedSamples += features.clippedSamples();
+        capturedPeak = Math.max(capturedPeak, features.peak());
+    }
+
+    private void publishCurrentRms(FrameFeatures features) {
+        if (features == null || features.sampleCount() == 0) return;
         long now = System.currentTimeMillis();
         if (now - lastRmsPublishMs < 120L) {
             return;
         }
         lastRmsPublishMs = now;
-        double sum = 0.0;
-        for (short sample : frame) {
-            sum += sample * (double) sample;
-        }
-        float rms = (float) Math.sqrt(sum / frame.length);
-        sharedPrefs.edit().putFloat(PREF_CURRENT_RMS, rms).apply();
+        ServiceTelemetry.getInstance().publishLevel((float) features.rms());
+    }
+
+    private void publishMonitorState(String state) {
+        ServiceTelemetry.getInstance().publishMonitorState(state);
+        // 状態の変化は稀なので保存しておき、新しいUIプロセスでも最後の状態を参照できるようにする
+        try { if (sharedPrefs != null) sharedPrefs.edit().putString(PREF_MON_STATE, state).apply(); } catch (Exception ignored) {}
     }
 
     private String normalizeRecognizedText(String recognizedText) {
@@ -1613,130 +2146,370 @@ public class VoiceListenerService extends Service {
         }
     }
 
-    private void submitForTranscription(short[] segment) {
-        submitForTranscription(segment, false, "segment", 0);
+    private void submitStreamFrame(AudioFramePool.Frame frame) {
+        ensureTranscriptionQueue();
+        long traceId = nextWhisperTraceId();
+        if (spoolIfBacklogged(TranscriptionQueue.Kind.FRAME, traceId, "stream.frame", 0, frame.pcm(), frame.length())) {
+            return;
+        }
+        // フレーム単位の投入はリングに積むだけにし、ログ出力はワーカー側で行う
+        if (!transcriptionQueue.offerFrame(frame, traceId, "stream.frame")) {
+            reportTranscriptionDrop("stream.frame", frame.length());
+        }
+    }
+
+    private void submitForTranscription(PcmSegment segment) {
+        submitForTranscription(segment, 0L);
     }
 
-    private void submitForTranscription(short[] segment, boolean flushOnly, String triggerReason, int relatedSamples) {
-        ensureTranscriptionExecutor();
-        if (transcriptionExecutor == null) return;
+    private void submitForTranscription(PcmSegment segment, long speechEndedAtNs) {
+        ensureTranscriptionQueue();
+        long traceId = nextWhisperTraceId();
+        if (spoolIfBacklogged(TranscriptionQueue.Kind.SEGMENT, traceId, "segment", 0, ShortBuffer.wrap(segment.samples()), segment.length())) {
+            segment.recycle();
+            return;
+        }
+        if (!transcriptionQueue.offerSegment(segment, traceId, "segment", speechEndedAtNs)) {
+            reportTranscriptionDrop("segment", segment.length());
+            segment.recycle();
+        }
+    }
+
+    private void submitFlush(String triggerReason, int relatedSamples) {
+        submitFlush(triggerReason, relatedSamples, 0L);
+    }
 
-        SpeechRecognizerFacade currentFacade = speechRecognizerFacade;
-        EngineType initialEngineType = currentFacade == null ? null : currentFacade.currentEngineType();
-        final long traceId = initialEngineType == EngineType.WHISPER
-            ? whisperTraceCounter.incrementAndGet()
-            : RecognitionTraceContext.NO_TRACE_ID;
-        final int rawSamples = segment == null ? 0 : segment.length;
-        final long queuedAtNs = System.nanoTime();
+    private void submitFlush(String triggerReason, int relatedSamples, long speechEndedAtNs) {
+        submitControl(TranscriptionQueue.Kind.FLUSH, triggerReason, relatedSamples, speechEndedAtNs);
+    }
+
+    private void submitStreamDiscard(String triggerReason) {
+        submitControl(TranscriptionQueue.Kind.DISCARD, triggerReason, 0, 0L);
+    }
 
+    private void submitControl(TranscriptionQueue.Kind kind, String triggerReason, int relatedSamples, long speechEndedAtNs) {
+        ensureTranscriptionQueue();
+        long traceId = nextWhisperTraceId();
         if (traceId != RecognitionTraceContext.NO_TRACE_ID) {
             logWhisperTrace(
                 traceId,
-                flushOnly ? "queue.flush.submit" : "queue.submit",
-                "rawSamples=" + rawSamples
-                    + " rawMs=" + samplesToMillis(rawSamples)
-                    + " trigger=" + triggerReason
+                kind == TranscriptionQueue.Kind.FLUSH ? "queue.flush.submit" : "queue.discard.submit",
+                "trigger=" + triggerReason
                     + " relatedSamples=" + relatedSamples
                     + " relatedMs=" + samplesToMillis(relatedSamples)
-                    + " " + describeExecutorState(transcriptionExecutor)
+                    + " " + describeTranscriptionQueue(transcriptionQueue)
             );
         }
+        if (spoolIfBacklogged(kind, traceId, triggerReason, relatedSamples, null, 0)) {
+            return;
+        }
+        if (!transcriptionQueue.offerControl(kind, traceId, triggerReason, relatedSamples, speechEndedAtNs)) {
+            reportTranscriptionDrop(triggerReason, relatedSamples);
+        }
+    }
 
-        Runnable task = () -> {
-            long taskStartedNs = System.nanoTime();
-            RecognitionTraceContext.set(traceId);
-            try {
-                SpeechRecognizerFacade facade = speechRecognizerFacade; // snapshot to avoid race with release
-                long queueWaitMs = nanosToMillis(taskStartedNs - queuedAtNs);
-                if (facade == null) {
-                    if (traceId != RecognitionTraceContext.NO_TRACE_ID) {
-                        logWhisperTrace(traceId, "queue.skip", "reason=no-facade queueWaitMs=" + queueWaitMs);
-                    }
-                    return;
-                }
-                EngineType engineType = facade.currentEngineType();
-                boolean whisperRequest = engineType == EngineType.WHISPER;
+    private long nextWhisperTraceId() {
+        return isWhisperActiveEngine() ? whisperTraceCounter.incrementAndGet() : RecognitionTraceContext.NO_TRACE_ID;
+    }
+
+    private void reportTranscriptionDrop(String triggerReason, int samples) {
+        long dropped = transcriptionQueue == null ? 0L : transcriptionQueue.droppedCount();
+        if (dropped != 1L && dropped % 50L != 0L) {
+            return;
+        }
+        Log.w(TAG, "Transcription queue full, dropped " + triggerReason + " (total " + dropped + ")");
+        if (isWhisperActiveEngine()) {
+            logWhisperTrace(
+                RecognitionTraceContext.NO_TRACE_ID,
+                "queue.drop",
+                "trigger=" + triggerReason
+                    + " samples=" + samples
+                    + " " + describeTranscriptionQueue(transcriptionQueue)
+            );
+        }
+        try { if (logManager != null) logManager.writeLog("認識キュー満杯のため音声を破棄: 累計" + dropped + "件", false); } catch (Exception ignored) {}
+    }
+
+    private void runTranscriptionWork(TranscriptionQueue.Work work) {
+        long taskStartedNs = System.nanoTime();
+        final long traceId = work.traceId();
+        final TranscriptionQueue.Kind kind = work.kind();
+        final boolean flushOnly = kind == TranscriptionQueue.Kind.FLUSH;
+        final String triggerReason = work.triggerReason();
+        final int rawSamples = work.sampleCount();
+        final int relatedSamples = work.relatedSamples();
+        RecognitionTraceContext.set(traceId);
+        try {
+            SpeechRecognizerFacade facade = speechRecognizerFacade; // snapshot to avoid race with release
+            long queueWaitMs = nanosToMillis(taskStartedNs - work.queuedAtNs());
+            if (facade == null) {
                 if (traceId != RecognitionTraceContext.NO_TRACE_ID) {
-                    logWhisperTrace(
-                        traceId,
-                        flushOnly ? "queue.flush.start" : "queue.start",
-                        "queueWaitMs=" + queueWaitMs
-                            + " engineType=" + engineType
-                            + " rawSamples=" + rawSamples
-                            + " rawMs=" + samplesToMillis(rawSamples)
-                            + " trigger=" + triggerReason
-                            + " relatedSamples=" + relatedSamples
-                            + " relatedMs=" + samplesToMillis(relatedSamples)
-                            + " " + describeExecutorState(transcriptionExecutor)
-                    );
-                }
-                long transcribeStartedNs = System.nanoTime();
-                String recognizedText = flushOnly
-                    ? facade.flush()
-                    : facade.transcribe(segment == null ? new short[0] : segment);
-                long transcribeMs = nanosToMillis(System.nanoTime() - transcribeStartedNs);
-                String normalizedText = normalizeRecognizedText(recognizedText);
-                if (whisperRequest) {
-                    logWhisperTrace(
-                        traceId,
-                        flushOnly ? "queue.flush.result" : "queue.result",
-                        "inputSamples=" + rawSamples
-                            + " inputMs=" + samplesToMillis(rawSamples)
-                            + " trigger=" + triggerReason
-                            + " relatedSamples=" + relatedSamples
-                            + " relatedMs=" + samplesToMillis(relatedSamples)
-                            + " recognizedChars=" + normalizedText.length()
-                            + " empty=" + normalizedText.isEmpty()
-                            + " transcribeMs=" + transcribeMs
-                    );
+                    logWhisperTrace(traceId, "queue.skip", "reason=no-facade queueWaitMs=" + queueWaitMs);
                 }
-                if (normalizedText.isEmpty()) {
-                    return;
-                }
-                handleRecognizedText(normalizedText);
-                if (whisperRequest) {
-                    logWhisperTrace(
-                        traceId,
-                        flushOnly ? "queue.flush.complete" : "queue.complete",
-                        "recognizedChars=" + normalizedText.length()
-                            + " trigger=" + triggerReason
-                            + " totalTaskMs=" + nanosToMillis(System.nanoTime() - taskStartedNs)
-                    );
+                return;
+            }
+            if (kind == TranscriptionQueue.Kind.DISCARD) {
+                facade.discardPending();
+                return;
+            }
+            EngineType engineType = facade.currentEngineType();
+            boolean whisperRequest = engineType == EngineType.WHISPER;
+            if (traceId != RecognitionTraceContext.NO_TRACE_ID) {
+                logWhisperTrace(
+                    traceId,
+                    flushOnly ? "queue.flush.start" : "queue.start",
+                    "queueWaitMs=" + queueWaitMs
+                        + " engineType=" + engineType
+                        + " rawSamples=" + rawSamples
+                        + " rawMs=" + samplesToMillis(rawSamples)
+                        + " trigger=" + triggerReason
+                        + " relatedSamples=" + relatedSamples
+                        + " relatedMs=" + samplesToMillis(relatedSamples)
+                        + " " + describeTranscriptionQueue(transcriptionQueue)
+                );
+            }
+            final long transcribeStartedNs = System.nanoTime();
+            final long speechEndedAtNs = work.speechEndedAtNs();
+            CompletableFuture<RecognitionResult> recognition;
+            if (flushOnly) {
+                recognition = facade.submitFlushResult();
+            } else if (kind == TranscriptionQueue.Kind.FRAME) {
+                recognition = facade.submitResult(work.frame().data(), work.frame().length());
+            } else {
+                // セグメントの配列をそのまま渡す。キューが処理後に recycle() して再利用する
+                PcmSegment segment = work.segment();
+                recognition = facade.submitResult(segment.samples(), segment.length());
+            }
+            // 推論の完了を待たずに次の投入へ進む。結果は推論スレッド側で処理する
+            CompletableFuture<Void> completion = recognition.handle((result, error) -> {
+                boolean foreignThread = RecognitionTraceContext.currentId() != traceId;
+                if (foreignThread) {
+                    RecognitionTraceContext.set(traceId);
                 }
-            } catch (Exception e) {
-                if (traceId != RecognitionTraceContext.NO_TRACE_ID) {
-                    logWhisperTrace(
-                        traceId,
-                        "queue.error",
-                        "error=" + e.getClass().getSimpleName() + ":" + String.valueOf(e.getMessage())
-                            + " totalTaskMs=" + nanosToMillis(System.nanoTime() - taskStartedNs)
-                    );
+                try {
+                    if (error != null) {
+                        reportTranscriptionFailure(traceId, unwrapCompletion(error), taskStartedNs);
+                    } else {
+                        completeTranscriptionWork(
+                            traceId,
+                            flushOnly,
+                            whisperRequest,
+                            triggerReason,
+                            rawSamples,
+                            relatedSamples,
+                            speechEndedAtNs,
+                            transcribeStartedNs,
+                            taskStartedNs,
+                            result
+                        );
+                    }
+                } catch (Exception e) {
+                    reportTranscriptionFailure(traceId, e, taskStartedNs);
+                } finally {
+                    if (foreignThread) {
+                        RecognitionTraceContext.clear();
+                    }
                 }
-                Log.e(TAG, "Transcription task failed", e);
-                try { if (logManager != null) logManager.writeLog("Transcription例外: " + e.getMessage()); } catch (Exception ignored) {}
-            } finally {
-                RecognitionTraceContext.clear();
-            }
-        };
+                return null;
+            });
+            trackInFlightRecognition(completion);
+        } catch (Exception e) {
+            reportTranscriptionFailure(traceId, e, taskStartedNs);
+        } finally {
+            RecognitionTraceContext.clear();
+        }
+    }
+
+    private void completeTranscriptionWork(
+        long traceId,
+        boolean flushOnly,
+        boolean whisperRequest,
+        String triggerReason,
+        int rawSamples,
+        int relatedSamples,
+        long speechEndedAtNs,
+        long transcribeStartedNs,
+        long taskStartedNs,
+        RecognitionResult result
+    ) {
+        long transcribeMs = nanosToMillis(System.nanoTime() - transcribeStartedNs);
+        long eouMs = speechEndedAtNs > 0L ? nanosToMillis(System.nanoTime() - speechEndedAtNs) : -1L;
+        if (eouMs >= 0L) {
+            recordEndOfUtteranceLatency(eouMs);
+        }
+        String normalizedText = normalizeRecognizedText(result == null ? null : result.getText());
+        if (whisperRequest) {
+            scheduleWhisperModelAdaptation(traceId);
+            float confidence = result == null ? Float.NaN : result.confidence();
+            logWhisperTrace(
+                traceId,
+                flushOnly ? "queue.flush.result" : "queue.result",
+                "inputSamples=" + rawSamples
+                    + " inputMs=" + samplesToMillis(rawSamples)
+                    + " trigger=" + triggerReason
+                    + " relatedSamples=" + relatedSamples
+                    + " relatedMs=" + samplesToMillis(relatedSamples)
+                    + " recognizedChars=" + normalizedText.length()
+                    + " empty=" + normalizedText.isEmpty()
+                    + " segments=" + (result == null ? 0 : result.getSegments().size())
+                    + " confidence=" + String.format(Locale.US, "%.3f", confidence)
+                    + " noSpeech=" + (result != null && result.getNoSpeech())
+                    + " transcribeMs=" + transcribeMs
+                    + " eouMs=" + eouMs
+            );
+        }
+        if (normalizedText.isEmpty()) {
+            return;
+        }
+        handleRecognizedText(normalizedText);
+        if (whisperRequest) {
+            logWhisperTrace(
+                traceId,
+                flushOnly ? "queue.flush.complete" : "queue.complete",
+                "recognizedChars=" + normalizedText.length()
+                    + " trigger=" + triggerReason
+                    + " totalTaskMs=" + nanosToMillis(System.nanoTime() - taskStartedNs)
+            );
+        }
+    }
 
+    private void scheduleWhisperModelAdaptation(long traceId) {
         try {
-            transcriptionExecutor.execute(task);
-        } catch (RejectedExecutionException ex) {
-            if (traceId != RecognitionTraceContext.NO_TRACE_ID) {
-                logWhisperTrace(traceId, "queue.reject", "phase=initial " + describeExecutorState(transcriptionExecutor));
+            modelAdaptExecutor.execute(() -> adaptWhisperModelToLoad(traceId));
+        } catch (RejectedExecutionException ignored) {
+            // サービス終了中
+        }
+    }
+
+    // 推論が実時間に追いつかない状態が続けば小さいモデルへ、余裕があり端末も熱くなければ元のモデルへ戻す
+    private void adaptWhisperModelToLoad(long traceId) {
+        SpeechRecognizerFacade facade = speechRecognizerFacade;
+        if (facade == null || facade.currentEngineType() != EngineType.WHISPER || facade.isEngineLoading()) {
+            return;
+        }
+        RecognizerLoad load = facade.loadSnapshot();
+        if (load == null || load.getModelPath() == null) {
+            return;
+        }
+        int thermalStatus = currentThermalStatus();
+        long nowMs = nanosToMillis(System.nanoTime());
+        ModelLoadController.Decision decision;
+        String controllerState;
+        synchronized (modelLoadController) {
+            if (load.getWindows() == adaptiveWindowsSeen) {
+                return;
             }
-            Log.w(TAG, "Transcription executor rejected task, recreating executor");
-            ensureTranscriptionExecutor();
-            try {
-                transcriptionExecutor.execute(task);
-            } catch (RejectedExecutionException e) {
-                if (traceId != RecognitionTraceContext.NO_TRACE_ID) {
-                    logWhisperTrace(traceId, "queue.reject", "phase=after-recreate " + describeExecutorState(transcriptionExecutor));
-                }
-                Log.e(TAG, "Transcription task dropped after executor recreate", e);
-                try { if (logManager != null) logManager.writeLog("Transcription投入失敗: " + e.getMessage(), false); } catch (Exception ignored) {}
+            adaptiveWindowsSeen = load.getWindows();
+            decision = modelLoadController.onWindowDecoded(load.getLastRtf(), load.getQueuedWindows(), thermalStatus, nowMs);
+            controllerState = modelLoadController.describe();
+            if (decision != ModelLoadController.Decision.HOLD) {
+                modelLoadController.onSwitched(nowMs);
             }
         }
+        if (decision == ModelLoadController.Decision.HOLD) {
+            return;
+        }
+
+        String currentModel = new File(load.getModelPath()).getName();
+        List<String> ladder = WhisperModelManager.modelLadder(
+            WhisperModelManager.listDownloadedModelNames(this),
+            name -> {
+                File file = WhisperModelManager.getModelFileForName(this, name);
+                return file == null ? 0L : file.length();
+            }
+        );
+        // 利用者が選んだモデルより大きいモデルには上げない
+        File preferredFile = WhisperModelManager.resolvePreferredDownloadedModelFile(this);
+        int ceiling = preferredFile == null ? ladder.size() - 1 : ladder.indexOf(preferredFile.getName());
+        int currentIndex = ladder.indexOf(currentModel);
+        int targetIndex = decision == ModelLoadController.Decision.DOWNGRADE ? currentIndex - 1 : currentIndex + 1;
+        String details = "decision=" + decision
+            + " from=" + currentModel
+            + " lastRtf=" + String.format(Locale.US, "%.3f", load.getLastRtf())
+            + " " + controllerState
+            + " queuedWindows=" + load.getQueuedWindows()
+            + " pendingSamples=" + load.getPendingSamples()
+            + " thermalStatus=" + thermalStatus
+            + " ladder=" + ladder;
+        if (currentIndex < 0 || targetIndex < 0 || targetIndex >= ladder.size() || (ceiling >= 0 && targetIndex > ceiling)) {
+            logWhisperTrace(traceId, "model.adapt.limit", details);
+            return;
+        }
+        File targetFile = WhisperModelManager.getModelFileForName(this, ladder.get(targetIndex));
+        if (targetFile == null || !WhisperModelManager.hasModelContent(targetFile)) {
+            logWhisperTrace(traceId, "model.adapt.limit", details + " missing=" + ladder.get(targetIndex));
+            return;
+        }
+        logWhisperTrace(traceId, "model.adapt", details + " to=" + targetFile.getName());
+        try {
+            if (logManager != null) {
+                logManager.writeLog(
+                    (decision == ModelLoadController.Decision.DOWNGRADE ? "推論負荷が高いためモデルを切り替えます: " : "負荷が下がったためモデルを戻します: ")
+                        + currentModel + " -> " + targetFile.getName(),
+                    false
+                );
+            }
+        } catch (Exception ignored) {
+        }
+        initializeWhisperEngineWithModel(targetFile, false);
+    }
+
+    private int currentThermalStatus() {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.Q) {
+            return ModelLoadController.THERMAL_STATUS_NONE;
+        }
+        PowerManager powerManager = (PowerManager) getSystemService(POWER_SERVICE);
+        return powerManager == null ? ModelLoadController.THERMAL_STATUS_NONE : powerManager.getCurrentThermalStatus();
+    }
+
+    private void reportTranscriptionFailure(long traceId, Throwable e, long taskStartedNs) {
+        if (traceId != RecognitionTraceContext.NO_TRACE_ID) {
+            logWhisperTrace(
+                traceId,
+                "queue.error",
+                "error=" + e.getClass().getSimpleName() + ":" + String.valueOf(e.getMessage())
+                    + " totalTaskMs=" + nanosToMillis(System.nanoTime() - taskStartedNs)
+            );
+        }
+        Log.e(TAG, "Transcription task failed", e);
+        try { if (logManager != null) logManager.writeLog("Transcription例外: " + e.getMessage()); } catch (Exception ignored) {}
+    }
+
+    private static Throwable unwrapCompletion(Throwable error) {
+        if (error instanceof CompletionException && error.getCause() != null) {
+            return error.getCause();
+        }
+        return error;
+    }
+
+    // 文字起こしワーカー専用。推論より先行できる投入数を制限し、遅いエンジンでも上限のない実行キューではなくリングとスプールに滞留させる
+    private void trackInFlightRecognition(CompletableFuture<Void> completion) {
+        if (completion.isDone()) {
+            return;
+        }
+        lastRecognitionCompletion = completion;
+        while (!inFlightRecognitions.isEmpty() && inFlightRecognitions.peekFirst().isDone()) {
+            inFlightRecognitions.pollFirst();
+        }
+        inFlightRecognitions.addLast(completion);
+        while (inFlightRecognitions.size() > MAX_IN_FLIGHT_RECOGNITIONS) {
+            inFlightRecognitions.pollFirst().join();
+        }
+    }
+
+    // 結果は投入順に完了するので、最後の1件を待てばそれ以前もすべて終わっている
+    private void awaitInFlightRecognitions(long timeout, TimeUnit unit) {
+        CompletableFuture<Void> last = lastRecognitionCompletion;
+        if (last == null) {
+            return;
+        }
+        try {
+            last.get(timeout, unit);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            Log.w(TAG, "In-flight recognition did not finish", e);
+        }
     }
 
     private void stopAudioCapture() {
@@ -1752,13 +2525,13 @@ public class VoiceListenerService extends Service {
             }
         }
 
-        if (captureThread != null) {
-            try {
-                captureThread.join(1000);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-            }
-            captureThread = null;
+        if (!awaitCaptureThreadExit()) {
+            // 最後のフラッシュ、統計ログ、ノイズフロアの保存は録音スレッドが終了時に行うので、ここでは触れない
+            logWhisperTrace(
+                RecognitionTraceContext.NO_TRACE_ID,
+                "capture.stop.detached",
+                "joinMs=" + CAPTURE_JOIN_TIMEOUT_MS + " " + describeTranscriptionQueue(transcriptionQueue)
+            );
         }
 
         if (audioRecord != null) {
@@ -1768,26 +2541,39 @@ public class VoiceListenerService extends Service {
         }
         releaseRunLocks();
 
-        if (vad != null) {
-            short[] flushed = vad.flush();
-            if (flushed != null && flushed.length > 0) {
-                if (isWhisperActiveEngine()) {
-                    logWhisperTrace(
-                        RecognitionTraceContext.NO_TRACE_ID,
-                        "segment.flush",
-                        "samples=" + flushed.length
-                            + " segmentMs=" + samplesToMillis(flushed.length)
-                            + " flushReason=capture.stop"
-                    );
-                    submitForTranscription(null, true, "capture.stop", flushed.length);
-                } else {
-                    submitForTranscription(flushed);
-                }
-            } else if (isWhisperActiveEngine()) {
-                submitForTranscription(null, true, "capture.stop", 0);
-            }
+        ServiceTelemetry.getInstance().publishLevel(0f);
+        runPendingCalibration();
+    }
+
+    private synchronized void resetEndOfUtteranceStats() {
+        endpointCount = 0L;
+        endpointTotalMs = 0L;
+        endpointMaxMs = 0L;
+    }
+
+    private synchronized void recordEndOfUtteranceLatency(long eouMs) {
+        endpointCount++;
+        endpointTotalMs += eouMs;
+        endpointMaxMs = Math.max(endpointMaxMs, eouMs);
+    }
+
+    // 設定ごとの比較用に、発話終了から認識結果までの遅延とフレーム処理のCPU時間をまとめて出す
+    private synchronized void logVadTimingSummary() {
+        if (capturedFrameCount == 0L) {
+            return;
+        }
+        double audioSeconds = capturedFrameCount * vadTiming.frameMs() / 1000.0d;
+        String summary = vadTiming.describe()
+            + " eouCount=" + endpointCount
+            + " eouAvgMs=" + (endpointCount == 0L ? 0L : endpointTotalMs / endpointCount)
+            + " eouMaxMs=" + endpointMaxMs
+            + " cpuUsPerFrame=" + captureCpuNanos / capturedFrameCount / 1000L
+            + " cpuMsPerAudioSecond=" + String.format(Locale.US, "%.2f", nanosToMillis(captureCpuNanos) / audioSeconds);
+        if (isWhisperActiveEngine()) {
+            logWhisperTrace(RecognitionTraceContext.NO_TRACE_ID, "vad.timing", summary);
+        } else {
+            try { if (logManager != null) logManager.writeLog("VAD計測: " + summary, false); } catch (Exception ignored) {}
         }
-        try { if (sharedPrefs != null) sharedPrefs.edit().putFloat(PREF_CURRENT_RMS, 0f).apply(); } catch (Exception ignored) {}
     }
 
     private boolean isWhisperActiveEngine() {
@@ -1814,13 +2600,14 @@ public class VoiceListenerService extends Service {
         return Math.round(sampleCount * 1000.0d / SAMPLE_RATE_HZ);
     }
 
-    private static String describeExecutorState(ThreadPoolExecutor executor) {
-        if (executor == null) {
-            return "queue=na active=na completed=na";
+    private static String describeTranscriptionQueue(TranscriptionQueue queue) {
+        if (queue == null) {
+            return "queue=na highWater=na dropped=na completed=na";
         }
-        return "queue=" + executor.getQueue().size()
-            + " active=" + executor.getActiveCount()
-            + " completed=" + executor.getCompletedTaskCount();
+        return "queue=" + queue.depth()
+            + " highWater=" + queue.highWaterMark()
+            + " dropped=" + queue.droppedCount()
+            + " completed=" + queue.completedCount();
     }
 
     private AudioRecord createAudioRecord(int recordBufferBytes) {
@@ -29,12 +29,15 @@ class VoskEngine(private val modelPath: String) : SpeechRecognizerEngine {
         }
     }
 
-    override fun transcribe(buffer: ShortArray): String = lock.withLock {
+    override fun transcribe(buffer: ShortArray): String = transcribe(buffer, buffer.size)
+
+    override fun transcribe(buffer: ShortArray, length: Int): String = lock.withLock {
+        require(length in 0..buffer.size) { "Sample count exceeds buffer: $length" }
         val engine = delegate ?: return ""
-        if (!started || buffer.isEmpty()) {
+        if (!started || length == 0) {
             return ""
         }
-        return engine.transcribe(buffer, SAMPLE_RATE_HZ).orEmpty()
+        return engine.transcribe(buffer, length, SAMPLE_RATE_HZ).orEmpty()
     }
 
     override fun release() {
@@ -40,14 +40,22 @@ public class VoskOfflineAsrEngine implements OfflineAsrEngine {
     }
 
     @Override
-    public synchronized String transcribe(short[] pcm16, int sampleRateHz) {
-        if (recognizer == null || pcm16 == null || pcm16.length == 0) {
+    public String transcribe(short[] pcm16, int sampleRateHz) {
+        return transcribe(pcm16, pcm16 == null ? 0 : pcm16.length, sampleRateHz);
+    }
+
+    // Reads samples [0, length) only, so a longer pooled buffer can be passed without trimming it.
+    public synchronized String transcribe(short[] pcm16, int length, int sampleRateHz) {
+        if (recognizer == null || pcm16 == null || length <= 0) {
             return null;
         }
+        if (length > pcm16.length) {
+            throw new IllegalArgumentException("Sample count exceeds buffer: " + length);
+        }
 
         try {
-            byte[] audioBytes = toLittleEndianBytes(pcm16);
-            recognizer.acceptWaveForm(audioBytes, pcm16.length * 2);
+            byte[] audioBytes = toLittleEndianBytes(pcm16, length);
+            recognizer.acceptWaveForm(audioBytes, length * 2);
             String resultJson = recognizer.getFinalResult();
             return parseText(resultJson);
         } catch (Exception e) {
@@ -73,13 +81,14 @@ public class VoskOfflineAsrEngine implements OfflineAsrEngine {
         return "Vosk";
     }
 
-    private byte[] toLittleEndianBytes(short[] pcm16) {
-        int requiredSize = pcm16.length * 2;
+    private byte[] toLittleEndianBytes(short[] pcm16, int length) {
+        int requiredSize = length * 2;
         if (reusableAudioBytes.length < requiredSize) {
             reusableAudioBytes = new byte[requiredSize];
         }
         int offset = 0;
-        for (short sample : pcm16) {
+        for (int index = 0; index < length; index++) {
+            short sample = pcm16[index];
             reusableAudioBytes[offset++] = (byte) (sample & 0xFF);
             reusableAudioBytes[offset++] = (byte) ((sample >> 8) & 0xFF);
         }
@@ -1,81 +1,170 @@
 package com.micklab.voicelistener
 
 import android.util.Log
+import java.nio.ByteBuffer
 import kotlin.concurrent.withLock
-import java.util.ArrayDeque
-import java.util.concurrent.Callable
+import java.util.Locale
+import java.util.concurrent.CompletableFuture
 import java.util.concurrent.ExecutionException
+import java.util.concurrent.Executors
 import java.util.concurrent.Future
 import java.util.concurrent.LinkedBlockingQueue
+import java.util.concurrent.RejectedExecutionException
 import java.util.concurrent.ThreadPoolExecutor
 import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent.atomic.AtomicLong
 import java.util.concurrent.locks.ReentrantLock
 
 class WhisperEngine @JvmOverloads constructor(
     private val sampleRateHz: Int = 16_000,
     private val language: String = "ja",
-    private val threadCount: Int = SpeechRecognizerConfig.defaultThreadCount()
+    private val threadCount: Int = SpeechRecognizerConfig.defaultThreadCount(),
+    private val coreMask: Long = 0L,
+    private val reducedAudioContext: Boolean = true,
+    private val decoderStates: Int = SpeechRecognizerConfig.defaultDecoderStates(),
+    private val warmup: Boolean = true,
+    private val profile: WhisperInferenceProfile = WhisperInferenceProfile.BALANCED
 ) : SpeechRecognizerEngine {
+    // The profile can only narrow the encoder context; ACCURACY always decodes with the full 30 s.
+    private val effectiveReducedAudioContext = reducedAudioContext && profile.reducedAudioContext
     private val lock = ReentrantLock()
+    private val inferenceThreadCount = AtomicInteger(0)
+    private val noSpeechWindows = AtomicLong(0L)
+    // One thread per native decoder state; windows cut back to back decode side by side.
     private val inferenceExecutor = ThreadPoolExecutor(
-        1,
-        1,
+        decoderStates.coerceAtLeast(1),
+        decoderStates.coerceAtLeast(1),
         0L,
         TimeUnit.MILLISECONDS,
         LinkedBlockingQueue<Runnable>()
     ) { runnable ->
-        Thread(runnable, INFERENCE_THREAD_NAME).apply {
+        // Pinned before the first decode so ggml's worker threads inherit the mask.
+        val pinned = Runnable {
+            if (coreMask != 0L && !nativeSetThreadAffinity(coreMask)) {
+                Log.w(TAG, "Failed to pin Whisper inference thread to coreMask=${java.lang.Long.toHexString(coreMask)}")
+            }
+            runnable.run()
+        }
+        Thread(pinned, "$INFERENCE_THREAD_NAME-${inferenceThreadCount.incrementAndGet()}").apply {
             isDaemon = false
         }
     }
-    private val retryBuffer = WhisperRecognitionBuffer(RETRY_RETAIN_SAMPLES)
-    private val pendingChunks = ArrayDeque<ShortArray>()
-
     private var nativeHandle: Long = 0L
     private var loadedModelPath: String? = null
     private var started = false
-    private var pendingSampleCount = 0
+    // Guarded by lock. Tracks audio pushed but not yet handed to a decode.
+    private val windowPolicy = AdaptiveWindowPolicy(sampleRateHz)
+    // Guarded by lock. Completes after every window dispatched so far, in cut order.
+    private var orderedTail: CompletableFuture<*> = CompletableFuture.completedFuture(null)
+    // Guarded by lock. A loaded model waiting for the stream to reach a window boundary.
+    private var pendingHandle: Long = 0L
+    private var pendingModelPath: String? = null
+    private var pendingWarmupMs = NOT_WARMED_UP
+    private var latestLoadSeq = 0L
+    // Guarded by lock. The first window decoded on a freshly swapped-in handle is the cold decode;
+    // it is kept out of the warm averages so the two latencies can be compared.
+    private var coldHandle: Long = 0L
+    private var currentWarmupMs = NOT_WARMED_UP
+    private var coldDecodeMs = -1L
+    private var coldRtf = 0.0
+    private var warmDecodes = 0L
+    private var warmDecodeNs = 0L
+    private var warmDecodeSamples = 0L
+    private val loaderExecutor = Executors.newSingleThreadExecutor { runnable ->
+        Thread(runnable, LOADER_THREAD_NAME).apply {
+            isDaemon = true
+        }
+    }
 
     fun loadModel(modelPath: String) {
+        awaitLoad(loadModelAsync(modelPath))
+    }
+
+    // Loads on the loader thread while the current handle keeps transcribing. The new handle is
+    // swapped in at the next window boundary, and the old one is freed once its decodes drain.
+    fun loadModelAsync(modelPath: String): CompletableFuture<Void?> {
         require(modelPath.isNotBlank()) { "Whisper model path must not be blank." }
         val enteredNs = System.nanoTime()
-        lock.withLock {
+        val loadSeq = lock.withLock {
             val lockWaitMs = elapsedMs(enteredNs)
-            if (nativeHandle != 0L && loadedModelPath == modelPath) {
+            if (nativeHandle != 0L && loadedModelPath == modelPath && pendingHandle == 0L) {
                 logWhisperPerf(
                     "engine.load.reuse",
                     "path=$modelPath lockWaitMs=$lockWaitMs sampleRateHz=$sampleRateHz language=$language threadCount=$threadCount"
                 )
-                return
+                return CompletableFuture.completedFuture(null)
             }
             check(!inferenceExecutor.isShutdown) { "Whisper inference executor is shut down." }
+            ++latestLoadSeq
+        }
+        return CompletableFuture.runAsync({
             val nativeStartedNs = System.nanoTime()
-            val nextHandle = nativeLoadModel(modelPath, sampleRateHz, language, threadCount)
+            val nextHandle = nativeLoadModel(
+                modelPath,
+                sampleRateHz,
+                language,
+                threadCount,
+                profile.name,
+                profile.beamSize,
+                profile.temperatureIncrement,
+                profile.flashAttention,
+                profile.maxTokens,
+                profile.segmentTimestamps
+            )
             check(nextHandle != 0L) { "Failed to load Whisper model: $modelPath" }
+            nativeStreamConfigure(
+                nextHandle,
+                windowPolicy.maxWindowSamples,
+                RETRY_RETAIN_SAMPLES,
+                effectiveReducedAudioContext,
+                decoderStates
+            )
             val nativeLoadMs = elapsedMs(nativeStartedNs)
-
-            val previousHandle = nativeHandle
-            nativeHandle = nextHandle
-            loadedModelPath = modelPath
-            clearStreamingState()
-
-            if (previousHandle != 0L) {
-                nativeRelease(previousHandle)
+            // Still on the loader thread: the handle only goes live once its states are warm.
+            val warmupMs = if (warmup) nativeWarmup(nextHandle) else NOT_WARMED_UP
+            lock.withLock {
+                if (loadSeq != latestLoadSeq || inferenceExecutor.isShutdown) {
+                    // A newer load or release() overtook this one.
+                    nativeRelease(nextHandle)
+                    logWhisperPerf("engine.load.superseded", "path=$modelPath nativeLoadMs=$nativeLoadMs")
+                    return@runAsync
+                }
+                if (pendingHandle != 0L) {
+                    nativeRelease(pendingHandle)
+                }
+                pendingHandle = nextHandle
+                pendingModelPath = modelPath
+                pendingWarmupMs = warmupMs
+                logWhisperPerf(
+                    "engine.load",
+                    "path=$modelPath sampleRateHz=$sampleRateHz language=$language threadCount=$threadCount coreMask=${java.lang.Long.toHexString(coreMask)} decoderStates=$decoderStates profile=$profile reducedAudioContext=$effectiveReducedAudioContext nativeLoadMs=$nativeLoadMs warmupMs=$warmupMs replacesHandle=${nativeHandle != 0L}"
+                )
+                swapAtBoundaryLocked("load")
             }
-            logWhisperPerf(
-                "engine.load",
-                "path=$modelPath sampleRateHz=$sampleRateHz language=$language threadCount=$threadCount lockWaitMs=$lockWaitMs nativeLoadMs=$nativeLoadMs replacedHandle=${previousHandle != 0L}"
-            )
             Log.i(TAG, "Whisper model loaded: $modelPath")
+        }, loaderExecutor)
+    }
+
+    // Times the fixed native calibration clip on the loaded model. Only for an engine that is not
+    // transcribing; returns -1 if inference failed.
+    fun benchmark(setting: ThreadSetting): Long {
+        val handle = lock.withLock {
+            swapAtBoundaryLocked("benchmark")
+            check(nativeHandle != 0L) { "Whisper model is not loaded." }
+            check(!started) { "Whisper engine is transcribing." }
+            nativeHandle
         }
+        return nativeBenchmark(handle, setting.threadCount, setting.coreMask)
     }
 
     override fun start() {
         lock.withLock {
+            swapAtBoundaryLocked("start")
             check(nativeHandle != 0L) { "Whisper model is not loaded." }
             started = true
             clearStreamingState()
-            logWhisperPerf("engine.start", "hasHandle=${nativeHandle != 0L} modelPath=$loadedModelPath")
+            logWhisperPerf("engine.start", "hasHandle=${nativeHandle != 0L} modelPath=$loadedModelPath warmupMs=$currentWarmupMs")
         }
     }
 
@@ -83,65 +172,116 @@ class WhisperEngine @JvmOverloads constructor(
         lock.withLock {
             started = false
             clearStreamingState()
+            swapAtBoundaryLocked("stop")
+            NativePerfEvents.drain()
             logWhisperPerf("engine.stop", "hasHandle=${nativeHandle != 0L} modelPath=$loadedModelPath")
+            if (windowPolicy.windowCount > 0L) {
+                logWhisperPerf(
+                    "engine.window.summary",
+                    "profile=$profile ${windowPolicy.describe()} noSpeechWindows=${noSpeechWindows.get()} ${describeLatencyLocked()}"
+                )
+            }
         }
     }
 
-    override fun transcribe(buffer: ShortArray): String {
+    override fun transcribe(buffer: ShortArray): String = awaitResult(submit(buffer))
+
+    override fun flush(): String = awaitResult(submitFlush())
+
+    override fun submit(buffer: ShortArray): CompletableFuture<String> = submitResult(buffer).thenApply { it.text }
+
+    override fun submitFlush(): CompletableFuture<String> = submitFlushResult().thenApply { it.text }
+
+    // The lock covers only the state check, the push and the cut; decoding runs on the inference
+    // pool and the caller is never parked behind it.
+    override fun submitResult(buffer: ShortArray): CompletableFuture<RecognitionResult> =
+        submitResult(buffer, buffer.size)
+
+    override fun submitResult(buffer: ShortArray, length: Int): CompletableFuture<RecognitionResult> {
+        require(length in 0..buffer.size) { "Sample count exceeds buffer: $length" }
+        return submitSamples(length) { handle -> nativeStreamPush(handle, buffer, length) }
+    }
+
+    // Read in place through GetDirectBufferAddress; the only copy is the float conversion on push.
+    override fun submitResult(pcm: ByteBuffer, sampleCount: Int): CompletableFuture<RecognitionResult> {
+        require(pcm.isDirect) { "PCM buffer must be direct." }
+        require(sampleCount <= pcm.capacity() / 2) { "Sample count exceeds buffer: $sampleCount" }
+        return submitSamples(sampleCount) { handle -> nativeStreamPushDirect(handle, pcm, sampleCount) }
+    }
+
+    private fun submitSamples(sampleCount: Int, push: (Long) -> Int): CompletableFuture<RecognitionResult> {
         val enteredNs = System.nanoTime()
-        return lock.withLock {
+        lock.withLock {
             val lockWaitMs = elapsedMs(enteredNs)
-            if (!started || nativeHandle == 0L || buffer.isEmpty()) {
+            if (!started || nativeHandle == 0L || sampleCount <= 0) {
                 logWhisperPerf(
                     "engine.transcribe.skip",
-                    "samples=${buffer.size} lockWaitMs=$lockWaitMs started=$started hasHandle=${nativeHandle != 0L}"
+                    "samples=$sampleCount lockWaitMs=$lockWaitMs started=$started hasHandle=${nativeHandle != 0L}"
                 )
-                return ""
+                return CompletableFuture.completedFuture(RecognitionResult.EMPTY)
             }
 
+            swapAtBoundaryLocked("submit")
+            val handle = nativeHandle
             val traceId = RecognitionTraceContext.currentId()
             val submittedAtMs = System.currentTimeMillis()
             val queueLength = inferenceExecutor.queue.size
+            val nativePendingSamples = push(handle)
+            val nowNs = System.nanoTime()
+            // The native session is the source of truth; a clamped or dropped push must not leave the
+            // policy counting audio that is not there, or missing audio that is.
+            windowPolicy.syncPending(nativePendingSamples, nowNs)
+            val takeSamples = windowPolicy.nextWindow(nowNs)
             logWhisperPerfTrace(
                 traceId,
                 "engine.chunk.submit",
-                "submittedAtMs=$submittedAtMs chunkSamples=${buffer.size} chunkMs=${samplesToMillis(buffer.size)} queueLength=$queueLength pendingSamples=$pendingSampleCount"
+                "submittedAtMs=$submittedAtMs chunkSamples=$sampleCount chunkMs=${samplesToMillis(sampleCount)} queueLength=$queueLength pendingSamples=$nativePendingSamples takeSamples=$takeSamples lockWaitMs=$lockWaitMs"
             )
-
-            val batchStartedNs = System.nanoTime()
-            val batchResult = awaitBatchResult(
-                inferenceExecutor.submit(Callable {
-                    enqueueAndProcess(buffer, traceId, queueLength)
-                })
-            )
-            val batchMs = elapsedMs(batchStartedNs)
-            val finishedAtMs = System.currentTimeMillis()
-            logWhisperPerfTrace(
-                traceId,
-                "engine.transcribe",
-                "submittedAtMs=$submittedAtMs finishedAtMs=$finishedAtMs samples=${buffer.size} bufferMs=${samplesToMillis(buffer.size)} chars=${batchResult.text.length} lockWaitMs=$lockWaitMs batchMs=$batchMs nativeCalls=${batchResult.nativeCalls} queueLength=$queueLength pendingSamples=${batchResult.pendingSamples}"
-            )
-            batchResult.text
+            if (takeSamples == 0) {
+                return CompletableFuture.completedFuture(RecognitionResult.EMPTY)
+            }
+            val job = nativeStreamCut(handle, takeSamples, false)
+            if (job == 0L) {
+                return CompletableFuture.completedFuture(RecognitionResult.EMPTY)
+            }
+            windowPolicy.commitWindow(takeSamples, nowNs)
+
+            val trigger = windowPolicy.lastTrigger
+            val targetSamples = windowPolicy.targetWindowSamples
+            val submittedNs = System.nanoTime()
+            return dispatchWindow(job) {
+                val batchResult = decodeWindow(handle, job, takeSamples, trigger, targetSamples, traceId, queueLength)
+                logWhisperPerfTrace(
+                    traceId,
+                    "engine.transcribe",
+                    "submittedAtMs=$submittedAtMs finishedAtMs=${System.currentTimeMillis()} samples=$sampleCount bufferMs=${samplesToMillis(sampleCount)} chars=${batchResult.result.text.length} segments=${batchResult.result.segments.size} lockWaitMs=$lockWaitMs batchMs=${elapsedMs(submittedNs)} nativeCalls=${batchResult.nativeCalls} queueLength=$queueLength pendingSamples=${batchResult.pendingSamples} noSpeech=${batchResult.result.noSpeech}"
+                )
+                batchResult.result
+            }
         }
     }
 
-    override fun flush(): String {
+    override fun submitFlushResult(): CompletableFuture<RecognitionResult> {
         val enteredNs = System.nanoTime()
-        return lock.withLock {
+        lock.withLock {
             val lockWaitMs = elapsedMs(enteredNs)
             if (!started || nativeHandle == 0L) {
                 logWhisperPerf(
                     "engine.flush.skip",
                     "lockWaitMs=$lockWaitMs started=$started hasHandle=${nativeHandle != 0L}"
                 )
-                return ""
+                return CompletableFuture.completedFuture(RecognitionResult.EMPTY)
             }
-            if (pendingSampleCount == 0 && !retryBuffer.hasPendingAudio()) {
+            val handle = nativeHandle
+            val retrySamples = nativeStreamRetainedSamples(handle)
+            val flushedSamples = windowPolicy.takeAll()
+            if (flushedSamples == 0 && retrySamples == 0) {
                 logWhisperPerf(
                     "engine.flush.skip",
                     "lockWaitMs=$lockWaitMs reason=no-pending-audio"
                 )
-                return ""
+                swapAtBoundaryLocked("flush")
+                return CompletableFuture.completedFuture(RecognitionResult.EMPTY)
             }
 
             val traceId = RecognitionTraceContext.currentId()
@@ -150,23 +290,48 @@ class WhisperEngine @JvmOverloads constructor(
             logWhisperPerfTrace(
                 traceId,
                 "engine.flush.submit",
-                "submittedAtMs=$submittedAtMs queueLength=$queueLength pendingSamples=$pendingSampleCount retrySamples=${retryBuffer.pendingSampleCount()}"
+                "submittedAtMs=$submittedAtMs queueLength=$queueLength pendingSamples=$flushedSamples retrySamples=$retrySamples"
             )
 
-            val flushStartedNs = System.nanoTime()
-            val batchResult = awaitBatchResult(
-                inferenceExecutor.submit(Callable {
-                    flushBufferedAudio(traceId, queueLength)
-                })
-            )
-            val flushMs = elapsedMs(flushStartedNs)
-            val finishedAtMs = System.currentTimeMillis()
-            logWhisperPerfTrace(
-                traceId,
-                "engine.flush",
-                "submittedAtMs=$submittedAtMs finishedAtMs=$finishedAtMs chars=${batchResult.text.length} lockWaitMs=$lockWaitMs flushMs=$flushMs nativeCalls=${batchResult.nativeCalls} queueLength=$queueLength pendingSamples=${batchResult.pendingSamples}"
+            val job = nativeStreamCut(handle, 0, true)
+            if (job == 0L) {
+                return CompletableFuture.completedFuture(RecognitionResult.EMPTY)
+            }
+            val submittedNs = System.nanoTime()
+            val flushed = dispatchWindow(job) {
+                val batchResult = flushBufferedAudio(handle, job, flushedSamples, retrySamples, traceId, queueLength)
+                logWhisperPerfTrace(
+                    traceId,
+                    "engine.flush",
+                    "submittedAtMs=$submittedAtMs finishedAtMs=${System.currentTimeMillis()} chars=${batchResult.result.text.length} segments=${batchResult.result.segments.size} lockWaitMs=$lockWaitMs flushMs=${elapsedMs(submittedNs)} nativeCalls=${batchResult.nativeCalls} queueLength=$queueLength pendingSamples=${batchResult.pendingSamples} noSpeech=${batchResult.result.noSpeech}"
+                )
+                batchResult.result
+            }
+            swapAtBoundaryLocked("flush")
+            return flushed
+        }
+    }
+
+    override fun loadSnapshot(): RecognizerLoad = lock.withLock {
+        RecognizerLoad(
+            windows = windowPolicy.windowCount,
+            lastRtf = windowPolicy.lastRtf,
+            queuedWindows = inferenceExecutor.queue.size + inferenceExecutor.activeCount,
+            pendingSamples = windowPolicy.pendingSamples,
+            modelPath = loadedModelPath
+        )
+    }
+
+    override fun discardPending() {
+        lock.withLock {
+            val droppedSamples = windowPolicy.pendingSamples
+            val droppedRetrySamples = if (nativeHandle != 0L) nativeStreamRetainedSamples(nativeHandle) else 0
+            clearStreamingState()
+            swapAtBoundaryLocked("discard")
+            logWhisperPerf(
+                "engine.discard",
+                "droppedSamples=$droppedSamples droppedMs=${samplesToMillis(droppedSamples)} droppedRetrySamples=$droppedRetrySamples"
             )
-            batchResult.text
         }
     }
 
@@ -175,153 +340,206 @@ class WhisperEngine @JvmOverloads constructor(
             started = false
             clearStreamingState()
             val hadHandle = nativeHandle != 0L
-            if (nativeHandle != 0L) {
-                nativeRelease(nativeHandle)
-            }
+            retireHandle(nativeHandle)
             nativeHandle = 0L
             loadedModelPath = null
+            latestLoadSeq++
+            if (pendingHandle != 0L) {
+                nativeRelease(pendingHandle)
+                pendingHandle = 0L
+                pendingModelPath = null
+            }
+            coldHandle = 0L
+            loaderExecutor.shutdown()
             inferenceExecutor.shutdown()
+            NativePerfEvents.drain()
             logWhisperPerf("engine.release", "hadHandle=$hadHandle")
         }
     }
 
-    private fun enqueueAndProcess(
-        buffer: ShortArray,
+    // Caller holds lock. Swaps in a loaded model only while the current session holds no audio, so a
+    // switch never drops or splits buffered speech.
+    private fun swapAtBoundaryLocked(reason: String) {
+        if (pendingHandle == 0L) {
+            return
+        }
+        if (started && nativeHandle != 0L &&
+            (windowPolicy.pendingSamples > 0 || nativeStreamRetainedSamples(nativeHandle) > 0)
+        ) {
+            return
+        }
+        val previousHandle = nativeHandle
+        nativeHandle = pendingHandle
+        loadedModelPath = pendingModelPath
+        coldHandle = nativeHandle
+        currentWarmupMs = pendingWarmupMs
+        pendingHandle = 0L
+        pendingModelPath = null
+        pendingWarmupMs = NOT_WARMED_UP
+        windowPolicy.reset()
+        retireHandle(previousHandle)
+        logWhisperPerf(
+            "engine.swap",
+            "reason=$reason path=$loadedModelPath replacedHandle=${previousHandle != 0L} started=$started"
+        )
+    }
+
+    // Caller holds lock. Windows may finish out of order across decoder states; the returned future
+    // still completes in cut order, so results reach the caller in capture order.
+    private fun dispatchWindow(job: Long, decode: () -> RecognitionResult): CompletableFuture<RecognitionResult> {
+        val decoded = try {
+            CompletableFuture.supplyAsync({ decode() }, inferenceExecutor)
+        } catch (e: RejectedExecutionException) {
+            nativeStreamDropJob(job)
+            return CompletableFuture.completedFuture(RecognitionResult.EMPTY)
+        }
+        val ordered = orderedTail.handle { _, _ -> Unit }.thenCompose { decoded }
+        orderedTail = ordered
+        return ordered
+    }
+
+    // Runs on an inference thread. Audio pushed after this window was cut stays in the native
+    // session for the next one.
+    private fun decodeWindow(
+        handle: Long,
+        job: Long,
+        takeSamples: Int,
+        trigger: AdaptiveWindowPolicy.Trigger,
+        targetSamples: Int,
         traceId: Long,
         queueLength: Int
     ): BatchResult {
-        appendStreamingChunks(buffer)
-        val recognizedParts = ArrayList<String>()
-        var nativeCalls = 0
-        while (pendingSampleCount >= INFERENCE_WINDOW_SAMPLES) {
-            val nextChunk = drainPendingSamples(INFERENCE_WINDOW_SAMPLES, force = false) ?: break
-            val result = runInferenceChunk(nextChunk, traceId, queueLength, flush = false)
-            nativeCalls++
-            if (result.isNotBlank()) {
-                recognizedParts.add(result)
-            }
+        val nativeStartedNs = System.nanoTime()
+        val result = decodeNative(handle, job, traceId, queueLength)
+        val decodeNs = System.nanoTime() - nativeStartedNs
+        val rtf = lock.withLock {
+            windowPolicy.recordDecoded(takeSamples, decodeNs).also { recordLatencyLocked(handle, traceId, takeSamples, decodeNs, it) }
         }
+        logWindow(traceId, trigger, takeSamples, targetSamples, decodeNs, rtf, result)
         return BatchResult(
-            text = joinRecognized(recognizedParts),
-            nativeCalls = nativeCalls,
-            pendingSamples = pendingSampleCount
+            result = result,
+            nativeCalls = 1,
+            pendingSamples = lock.withLock { windowPolicy.pendingSamples }
         )
     }
 
     private fun flushBufferedAudio(
+        handle: Long,
+        job: Long,
+        flushedSamples: Int,
+        retrySamples: Int,
         traceId: Long,
         queueLength: Int
     ): BatchResult {
-        val recognizedParts = ArrayList<String>()
-        var nativeCalls = 0
-        while (pendingSampleCount > 0) {
-            val nextChunk = drainPendingSamples(INFERENCE_WINDOW_SAMPLES, force = true) ?: break
-            val result = runInferenceChunk(nextChunk, traceId, queueLength, flush = true)
-            nativeCalls++
-            if (result.isNotBlank()) {
-                recognizedParts.add(result)
-            }
-        }
-        if (nativeCalls == 0 && retryBuffer.hasPendingAudio()) {
-            val result = runInferenceChunk(shortArrayOf(), traceId, queueLength, flush = true)
-            nativeCalls++
-            if (result.isNotBlank()) {
-                recognizedParts.add(result)
-            }
+        val nativeStartedNs = System.nanoTime()
+        val result = decodeNative(handle, job, traceId, queueLength)
+        val decodeNs = System.nanoTime() - nativeStartedNs
+        val windowSamples = flushedSamples + retrySamples
+        val rtf = lock.withLock {
+            windowPolicy.recordDecoded(windowSamples, decodeNs).also { recordLatencyLocked(handle, traceId, windowSamples, decodeNs, it) }
         }
+        logWindow(traceId, AdaptiveWindowPolicy.Trigger.BOUNDARY, windowSamples, 0, decodeNs, rtf, result)
         return BatchResult(
-            text = joinRecognized(recognizedParts),
-            nativeCalls = nativeCalls,
-            pendingSamples = pendingSampleCount
+            result = result,
+            nativeCalls = 1,
+            pendingSamples = 0
         )
     }
 
-    private fun runInferenceChunk(
-        chunk: ShortArray,
+    private fun decodeNative(handle: Long, job: Long, traceId: Long, queueLength: Int): RecognitionResult {
+        val meta = FloatArray(RecognitionResult.RESULT_CAPACITY)
+        val packed = nativeStreamDecode(handle, job, traceId, queueLength, meta)
+        NativePerfEvents.requestDrain()
+        return RecognitionResult.unpack(packed, meta)
+    }
+
+    private fun logWindow(
         traceId: Long,
-        queueLength: Int,
-        flush: Boolean
-    ): String {
-        val preparedChunk = retryBuffer.prepare(chunk)
-        if (preparedChunk.isEmpty()) {
-            if (flush) {
-                retryBuffer.reset()
-            }
-            return ""
+        trigger: AdaptiveWindowPolicy.Trigger,
+        windowSamples: Int,
+        targetSamples: Int,
+        decodeNs: Long,
+        rtf: Double,
+        result: RecognitionResult
+    ) {
+        val noSpeech = result.noSpeech
+        if (noSpeech) {
+            noSpeechWindows.incrementAndGet()
         }
-
-        val startedAtMs = System.currentTimeMillis()
         logWhisperPerfTrace(
             traceId,
-            "engine.chunk.begin",
-            "startedAtMs=$startedAtMs chunkSamples=${chunk.size} chunkMs=${samplesToMillis(chunk.size)} preparedSamples=${preparedChunk.size} preparedMs=${samplesToMillis(preparedChunk.size)} queueLength=$queueLength pendingSamples=$pendingSampleCount retrySamples=${retryBuffer.pendingSampleCount()} flush=$flush"
+            "engine.window",
+            "profile=$profile trigger=$trigger windowSamples=$windowSamples windowMs=${samplesToMillis(windowSamples)} nextTargetMs=${samplesToMillis(targetSamples)} decodeMs=${TimeUnit.NANOSECONDS.toMillis(decodeNs)} rtf=${String.format(Locale.US, "%.3f", rtf)} chars=${result.text.length} segments=${result.segments.size} confidence=${String.format(Locale.US, "%.3f", result.confidence())} noSpeechProb=${String.format(Locale.US, "%.3f", result.noSpeechProb)} noSpeech=$noSpeech"
         )
+    }
 
-        val nativeStartedNs = System.nanoTime()
-        val result = nativeTranscribe(nativeHandle, preparedChunk, traceId, queueLength).orEmpty()
-        val nativeMs = elapsedMs(nativeStartedNs)
-        val finishedAtMs = System.currentTimeMillis()
-
-        if (result.isBlank()) {
-            if (flush) {
-                retryBuffer.reset()
-            } else {
-                retryBuffer.retainForRetry(preparedChunk)
-            }
-        } else {
-            retryBuffer.reset()
+    // Caller holds lock.
+    private fun recordLatencyLocked(handle: Long, traceId: Long, windowSamples: Int, decodeNs: Long, rtf: Double) {
+        if (handle == coldHandle) {
+            coldHandle = 0L
+            coldDecodeMs = TimeUnit.NANOSECONDS.toMillis(decodeNs)
+            coldRtf = rtf
+            logWhisperPerfTrace(
+                traceId,
+                "engine.decode.cold",
+                "profile=$profile windowMs=${samplesToMillis(windowSamples)} decodeMs=$coldDecodeMs rtf=${String.format(Locale.US, "%.3f", rtf)} warmupMs=$currentWarmupMs modelPath=$loadedModelPath"
+            )
+            return
         }
+        warmDecodes++
+        warmDecodeNs += decodeNs
+        warmDecodeSamples += windowSamples
+    }
 
-        logWhisperPerfTrace(
-            traceId,
-            "engine.chunk.end",
-            "startedAtMs=$startedAtMs finishedAtMs=$finishedAtMs chunkSamples=${chunk.size} preparedSamples=${preparedChunk.size} chars=${result.length} inferMs=$nativeMs queueLength=$queueLength pendingSamples=$pendingSampleCount retrySamples=${retryBuffer.pendingSampleCount()} flush=$flush"
+    // Caller holds lock.
+    private fun describeLatencyLocked(): String {
+        val warmAvgMs = if (warmDecodes == 0L) 0L else TimeUnit.NANOSECONDS.toMillis(warmDecodeNs / warmDecodes)
+        val warmRtf = if (warmDecodeSamples == 0L) 0.0 else warmDecodeNs / (warmDecodeSamples * 1_000_000_000.0 / sampleRateHz)
+        return String.format(
+            Locale.US,
+            "warmupMs=%d coldDecodeMs=%d coldRtf=%.3f warmDecodes=%d warmAvgDecodeMs=%d warmRtf=%.3f",
+            currentWarmupMs,
+            coldDecodeMs,
+            coldRtf,
+            warmDecodes,
+            warmAvgMs,
+            warmRtf
         )
-        return result
     }
 
-    private fun appendStreamingChunks(buffer: ShortArray) {
-        var offset = 0
-        while (offset < buffer.size) {
-            val nextOffset = minOf(offset + STREAM_INPUT_SAMPLES, buffer.size)
-            val chunk = buffer.copyOfRange(offset, nextOffset)
-            pendingChunks.addLast(chunk)
-            pendingSampleCount += chunk.size
-            offset = nextOffset
+    private fun clearStreamingState() {
+        windowPolicy.reset()
+        if (nativeHandle != 0L) {
+            nativeStreamReset(nativeHandle)
         }
     }
 
-    private fun drainPendingSamples(targetSamples: Int, force: Boolean): ShortArray? {
-        if (pendingSampleCount <= 0) {
-            return null
-        }
-        if (!force && pendingSampleCount < targetSamples) {
-            return null
+    // Caller holds lock. Runs once every window cut from the handle has decoded, so native memory is
+    // never freed under an in-flight decode.
+    private fun retireHandle(handle: Long) {
+        if (handle == 0L) {
+            return
         }
+        orderedTail.handle { _, _ -> nativeRelease(handle) }
+    }
 
-        val requestedSamples = if (force) pendingSampleCount else targetSamples
-        val merged = ShortArray(requestedSamples)
-        var writeOffset = 0
-        while (writeOffset < requestedSamples && pendingChunks.isNotEmpty()) {
-            val chunk = pendingChunks.removeFirst()
-            val copyLength = minOf(chunk.size, requestedSamples - writeOffset)
-            System.arraycopy(chunk, 0, merged, writeOffset, copyLength)
-            writeOffset += copyLength
-            pendingSampleCount -= copyLength
-            if (copyLength < chunk.size) {
-                pendingChunks.addFirst(chunk.copyOfRange(copyLength, chunk.size))
+    private fun awaitLoad(future: Future<Void?>) {
+        try {
+            future.get()
+        } catch (e: InterruptedException) {
+            Thread.currentThread().interrupt()
+            throw IllegalStateException("Whisper model load interrupted.", e)
+        } catch (e: ExecutionException) {
+            val cause = e.cause
+            when (cause) {
+                is RuntimeException -> throw cause
+                is Error -> throw cause
+                else -> throw IllegalStateException("Whisper model load failed.", cause ?: e)
             }
         }
-        return if (writeOffset == merged.size) merged else merged.copyOf(writeOffset)
     }
 
-    private fun clearStreamingState() {
-        pendingChunks.clear()
-        pendingSampleCount = 0
-        retryBuffer.reset()
-    }
-
-    private fun awaitBatchResult(future: Future<BatchResult>): BatchResult {
+    private fun awaitResult(future: Future<String>): String {
         return try {
             future.get()
         } catch (e: InterruptedException) {
@@ -348,15 +566,6 @@ class WhisperEngine @JvmOverloads constructor(
         return Math.round(sampleCount * 1000.0 / sampleRateHz)
     }
 
-    private fun joinRecognized(parts: List<String>): String {
-        return parts
-            .asSequence()
-            .map { it.trim() }
-            .filter { it.isNotEmpty() }
-            .joinToString(separator = " ")
-            .trim()
-    }
-
     private fun logWhisperPerf(stage: String, details: String) {
         logWhisperPerfTrace(RecognitionTraceContext.currentId(), stage, details)
     }
@@ -369,20 +578,56 @@ class WhisperEngine @JvmOverloads constructor(
         modelPath: String,
         sampleRateHz: Int,
         language: String,
-        threadCount: Int
+        threadCount: Int,
+        profileName: String,
+        beamSize: Int,
+        temperatureIncrement: Float,
+        flashAttention: Boolean,
+        maxTokens: Int,
+        segmentTimestamps: Boolean
     ): Long
 
-    private external fun nativeTranscribe(
+    private external fun nativeStreamConfigure(
         nativeHandle: Long,
-        audioBuffer: ShortArray,
+        maxWindowSamples: Int,
+        retainSamples: Int,
+        reducedAudioContext: Boolean,
+        stateCount: Int
+    )
+
+    // Returns the elapsed ms.
+    private external fun nativeWarmup(nativeHandle: Long): Long
+
+    private external fun nativeBenchmark(nativeHandle: Long, threadCount: Int, coreMask: Long): Long
+
+    private external fun nativeSetThreadAffinity(coreMask: Long): Boolean
+
+    private external fun nativeStreamPush(nativeHandle: Long, samples: ShortArray, length: Int): Int
+
+    // pcm is native-order PCM16; reads samples [0, length).
+    private external fun nativeStreamPushDirect(nativeHandle: Long, pcm: ByteBuffer, length: Int): Int
+
+    private external fun nativeStreamCut(nativeHandle: Long, takeSamples: Int, flush: Boolean): Long
+
+    // Returns the segment text; status, timing and confidence go into meta (see RecognitionResult.unpack).
+    private external fun nativeStreamDecode(
+        nativeHandle: Long,
+        jobHandle: Long,
         traceId: Long,
-        queueLength: Int
-    ): String?
+        queueLength: Int,
+        meta: FloatArray
+    ): String
+
+    private external fun nativeStreamDropJob(jobHandle: Long)
+
+    private external fun nativeStreamReset(nativeHandle: Long)
+
+    private external fun nativeStreamRetainedSamples(nativeHandle: Long): Int
 
     private external fun nativeRelease(nativeHandle: Long)
 
     private data class BatchResult(
-        val text: String,
+        val result: RecognitionResult,
         val nativeCalls: Int,
         val pendingSamples: Int
     )
@@ -390,9 +635,9 @@ class WhisperEngine @JvmOverloads constructor(
     companion object {
         private const val TAG = "WhisperEngine"
         private const val INFERENCE_THREAD_NAME = "WhisperInferenceThread"
-        private const val STREAM_INPUT_SAMPLES = 1_024
-        private const val INFERENCE_WINDOW_SAMPLES = 4_096
+        private const val LOADER_THREAD_NAME = "WhisperModelLoader"
         private const val RETRY_RETAIN_SAMPLES = 2_048
+        private const val NOT_WARMED_UP = -1L
 
         init {
             System.loadLibrary("whisper_jni")
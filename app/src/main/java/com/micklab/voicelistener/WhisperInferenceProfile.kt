@@ -0,0 +1,26 @@
+package com.micklab.voicelistener
+
+// Decoding trade-offs for whisper_full. BALANCED matches the settings used before profiles existed.
+// beamSize 1 is greedy; temperatureIncrement 0 disables the temperature fallback reruns; maxTokens 0
+// leaves the per-window token count unbounded. segmentTimestamps lets a window come back as several
+// timed segments rather than one.
+enum class WhisperInferenceProfile(
+    val beamSize: Int,
+    val temperatureIncrement: Float,
+    val flashAttention: Boolean,
+    val reducedAudioContext: Boolean,
+    val maxTokens: Int,
+    val segmentTimestamps: Boolean
+) {
+    LATENCY(beamSize = 1, temperatureIncrement = 0.0f, flashAttention = true, reducedAudioContext = true, maxTokens = 64, segmentTimestamps = false),
+    BALANCED(beamSize = 1, temperatureIncrement = 0.2f, flashAttention = false, reducedAudioContext = true, maxTokens = 0, segmentTimestamps = false),
+    ACCURACY(beamSize = 5, temperatureIncrement = 0.2f, flashAttention = false, reducedAudioContext = false, maxTokens = 0, segmentTimestamps = true);
+
+    companion object {
+        @JvmStatic
+        fun fromPreference(rawValue: String?): WhisperInferenceProfile {
+            val normalized = rawValue?.trim()
+            return entries.firstOrNull { it.name.equals(normalized, ignoreCase = true) } ?: BALANCED
+        }
+    }
+}
@@ -60,6 +60,22 @@ object WhisperModelManager {
         return match?.value?.lowercase(Locale.US) ?: "unknown"
     }
 
+    // Architecture size parsed from the file name: tiny=0 .. large=4, or -1 when the name does not say.
+    @JvmStatic
+    fun modelSizeRank(modelName: String?): Int {
+        val normalizedName = normalizeModelName(modelName)?.lowercase(Locale.US) ?: return -1
+        return MODEL_SIZE_CLASSES.indexOfFirst { Regex("(^|[^a-z])$it([^a-z]|$)").containsMatchIn(normalizedName) }
+    }
+
+    // Models ordered from cheapest to most expensive to run: by architecture size, then by file size
+    // (a heavier quantization of the same architecture). Names whose size cannot be told are left out.
+    @JvmStatic
+    fun modelLadder(modelNames: List<String>, fileSize: (String) -> Long): List<String> {
+        return modelNames
+            .filter { modelSizeRank(it) >= 0 }
+            .sortedWith(compareBy<String>({ modelSizeRank(it) }, { fileSize(it) }))
+    }
+
     @JvmStatic
     fun getModelsRootDir(context: Context): File {
         val documentsDir = context.getExternalFilesDir(Environment.DIRECTORY_DOCUMENTS) ?: context.filesDir
@@ -147,5 +163,6 @@ object WhisperModelManager {
         return segment.ifEmpty { null }
     }
 
+    private val MODEL_SIZE_CLASSES = listOf("tiny", "base", "small", "medium", "large")
     private val QUANTIZATION_PATTERN = Regex("(?i)(q\\d+_[0-9]+|f16|f32|bf16)")
 }
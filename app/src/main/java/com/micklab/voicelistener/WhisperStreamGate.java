@@ -0,0 +1,94 @@
+package com.micklab.voicelistener;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+// Decides which captured frames reach the streaming Whisper engine: frames inside a VAD speech
+// region plus the pre-roll that preceded it. Silence in between never leaves the capture thread.
+public final class WhisperStreamGate {
+    public enum Transition {
+        NONE,
+        OPENED,
+        CLOSED
+    }
+
+    public interface FrameSink {
+        void stream(AudioFramePool.Frame frame);
+    }
+
+    private final int preRollFrames;
+    private final Deque<AudioFramePool.Frame> preRoll = new ArrayDeque<>();
+    private boolean open = false;
+    private long streamedFrames = 0L;
+    private long gatedFrames = 0L;
+
+    public WhisperStreamGate(int preRollFrames) {
+        if (preRollFrames < 0) {
+            throw new IllegalArgumentException("Pre-roll frame count must not be negative.");
+        }
+        this.preRollFrames = preRollFrames;
+    }
+
+    public Transition offer(AudioFramePool.Frame frame, boolean inSpeech, FrameSink sink) {
+        if (frame == null || sink == null) {
+            throw new IllegalArgumentException("Frame and sink must not be null.");
+        }
+        if (inSpeech) {
+            Transition transition = Transition.NONE;
+            if (!open) {
+                open = true;
+                transition = Transition.OPENED;
+                while (!preRoll.isEmpty()) {
+                    AudioFramePool.Frame buffered = preRoll.removeFirst();
+                    try {
+                        sink.stream(buffered);
+                        streamedFrames++;
+                        gatedFrames--;
+                    } finally {
+                        buffered.release();
+                    }
+                }
+            }
+            sink.stream(frame);
+            streamedFrames++;
+            return transition;
+        }
+
+        gatedFrames++;
+        rememberPreRoll(frame);
+        if (open) {
+            open = false;
+            return Transition.CLOSED;
+        }
+        return Transition.NONE;
+    }
+
+    public boolean isOpen() {
+        return open;
+    }
+
+    public long getStreamedFrameCount() {
+        return streamedFrames;
+    }
+
+    public long getGatedFrameCount() {
+        return gatedFrames;
+    }
+
+    public void clear() {
+        while (!preRoll.isEmpty()) {
+            preRoll.removeFirst().release();
+        }
+        open = false;
+    }
+
+    private void rememberPreRoll(AudioFramePool.Frame frame) {
+        if (preRollFrames == 0) {
+            return;
+        }
+        if (preRoll.size() == preRollFrames) {
+            preRoll.removeFirst().release();
+        }
+        preRoll.addLast(frame.retain());
+    }
+}
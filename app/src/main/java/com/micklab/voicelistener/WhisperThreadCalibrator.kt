@@ -0,0 +1,105 @@
+package com.micklab.voicelistener
+
+import android.os.Build
+import java.io.File
+
+data class ThreadSetting(val threadCount: Int, val coreMask: Long = 0L) {
+    init {
+        require(threadCount > 0) { "Thread count must be positive: $threadCount" }
+    }
+
+    fun encode(): String = "$threadCount:$coreMask"
+
+    companion object {
+        @JvmStatic
+        fun decode(value: String?): ThreadSetting? {
+            val parts = value?.split(':') ?: return null
+            if (parts.size != 2) {
+                return null
+            }
+            val threadCount = parts[0].toIntOrNull() ?: return null
+            val coreMask = parts[1].toLongOrNull() ?: return null
+            return if (threadCount > 0) ThreadSetting(threadCount, coreMask) else null
+        }
+    }
+}
+
+// Times whisper_full on a fixed clip for a few thread count / core mask pairs and keeps the fastest.
+// On big.LITTLE parts every decode waits for its slowest thread, so fewer threads pinned to the big
+// cores often beat one thread per core.
+class WhisperThreadCalibrator(private val benchmark: (ThreadSetting) -> Long) {
+    data class Result(val best: ThreadSetting, val timingsMs: Map<ThreadSetting, Long>) {
+        fun describe(): String = timingsMs.entries.joinToString(separator = ",") { (setting, ms) ->
+            "${setting.threadCount}@${java.lang.Long.toHexString(setting.coreMask)}=$ms"
+        }
+    }
+
+    fun calibrate(candidates: List<ThreadSetting>): Result {
+        require(candidates.isNotEmpty()) { "No calibration candidates." }
+        val timings = LinkedHashMap<ThreadSetting, Long>()
+        for (candidate in candidates) {
+            timings[candidate] = benchmark(candidate)
+        }
+        val best = timings.entries
+            .filter { it.value >= 0L }
+            .minByOrNull { it.value }
+            ?.key
+            ?: throw IllegalStateException("Every Whisper calibration run failed.")
+        return Result(best, timings)
+    }
+
+    companion object {
+        private const val MAX_THREADS = 8
+
+        // Unpinned settings across all cores, plus pinned settings for each faster subset of tiers on
+        // heterogeneous parts. The all-tier mask is left out; it is the same as running unpinned.
+        @JvmStatic
+        fun candidates(topology: CpuTopology): List<ThreadSetting> {
+            val settings = LinkedHashSet<ThreadSetting>()
+            threadCounts(topology.cpuCount()).forEach { settings.add(ThreadSetting(it)) }
+            if (topology.isHeterogeneous) {
+                topology.tierMasks().dropLast(1).forEach { mask ->
+                    threadCounts(java.lang.Long.bitCount(mask)).forEach { settings.add(ThreadSetting(it, mask)) }
+                }
+            }
+            return settings.toList()
+        }
+
+        private fun threadCounts(cores: Int): List<Int> {
+            val most = cores.coerceIn(1, MAX_THREADS)
+            return listOf(most, most / 2, 2).filter { it in 1..most }.distinct()
+        }
+
+        // What a stored result was measured on: the model file as it is on disk, the device, and the
+        // decoder state count the thread budget is split across.
+        @JvmStatic
+        fun identity(modelFile: File, device: String, decoderStates: Int): String =
+            "${modelFile.absolutePath}|${modelFile.length()}|${modelFile.lastModified()}|$device|states=$decoderStates"
+
+        @JvmStatic
+        fun deviceFingerprint(): String =
+            "${Build.MANUFACTURER}/${Build.MODEL}/${Build.HARDWARE}/${Runtime.getRuntime().availableProcessors()}"
+
+        // Benchmarks on a private engine with the live engine's state count; each candidate is timed with
+        // its per-state thread share, as a live decode would run. While the live engine holds the same
+        // model the native registry hands back its context, so the weights are not loaded a second time.
+        @JvmStatic
+        fun calibrate(config: SpeechRecognizerConfig, topology: CpuTopology): Result {
+            val engine = WhisperEngine(
+                sampleRateHz = config.sampleRateHz,
+                language = config.language,
+                threadCount = config.threadCount,
+                reducedAudioContext = config.reducedAudioContext,
+                decoderStates = config.decoderStates,
+                warmup = true,
+                profile = config.inferenceProfile
+            )
+            try {
+                engine.loadModel(config.modelPath)
+                return WhisperThreadCalibrator { engine.benchmark(it) }.calibrate(candidates(topology))
+            } finally {
+                engine.release()
+            }
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.micklab.voicelistener;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class AdaptiveWindowPolicyTest {
+    private static final long MS = 1_000_000L;
+
+    @Test
+    public void takeWindow_doublesWhileSpeechContinues() {
+        AdaptiveWindowPolicy policy = new AdaptiveWindowPolicy(1000, 100, 400, 10_000);
+
+        policy.onSamplesBuffered(100, 0L);
+        assertEquals(100, policy.takeWindow(0L));
+        policy.onSamplesBuffered(150, 10 * MS);
+        assertEquals(0, policy.takeWindow(10 * MS));
+        policy.onSamplesBuffered(50, 20 * MS);
+        assertEquals(200, policy.takeWindow(20 * MS));
+        assertEquals(AdaptiveWindowPolicy.Trigger.SIZE, policy.getLastTrigger());
+        assertEquals(400, policy.getTargetWindowSamples());
+    }
+
+    @Test
+    public void takeWindow_cutsAtDeadline() {
+        AdaptiveWindowPolicy policy = new AdaptiveWindowPolicy(1000, 1000, 4000, 500);
+
+        policy.onSamplesBuffered(300, 0L);
+        assertEquals(0, policy.takeWindow(499 * MS));
+        assertEquals(300, policy.takeWindow(500 * MS));
+        assertEquals(AdaptiveWindowPolicy.Trigger.DEADLINE, policy.getLastTrigger());
+    }
+
+    @Test
+    public void takeWindow_ignoresDeadlineWhileSlowerThanRealTime() {
+        AdaptiveWindowPolicy policy = new AdaptiveWindowPolicy(1000, 1000, 4000, 500);
+        policy.recordDecoded(1000, 1500 * MS);
+
+        policy.onSamplesBuffered(300, 0L);
+
+        assertEquals(0, policy.takeWindow(2000 * MS));
+    }
+
+    @Test
+    public void nextWindow_keepsSamplesUntilCommitted() {
+        AdaptiveWindowPolicy policy = new AdaptiveWindowPolicy(1000, 100, 400, 10_000);
+        policy.syncPending(150, 0L);
+
+        assertEquals(150, policy.nextWindow(0L));
+        assertEquals(150, policy.getPendingSamples());
+        assertEquals(100, policy.getTargetWindowSamples());
+
+        policy.commitWindow(150, 0L);
+        assertEquals(0, policy.getPendingSamples());
+        assertEquals(200, policy.getTargetWindowSamples());
+    }
+
+    @Test
+    public void syncPending_replacesMirroredCount() {
+        AdaptiveWindowPolicy policy = new AdaptiveWindowPolicy(1000, 1000, 4000, 500);
+        policy.onSamplesBuffered(400, 0L);
+
+        policy.syncPending(280, 100 * MS);
+        assertEquals(280, policy.getPendingSamples());
+        assertEquals(280, policy.takeWindow(500 * MS));
+
+        policy.syncPending(0, 600 * MS);
+        assertEquals(0, policy.getPendingSamples());
+    }
+
+    @Test
+    public void takeAll_resetsToShortWindow() {
+        AdaptiveWindowPolicy policy = new AdaptiveWindowPolicy(1000, 100, 800, 10_000);
+        policy.onSamplesBuffered(100, 0L);
+        policy.takeWindow(0L);
+        policy.onSamplesBuffered(70, 0L);
+
+        assertEquals(70, policy.takeAll());
+        assertEquals(AdaptiveWindowPolicy.Trigger.BOUNDARY, policy.getLastTrigger());
+        assertEquals(100, policy.getTargetWindowSamples());
+        assertEquals(0, policy.getPendingSamples());
+    }
+
+    @Test
+    public void recordDecoded_reportsRealTimeFactor() {
+        AdaptiveWindowPolicy policy = new AdaptiveWindowPolicy(16000);
+
+        assertEquals(0.25, policy.recordDecoded(32000, 500 * MS), 1e-9);
+        assertEquals(0.75, policy.recordDecoded(16000, 750 * MS), 1e-9);
+        assertEquals(1250.0 / 3000.0, policy.getAverageRtf(), 1e-9);
+        assertEquals(2L, policy.getWindowCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructor_rejectsInvertedRange() {
+        new AdaptiveWindowPolicy(16000, 2000, 1000, 500);
+    }
+}
@@ -0,0 +1,74 @@
+package com.micklab.voicelistener;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class AudioFramePoolTest {
+    @Test
+    public void acquire_reusesFrameAfterLastRelease() {
+        AudioFramePool pool = new AudioFramePool(1, 4);
+
+        AudioFramePool.Frame first = pool.acquire();
+        first.release();
+        AudioFramePool.Frame second = pool.acquire();
+
+        assertSame(first, second);
+        assertEquals(0L, pool.getOverflowAllocationCount());
+    }
+
+    @Test
+    public void acquire_skipsFramesStillRetainedByConsumers() {
+        AudioFramePool pool = new AudioFramePool(2, 4);
+
+        AudioFramePool.Frame first = pool.acquire();
+        first.retain();
+        first.release();
+        AudioFramePool.Frame second = pool.acquire();
+        second.release();
+        AudioFramePool.Frame third = pool.acquire();
+
+        assertNotSame(first, third);
+        assertSame(second, third);
+        assertEquals(0, pool.availableCount());
+    }
+
+    @Test
+    public void acquire_allocatesOverflowFrameWhenPoolIsExhausted() {
+        AudioFramePool pool = new AudioFramePool(1, 4);
+
+        pool.acquire();
+        AudioFramePool.Frame overflow = pool.acquire();
+
+        assertEquals(4, overflow.capacity());
+        assertEquals(1L, pool.getOverflowAllocationCount());
+    }
+
+    @Test
+    public void toSampleArray_copiesValidSamplesOutOfDirectBuffer() {
+        AudioFramePool pool = new AudioFramePool(1, 4);
+        AudioFramePool.Frame frame = pool.acquire();
+        frame.pcm().put(0, (short) 1);
+        frame.pcm().put(1, (short) 2);
+
+        frame.setLength(2);
+        short[] copy = frame.toSampleArray();
+        assertArrayEquals(new short[] {1, 2}, copy);
+
+        copy[0] = 9;
+        assertEquals(1, frame.pcm().get(0));
+        assertTrue(frame.data().isDirect());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void retain_rejectsReleasedFrame() {
+        AudioFramePool.Frame frame = AudioFramePool.wrap(new short[] {1});
+
+        frame.release();
+        frame.retain();
+    }
+}
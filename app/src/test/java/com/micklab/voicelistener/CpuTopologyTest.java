@@ -0,0 +1,72 @@
+package com.micklab.voicelistener;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CpuTopologyTest {
+    private File directory;
+
+    @Before
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("cpu-topology-test").toFile();
+    }
+
+    @After
+    public void tearDown() {
+        deleteRecursively(directory);
+    }
+
+    @Test
+    public void read_treatsMissingFrequencyAsSlowestTier() throws Exception {
+        writeMaxFreq(0, "1800000");
+        writeMaxFreq(1, "1800000\n");
+        writeMaxFreq(2, "2800000");
+
+        CpuTopology topology = CpuTopology.read(directory, 4);
+
+        assertEquals(4, topology.cpuCount());
+        assertEquals(Arrays.asList(0b0100L, 0b0111L, 0b1111L), topology.tierMasks());
+    }
+
+    @Test
+    public void tierMasks_singleTierCoversEveryCore() {
+        CpuTopology topology = new CpuTopology(new long[] {2000000L, 2000000L, 2000000L});
+
+        assertFalse(topology.isHeterogeneous());
+        assertEquals(Arrays.asList(0b111L), topology.tierMasks());
+    }
+
+    @Test
+    public void tierMasks_orderFastestTierFirst() {
+        CpuTopology topology = new CpuTopology(new long[] {1800000L, 1800000L, 2400000L, 2400000L, 3000000L});
+
+        assertTrue(topology.isHeterogeneous());
+        assertEquals(Arrays.asList(0b10000L, 0b11100L, 0b11111L), topology.tierMasks());
+    }
+
+    private void writeMaxFreq(int cpu, String value) throws Exception {
+        File cpufreq = new File(directory, "cpu" + cpu + "/cpufreq");
+        assertTrue(cpufreq.mkdirs());
+        Files.write(new File(cpufreq, "cpuinfo_max_freq").toPath(), value.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static void deleteRecursively(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                deleteRecursively(child);
+            }
+        }
+        file.delete();
+    }
+}
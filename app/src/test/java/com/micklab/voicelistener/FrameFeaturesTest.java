@@ -0,0 +1,73 @@
+package com.micklab.voicelistener;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class FrameFeaturesTest {
+    @Test
+    public void compute_reportsRmsPeakAndZeroCrossings() {
+        short[] samples = new short[] {100, -100, 100, -100};
+
+        FrameFeatures features = FrameFeatures.of(samples, samples.length);
+
+        assertEquals(4, features.sampleCount());
+        assertEquals(100.0, features.rms(), 1e-9);
+        assertEquals(100, features.peak());
+        assertEquals(3, features.zeroCrossings());
+        assertEquals(1.0, features.zeroCrossingRate(), 1e-9);
+        assertEquals(0, features.clippedSamples());
+    }
+
+    @Test
+    public void compute_countsClippedSamplesOnBothPolarities() {
+        short[] samples = new short[] {Short.MAX_VALUE, Short.MIN_VALUE, 32_000, -31_999, 0};
+
+        FrameFeatures features = FrameFeatures.of(samples, samples.length);
+
+        assertEquals(3, features.clippedSamples());
+        assertEquals(32_768, features.peak());
+    }
+
+    @Test
+    public void compute_onlyReadsTheRequestedLength() {
+        short[] samples = new short[] {10, 10, 30_000, -30_000};
+
+        FrameFeatures features = FrameFeatures.of(samples, 2);
+
+        assertEquals(10.0, features.rms(), 1e-9);
+        assertEquals(10, features.peak());
+        assertEquals(0, features.zeroCrossings());
+    }
+
+    @Test
+    public void compute_returnsZeroFeaturesForEmptyFrame() {
+        FrameFeatures features = FrameFeatures.of(new short[0], 0);
+
+        assertEquals(0, features.sampleCount());
+        assertEquals(0.0, features.rms(), 0.0);
+        assertEquals(0.0, features.zeroCrossingRate(), 0.0);
+    }
+
+    @Test
+    public void frameFeatures_areRecomputedOnlyAfterLengthChanges() {
+        AudioFramePool pool = new AudioFramePool(1, 4);
+        AudioFramePool.Frame frame = pool.acquire();
+        frame.pcm().put(0, (short) 200);
+        frame.pcm().put(1, (short) 200);
+        frame.setLength(2);
+
+        FrameFeatures first = frame.features();
+        assertTrue(first.isComputedFor(2));
+        assertEquals(200.0, first.rms(), 1e-9);
+        assertSame(first, frame.features());
+
+        frame.setLength(4);
+        assertFalse(first.isComputedFor(4));
+        assertEquals(100.0 * Math.sqrt(2.0), frame.features().rms(), 1e-9);
+        frame.release();
+    }
+}
@@ -0,0 +1,70 @@
+package com.micklab.voicelistener;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class ModelLoadControllerTest {
+
+    @Test
+    public void onWindowDecoded_downgradesOnlyAfterSustainedOverload() {
+        ModelLoadController controller = new ModelLoadController(10_000L, 60_000L, 30_000L);
+
+        assertEquals(ModelLoadController.Decision.HOLD, controller.onWindowDecoded(1.6, 2, 0, 0L));
+        assertEquals(ModelLoadController.Decision.HOLD, controller.onWindowDecoded(1.6, 3, 0, 5_000L));
+        assertEquals(ModelLoadController.Decision.DOWNGRADE, controller.onWindowDecoded(1.6, 3, 0, 10_000L));
+    }
+
+    @Test
+    public void onWindowDecoded_slowWindowWithoutBacklogIsNotOverload() {
+        ModelLoadController controller = new ModelLoadController(10_000L, 60_000L, 30_000L);
+
+        controller.onWindowDecoded(1.6, 0, 0, 0L);
+
+        assertEquals(ModelLoadController.Decision.HOLD, controller.onWindowDecoded(1.6, 0, 0, 20_000L));
+    }
+
+    @Test
+    public void onWindowDecoded_recoveryResetsOverloadTimer() {
+        ModelLoadController controller = new ModelLoadController(10_000L, 60_000L, 30_000L);
+
+        controller.onWindowDecoded(1.6, 2, 0, 0L);
+        controller.onWindowDecoded(0.2, 0, 0, 4_000L);
+        controller.onWindowDecoded(0.2, 0, 0, 5_000L);
+        controller.onWindowDecoded(1.6, 2, 0, 8_000L);
+        controller.onWindowDecoded(1.6, 2, 0, 9_000L);
+        controller.onWindowDecoded(1.6, 2, 0, 10_000L);
+
+        assertEquals(ModelLoadController.Decision.HOLD, controller.onWindowDecoded(3.0, 2, 0, 12_000L));
+    }
+
+    @Test
+    public void onWindowDecoded_severeThermalCountsAsOverload() {
+        ModelLoadController controller = new ModelLoadController(10_000L, 60_000L, 30_000L);
+
+        controller.onWindowDecoded(0.3, 0, ModelLoadController.THERMAL_STATUS_SEVERE, 0L);
+
+        assertEquals(
+            ModelLoadController.Decision.DOWNGRADE,
+            controller.onWindowDecoded(0.3, 0, ModelLoadController.THERMAL_STATUS_SEVERE, 10_000L)
+        );
+    }
+
+    @Test
+    public void onWindowDecoded_upgradesWhenIdleAndCoolThenRespectsCooldown() {
+        ModelLoadController controller = new ModelLoadController(10_000L, 60_000L, 30_000L);
+
+        controller.onWindowDecoded(0.2, 0, ModelLoadController.THERMAL_STATUS_MODERATE, 0L);
+        assertEquals(
+            ModelLoadController.Decision.HOLD,
+            controller.onWindowDecoded(0.2, 0, ModelLoadController.THERMAL_STATUS_MODERATE, 60_000L)
+        );
+        controller.onWindowDecoded(0.2, 0, 0, 61_000L);
+        assertEquals(ModelLoadController.Decision.UPGRADE, controller.onWindowDecoded(0.2, 0, 0, 121_000L));
+
+        controller.onSwitched(121_000L);
+        controller.onWindowDecoded(2.0, 4, 0, 122_000L);
+        assertEquals(ModelLoadController.Decision.HOLD, controller.onWindowDecoded(2.0, 4, 0, 140_000L));
+        assertEquals(ModelLoadController.Decision.DOWNGRADE, controller.onWindowDecoded(2.0, 4, 0, 151_000L));
+    }
+}
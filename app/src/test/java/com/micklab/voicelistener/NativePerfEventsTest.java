@@ -0,0 +1,53 @@
+package com.micklab.voicelistener;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class NativePerfEventsTest {
+
+    @Test
+    public void details_formatsStreamInferEvent() {
+        long[] words = new long[NativePerfEvents.EVENT_WORDS * 2];
+        int offset = NativePerfEvents.EVENT_WORDS;
+        words[offset] = NativePerfEvents.KIND_STREAM_INFER;
+        words[offset + 1] = 42L;
+        long[] fields = {
+            1000L, 1250L, 32000L, 2000L, 0L, 1600L, 4L, 2L, 3L, 1L, 192L, 240L, -1L,
+            2L, 1L, Float.floatToIntBits(0.75f), 12L, 1L, 2L, 30L, 0L
+        };
+        System.arraycopy(fields, 0, words, offset + 2, fields.length);
+
+        String details = NativePerfEvents.details(words, offset);
+
+        assertEquals("native.stream.infer", NativePerfEvents.stage(words[offset]));
+        assertTrue(details.startsWith("startedAtMs=1000 finishedAtMs=1250 samples=32000 bufferMs=2000"));
+        assertTrue(details.contains(" audioCtx=192 inferMs=240 reducedInferMs=-1 ctxFallback=short"));
+        assertTrue(details.contains(" noSpeech=true noSpeechProb=0.750000 rejectedChars=12"));
+        assertTrue(details.endsWith(" segments=2 chars=30 flush=false"));
+    }
+
+    @Test
+    public void details_formatsAudioCtxProbeEvent() {
+        long[] words = new long[NativePerfEvents.EVENT_WORDS];
+        words[0] = NativePerfEvents.KIND_AUDIO_CTX_PROBE;
+        long[] fields = {16000L, 64L, 90L, 300L, 9L, 12L};
+        System.arraycopy(fields, 0, words, 2, fields.length);
+
+        assertEquals("native.audio_ctx.probe", NativePerfEvents.stage(words[0]));
+        assertEquals(
+            "samples=16000 audioCtx=64 reducedInferMs=90 fullInferMs=300 reducedChars=9 fullChars=12",
+            NativePerfEvents.details(words, 0)
+        );
+    }
+
+    @Test
+    public void details_reportsUnknownKind() {
+        long[] words = new long[NativePerfEvents.EVENT_WORDS];
+        words[0] = 99L;
+
+        assertEquals("native.perf.unknown", NativePerfEvents.stage(99L));
+        assertEquals("kind=99", NativePerfEvents.details(words, 0));
+    }
+}
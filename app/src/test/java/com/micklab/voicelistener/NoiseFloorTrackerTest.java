@@ -0,0 +1,52 @@
+package com.micklab.voicelistener;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class NoiseFloorTrackerTest {
+    @Test
+    public void update_tracksMinimumThroughSpeechBursts() {
+        NoiseFloorTracker tracker = new NoiseFloorTracker(4, 4);
+        for (int frame = 0; frame < 64; frame++) {
+            tracker.update(frame % 8 < 6 ? 2000.0 : 100.0);
+        }
+
+        assertTrue(tracker.getTrackedMinimum() < 1000.0);
+        assertTrue(tracker.getNoiseFloorRms() >= tracker.getTrackedMinimum());
+    }
+
+    @Test
+    public void update_risesOnceLowerNoiseLeavesTheWindow() {
+        NoiseFloorTracker tracker = new NoiseFloorTracker(4, 2);
+        tracker.seed(50.0);
+        for (int frame = 0; frame < 32; frame++) {
+            tracker.update(400.0);
+        }
+
+        assertEquals(400.0, tracker.getTrackedMinimum(), 1.0);
+    }
+
+    @Test
+    public void seed_appliesFromTheFirstFrame() {
+        NoiseFloorTracker tracker = new NoiseFloorTracker(8, 3);
+        tracker.seed(300.0);
+        tracker.update(3000.0);
+
+        assertEquals(300.0, tracker.getTrackedMinimum(), 0.001);
+    }
+
+    @Test
+    public void getNoiseFloorRms_neverDropsBelowOne() {
+        NoiseFloorTracker tracker = new NoiseFloorTracker(2, 2);
+        tracker.update(0.0);
+
+        assertEquals(1.0, tracker.getNoiseFloorRms(), 0.0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructor_rejectsEmptyWindow() {
+        new NoiseFloorTracker(0, 4);
+    }
+}
@@ -0,0 +1,56 @@
+package com.micklab.voicelistener;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class RealFftTest {
+    @Test
+    public void powerSpectrum_matchesDirectDft() {
+        int size = 64;
+        RealFft fft = new RealFft(size);
+        float[] input = new float[size];
+        Random random = new Random(7L);
+        for (int index = 0; index < size; index++) {
+            input[index] = random.nextFloat() * 2f - 1f;
+        }
+        float[] power = new float[fft.binCount()];
+
+        fft.powerSpectrum(input, power);
+
+        for (int k = 0; k <= size / 2; k++) {
+            double re = 0.0;
+            double im = 0.0;
+            for (int n = 0; n < size; n++) {
+                double angle = -2.0 * Math.PI * k * n / size;
+                re += input[n] * Math.cos(angle);
+                im += input[n] * Math.sin(angle);
+            }
+            assertEquals("bin " + k, re * re + im * im, power[k], 1e-3);
+        }
+    }
+
+    @Test
+    public void powerSpectrum_placesPureToneInItsBin() {
+        int size = 256;
+        RealFft fft = new RealFft(size);
+        float[] input = new float[size];
+        for (int index = 0; index < size; index++) {
+            input[index] = (float) Math.cos(2.0 * Math.PI * 16 * index / size);
+        }
+        float[] power = new float[fft.binCount()];
+
+        fft.powerSpectrum(input, power);
+
+        assertEquals((size / 2.0) * (size / 2.0), power[16], 1e-1);
+        assertEquals(0.0, power[15], 1e-3);
+        assertEquals(0.0, power[17], 1e-3);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructor_rejectsNonPowerOfTwoSize() {
+        new RealFft(48);
+    }
+}
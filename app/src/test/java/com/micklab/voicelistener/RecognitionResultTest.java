@@ -0,0 +1,102 @@
+package com.micklab.voicelistener;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class RecognitionResultTest {
+
+    @Test
+    public void unpack_splitsSegmentsByUtf16EndOffsets() {
+        String packed = " こんにちは😀 世界";
+        float[] meta = new float[RecognitionResult.RESULT_CAPACITY];
+        meta[0] = 0f;
+        meta[1] = 2f;
+        meta[2] = 0.05f;
+        meta[3] = 2f;
+        int first = RecognitionResult.RESULT_HEADER;
+        meta[first] = 0f;
+        meta[first + 1] = 1200f;
+        meta[first + 2] = 0.9f;
+        meta[first + 3] = " こんにちは😀".length();
+        int second = first + RecognitionResult.RESULT_STRIDE;
+        meta[second] = 1200f;
+        meta[second + 1] = 2000f;
+        meta[second + 2] = 0.6f;
+        meta[second + 3] = packed.length();
+
+        RecognitionResult result = RecognitionResult.unpack(packed, meta);
+
+        assertEquals("こんにちは😀 世界", result.getText());
+        assertFalse(result.getNoSpeech());
+        assertEquals(2, result.getSegments().size());
+        assertEquals("こんにちは😀", result.getSegments().get(0).getText());
+        assertEquals(1200L, result.getSegments().get(0).getEndMs());
+        assertEquals("世界", result.getSegments().get(1).getText());
+        assertEquals(1200L, result.getSegments().get(1).getStartMs());
+        // Weighted by text length: (0.9 * 7 + 0.6 * 2) / 9.
+        assertEquals(0.8333f, result.confidence(), 1e-3f);
+    }
+
+    @Test
+    public void unpack_readsNoSpeechStatus() {
+        float[] meta = new float[RecognitionResult.RESULT_HEADER];
+        meta[0] = 1f;
+        meta[2] = 0.92f;
+
+        RecognitionResult result = RecognitionResult.unpack("", meta);
+
+        assertTrue(result.getNoSpeech());
+        assertEquals(0.92f, result.getNoSpeechProb(), 1e-6f);
+        assertTrue(result.getSegments().isEmpty());
+        assertTrue(Float.isNaN(result.confidence()));
+    }
+
+    @Test
+    public void unpack_readsWindowPositionOnStreamClock() {
+        float[] meta = new float[RecognitionResult.RESULT_HEADER + RecognitionResult.RESULT_STRIDE];
+        meta[1] = 1f;
+        meta[3] = 1f;
+        meta[4] = 4500f;
+        meta[5] = 300f;
+        int first = RecognitionResult.RESULT_HEADER;
+        meta[first] = 4600f;
+        meta[first + 1] = 5900f;
+        meta[first + 3] = 2f;
+
+        RecognitionResult result = RecognitionResult.unpack("ok", meta);
+
+        assertEquals(4500L, result.getWindowStartMs());
+        assertEquals(300L, result.getRetryMs());
+        assertEquals(4600L, result.getSegments().get(0).getStartMs());
+        assertEquals(5900L, result.getSegments().get(0).getEndMs());
+    }
+
+    @Test
+    public void unpack_clampsSegmentCountToBuffer() {
+        float[] meta = new float[RecognitionResult.RESULT_HEADER + RecognitionResult.RESULT_STRIDE];
+        meta[1] = 5f;
+        meta[3] = 5f;
+        meta[RecognitionResult.RESULT_HEADER + 3] = 3f;
+
+        RecognitionResult result = RecognitionResult.unpack("abcdef", meta);
+
+        assertEquals(1, result.getSegments().size());
+        assertEquals("abc", result.getSegments().get(0).getText());
+        assertEquals("abcdef", result.getText());
+    }
+
+    @Test
+    public void ofText_wrapsPlainTextAsOneUntimedSegment() {
+        assertSame(RecognitionResult.EMPTY, RecognitionResult.ofText(""));
+
+        RecognitionResult result = RecognitionResult.ofText("hello");
+
+        assertEquals(1, result.getSegments().size());
+        assertEquals(-1L, result.getSegments().get(0).getStartMs());
+        assertTrue(Float.isNaN(result.confidence()));
+    }
+}
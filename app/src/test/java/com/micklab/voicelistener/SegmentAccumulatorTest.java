@@ -0,0 +1,88 @@
+package com.micklab.voicelistener;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class SegmentAccumulatorTest {
+    @Test
+    public void startSegmentFromPreRoll_keepsOnlyNewestFramesInOrder() {
+        SegmentAccumulator accumulator = new SegmentAccumulator(2, 8);
+
+        accumulator.rememberPreRoll(new short[] {1, 1}, 2);
+        accumulator.rememberPreRoll(new short[] {2, 2}, 2);
+        accumulator.rememberPreRoll(new short[] {3, 3, 9}, 2);
+        accumulator.startSegmentFromPreRoll();
+        accumulator.append(new short[] {4, 4}, 2);
+
+        PcmSegment segment = accumulator.takeSegment();
+        assertEquals(6, segment.length());
+        assertEquals(2, segment.samples()[0]);
+        assertEquals(3, segment.samples()[2]);
+        assertEquals(4, segment.samples()[5]);
+        assertEquals(0, accumulator.preRollFrameCount());
+    }
+
+    @Test
+    public void append_growsToNextPowerOfTwo() {
+        SegmentAccumulator accumulator = new SegmentAccumulator(0, 4);
+
+        accumulator.append(new short[5], 5);
+
+        PcmSegment segment = accumulator.takeSegment();
+        assertEquals(8, segment.samples().length);
+        assertEquals(5, segment.length());
+        assertEquals(1L, accumulator.getGrowCount());
+    }
+
+    @Test
+    public void takeSegment_handsOffBackingArrayAndReusesItAfterRecycle() {
+        SegmentAccumulator accumulator = new SegmentAccumulator(1, 16);
+        short[] frame = new short[] {7, 7, 7, 7};
+
+        accumulator.rememberPreRoll(frame, 4);
+        accumulator.startSegmentFromPreRoll();
+        PcmSegment first = accumulator.takeSegment();
+        short[] firstArray = first.samples();
+        first.recycle();
+        accumulator.append(frame, 4);
+        PcmSegment second = accumulator.takeSegment();
+        second.recycle();
+        accumulator.append(frame, 4);
+        PcmSegment third = accumulator.takeSegment();
+        assertSame(firstArray, third.samples());
+        third.recycle();
+        long allocationsAfterWarmup = accumulator.getArrayAllocationCount();
+
+        for (int round = 0; round < 10; round++) {
+            accumulator.rememberPreRoll(frame, 4);
+            accumulator.startSegmentFromPreRoll();
+            accumulator.append(frame, 4);
+            PcmSegment segment = accumulator.takeSegment();
+            assertEquals(8, segment.length());
+            segment.recycle();
+        }
+
+        assertEquals(allocationsAfterWarmup, accumulator.getArrayAllocationCount());
+        assertEquals(13L, accumulator.getSegmentsHandedOff());
+    }
+
+    @Test
+    public void takeSegment_returnsNullWhenEmpty() {
+        SegmentAccumulator accumulator = new SegmentAccumulator(1, 4);
+
+        assertNull(accumulator.takeSegment());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void samples_rejectsAccessAfterRecycle() {
+        SegmentAccumulator accumulator = new SegmentAccumulator(0, 4);
+        accumulator.append(new short[] {1}, 1);
+        PcmSegment segment = accumulator.takeSegment();
+
+        segment.recycle();
+        segment.samples();
+    }
+}
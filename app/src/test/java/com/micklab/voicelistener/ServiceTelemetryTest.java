@@ -0,0 +1,80 @@
+package com.micklab.voicelistener;
+
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ServiceTelemetryTest {
+    @Test
+    public void publish_coalescesChangesIntoSingleDispatch() {
+        ArrayDeque<Runnable> posted = new ArrayDeque<>();
+        ServiceTelemetry telemetry = new ServiceTelemetry(posted::add);
+        List<Integer> masks = new ArrayList<>();
+        telemetry.addListener((source, changedMask) -> masks.add(changedMask));
+
+        telemetry.publishLevel(10f);
+        telemetry.publishLevel(20f);
+        telemetry.publishMonitorState("running");
+
+        assertEquals(1, posted.size());
+        posted.poll().run();
+        assertEquals(1, masks.size());
+        assertEquals(
+            ServiceTelemetry.CHANGED_LEVEL | ServiceTelemetry.CHANGED_MONITOR_STATE,
+            (int) masks.get(0)
+        );
+        assertEquals(20f, telemetry.getLevel(), 0f);
+        assertEquals("running", telemetry.getMonitorState());
+    }
+
+    @Test
+    public void publish_dispatchesAgainAfterPreviousDelivery() {
+        ArrayDeque<Runnable> posted = new ArrayDeque<>();
+        ServiceTelemetry telemetry = new ServiceTelemetry(posted::add);
+        List<Integer> masks = new ArrayList<>();
+        telemetry.addListener((source, changedMask) -> masks.add(changedMask));
+
+        telemetry.publishModelDownload(true, 10, "model");
+        posted.poll().run();
+        telemetry.publishWhisperModelDownload(true, 50, "whisper.gguf");
+        posted.poll().run();
+
+        assertEquals(2, masks.size());
+        assertEquals(ServiceTelemetry.CHANGED_WHISPER_MODEL_DOWNLOAD, (int) masks.get(1));
+        assertTrue(telemetry.getWhisperModelDownload().isActive());
+        assertEquals(50, telemetry.getWhisperModelDownload().getProgress());
+        assertEquals("whisper.gguf", telemetry.getWhisperModelDownload().getModelName());
+    }
+
+    @Test
+    public void publish_keepsLatestValueWithoutDispatchWhenNobodyListens() {
+        ArrayDeque<Runnable> posted = new ArrayDeque<>();
+        ServiceTelemetry telemetry = new ServiceTelemetry(posted::add);
+
+        telemetry.publishLevel(42f);
+        telemetry.publishModelDownload(false, 100, "vosk");
+
+        assertTrue(posted.isEmpty());
+        assertEquals(42f, telemetry.getLevel(), 0f);
+        assertFalse(telemetry.getModelDownload().isActive());
+        assertNull(telemetry.getMonitorState());
+    }
+
+    @Test
+    public void publishLevel_skipsDispatchWhenValueIsUnchanged() {
+        ArrayDeque<Runnable> posted = new ArrayDeque<>();
+        ServiceTelemetry telemetry = new ServiceTelemetry(posted::add);
+        telemetry.addListener((source, changedMask) -> { });
+
+        telemetry.publishLevel(0f);
+
+        assertTrue(posted.isEmpty());
+    }
+}
@@ -0,0 +1,86 @@
+package com.micklab.voicelistener;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SpectralFrameClassifierTest {
+    private static final int SAMPLE_RATE_HZ = 16000;
+    private static final int FRAME_SAMPLES = 1024;
+
+    @Test
+    public void isSpeech_acceptsHarmonicSignalInSpeechBand() {
+        SpectralFrameClassifier classifier = new SpectralFrameClassifier(SAMPLE_RATE_HZ, FRAME_SAMPLES);
+        short[] samples = new short[FRAME_SAMPLES];
+        for (int index = 0; index < samples.length; index++) {
+            double value = 0.0;
+            for (int harmonic = 2; harmonic <= 16; harmonic++) {
+                value += Math.sin(2.0 * Math.PI * 200.0 * harmonic * index / SAMPLE_RATE_HZ) / harmonic;
+            }
+            samples[index] = (short) (value * 3000.0);
+        }
+
+        assertTrue(classifier.isSpeech(AudioFramePool.wrap(samples), 100.0));
+        assertTrue(classifier.lastSpeechBandRatio() > 0.9);
+    }
+
+    @Test
+    public void isSpeech_rejectsLowFrequencyHum() {
+        SpectralFrameClassifier classifier = new SpectralFrameClassifier(SAMPLE_RATE_HZ, FRAME_SAMPLES);
+        short[] samples = new short[FRAME_SAMPLES];
+        for (int index = 0; index < samples.length; index++) {
+            samples[index] = (short) (8000.0 * Math.sin(2.0 * Math.PI * 100.0 * index / SAMPLE_RATE_HZ));
+        }
+
+        assertFalse(classifier.isSpeech(AudioFramePool.wrap(samples), 100.0));
+        assertTrue(classifier.lastSpeechBandRatio() < 0.5);
+    }
+
+    @Test
+    public void isSpeech_rejectsBroadbandNoise() {
+        SpectralFrameClassifier classifier = new SpectralFrameClassifier(SAMPLE_RATE_HZ, FRAME_SAMPLES);
+        Random random = new Random(11L);
+        short[] samples = new short[FRAME_SAMPLES];
+        for (int index = 0; index < samples.length; index++) {
+            samples[index] = (short) (random.nextGaussian() * 3000.0);
+        }
+
+        assertFalse(classifier.isSpeech(AudioFramePool.wrap(samples), 100.0));
+        assertTrue(classifier.lastSpectralFlatness() > 0.4);
+    }
+
+    @Test
+    public void isSpeech_tapersTwentyMillisecondFramesPaddedToFftSize() {
+        int frameSamples = SAMPLE_RATE_HZ / 50;
+        SpectralFrameClassifier classifier = new SpectralFrameClassifier(SAMPLE_RATE_HZ, frameSamples);
+        short[] hum = new short[frameSamples];
+        short[] voiced = new short[frameSamples];
+        for (int index = 0; index < frameSamples; index++) {
+            hum[index] = (short) (8000.0 * Math.sin(2.0 * Math.PI * 100.0 * index / SAMPLE_RATE_HZ));
+            double value = 0.0;
+            for (int harmonic = 2; harmonic <= 16; harmonic++) {
+                value += Math.sin(2.0 * Math.PI * 200.0 * harmonic * index / SAMPLE_RATE_HZ) / harmonic;
+            }
+            voiced[index] = (short) (value * 3000.0);
+        }
+
+        assertFalse(classifier.isSpeech(AudioFramePool.wrap(hum), 100.0));
+        assertTrue(classifier.lastSpeechBandRatio() < 0.1);
+        assertTrue(classifier.isSpeech(AudioFramePool.wrap(voiced), 100.0));
+        assertTrue(classifier.lastSpeechBandRatio() > 0.9);
+    }
+
+    @Test
+    public void isSpeech_skipsSpectrumBelowEnergyThreshold() {
+        SpectralFrameClassifier classifier = new SpectralFrameClassifier(SAMPLE_RATE_HZ, FRAME_SAMPLES);
+        short[] samples = new short[FRAME_SAMPLES];
+        samples[0] = 10;
+
+        assertFalse(classifier.isSpeech(AudioFramePool.wrap(samples), 100.0));
+        assertEquals(0L, classifier.getAnalyzedFrameCount());
+    }
+}
@@ -0,0 +1,190 @@
+package com.micklab.voicelistener;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class SpeechRecognizerFacadeTest {
+    @Test
+    public void submit_returnsBeforeDecodeCompletes() throws Exception {
+        PendingEngine engine = new PendingEngine();
+        SpeechRecognizerFacade facade = new SpeechRecognizerFacade(config -> engine);
+        facade.selectEngine(new SpeechRecognizerConfig(EngineType.VOSK, "model"));
+        facade.start();
+
+        CompletableFuture<String> result = facade.submit(new short[] {1, 2, 3});
+
+        assertFalse(result.isDone());
+        assertEquals(3, engine.pushedSamples);
+        engine.pending.complete("こんにちは");
+        assertEquals("こんにちは", result.get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void stop_doesNotWaitForInFlightDecode() throws Exception {
+        PendingEngine engine = new PendingEngine();
+        SpeechRecognizerFacade facade = new SpeechRecognizerFacade(config -> engine);
+        facade.selectEngine(new SpeechRecognizerConfig(EngineType.VOSK, "model"));
+        facade.start();
+        facade.submit(new short[] {1});
+
+        CountDownLatch stopped = new CountDownLatch(1);
+        Thread stopper = new Thread(() -> {
+            facade.stop();
+            stopped.countDown();
+        });
+        stopper.start();
+
+        assertTrue(stopped.await(1, TimeUnit.SECONDS));
+        engine.pending.complete("");
+    }
+
+    @Test
+    public void submit_defaultWrapsSynchronousTranscribe() throws Exception {
+        NoOpSpeechRecognizerEngine engine = new NoOpSpeechRecognizerEngine();
+        SpeechRecognizerFacade facade = new SpeechRecognizerFacade(config -> engine);
+        facade.selectEngine(new SpeechRecognizerConfig(EngineType.VOSK, "model"));
+
+        CompletableFuture<String> result = facade.submit(new short[] {1, 2});
+
+        assertTrue(result.isDone());
+        assertEquals("", result.get());
+    }
+
+    @Test
+    public void submitResult_copiesDirectPcmForEnginesWithoutDirectPath() throws Exception {
+        PendingEngine engine = new PendingEngine();
+        SpeechRecognizerFacade facade = new SpeechRecognizerFacade(config -> engine);
+        facade.selectEngine(new SpeechRecognizerConfig(EngineType.VOSK, "model"));
+        ByteBuffer pcm = ByteBuffer.allocateDirect(8).order(ByteOrder.nativeOrder());
+        pcm.asShortBuffer().put(new short[] {5, -6, 7, 8});
+
+        facade.submitResult(pcm, 3);
+
+        assertArrayEquals(new short[] {5, -6, 7}, engine.lastBuffer);
+        assertEquals(0, pcm.position());
+    }
+
+    @Test
+    public void submitResult_passesSegmentArrayWithLengthUntrimmed() throws Exception {
+        short[][] seen = new short[1][];
+        int[] seenLength = {-1};
+        SpeechRecognizerEngine engine = new SpeechRecognizerEngine() {
+            @Override
+            public void start() {
+            }
+
+            @Override
+            public void stop() {
+            }
+
+            @Override
+            public void release() {
+            }
+
+            @Override
+            public String transcribe(short[] buffer) {
+                return transcribe(buffer, buffer.length);
+            }
+
+            @Override
+            public String transcribe(short[] buffer, int length) {
+                seen[0] = buffer;
+                seenLength[0] = length;
+                return "ok";
+            }
+        };
+        SpeechRecognizerFacade facade = new SpeechRecognizerFacade(config -> engine);
+        facade.selectEngine(new SpeechRecognizerConfig(EngineType.VOSK, "model"));
+        short[] pooled = new short[] {1, 2, 3, 0, 0};
+
+        RecognitionResult result = facade.submitResult(pooled, 3).get();
+
+        assertSame(pooled, seen[0]);
+        assertEquals(3, seenLength[0]);
+        assertEquals("ok", result.getText());
+    }
+
+    @Test
+    public void selectEngineAsync_swapsOnlyAtUtteranceBoundary() throws Exception {
+        PendingEngine first = new PendingEngine();
+        PendingEngine second = new PendingEngine();
+        List<PendingEngine> engines = new ArrayList<>(Arrays.asList(first, second));
+        SpeechRecognizerFacade facade = new SpeechRecognizerFacade(config -> engines.remove(0));
+        facade.selectEngine(new SpeechRecognizerConfig(EngineType.VOSK, "first"));
+        facade.start();
+        facade.submit(new short[] {1, 2});
+
+        facade.selectEngineAsync(new SpeechRecognizerConfig(EngineType.VOSK, "second")).get(1, TimeUnit.SECONDS);
+        facade.submit(new short[] {3});
+
+        assertEquals(3, first.pushedSamples);
+        assertEquals(0, second.pushedSamples);
+        assertFalse(first.released);
+
+        facade.submitFlush();
+        facade.submit(new short[] {4, 5, 6, 7});
+
+        assertTrue(first.released);
+        assertEquals(4, second.pushedSamples);
+    }
+
+    private static final class PendingEngine implements SpeechRecognizerEngine {
+        final CompletableFuture<String> pending = new CompletableFuture<>();
+        int pushedSamples = 0;
+        short[] lastBuffer;
+        boolean released = false;
+
+        @Override
+        public void start() {
+        }
+
+        @Override
+        public void stop() {
+        }
+
+        @Override
+        public String transcribe(short[] buffer) {
+            return "";
+        }
+
+        @Override
+        public String flush() {
+            return "";
+        }
+
+        @Override
+        public void discardPending() {
+        }
+
+        @Override
+        public void release() {
+            released = true;
+        }
+
+        @Override
+        public CompletableFuture<String> submit(short[] buffer) {
+            pushedSamples += buffer.length;
+            lastBuffer = buffer;
+            return pending;
+        }
+
+        @Override
+        public CompletableFuture<String> submitFlush() {
+            return pending;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.micklab.voicelistener;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TranscriptionQueueTest {
+    @Test
+    public void drainAndStop_processesQueuedWorkInOrder() throws Exception {
+        List<String> processed = Collections.synchronizedList(new ArrayList<>());
+        TranscriptionQueue queue = new TranscriptionQueue(
+            8,
+            "test-worker",
+            work -> processed.add(work.kind() + ":" + work.triggerReason())
+        );
+        AudioFramePool pool = new AudioFramePool(2, 4);
+        queue.start();
+
+        AudioFramePool.Frame frame = pool.acquire();
+        frame.setLength(4);
+        assertTrue(queue.offerFrame(frame, 1L, "stream.frame"));
+        frame.release();
+        assertTrue(queue.offerControl(TranscriptionQueue.Kind.FLUSH, 2L, "vad.segment", 4));
+
+        assertTrue(queue.drainAndStop(5, TimeUnit.SECONDS));
+        assertEquals(2, processed.size());
+        assertEquals("FRAME:stream.frame", processed.get(0));
+        assertEquals("FLUSH:vad.segment", processed.get(1));
+        assertEquals(2, pool.availableCount());
+        assertEquals(2L, queue.completedCount());
+        assertFalse(queue.isAccepting());
+    }
+
+    @Test
+    public void offerFrame_dropsWhenFullButKeepsRoomForControlWork() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        TranscriptionQueue queue = new TranscriptionQueue(8, "test-worker", work -> {
+            started.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        AudioFramePool pool = new AudioFramePool(16, 4);
+        queue.start();
+
+        int accepted = 0;
+        for (int index = 0; index < 10; index++) {
+            AudioFramePool.Frame frame = pool.acquire();
+            frame.setLength(4);
+            if (queue.offerFrame(frame, index, "stream.frame")) {
+                accepted++;
+            }
+            frame.release();
+            if (index == 0) {
+                assertTrue(started.await(5, TimeUnit.SECONDS));
+            }
+        }
+
+        assertEquals(4, accepted);
+        assertEquals(6L, queue.droppedCount());
+        assertEquals(4, queue.highWaterMark());
+        assertTrue(queue.offerControl(TranscriptionQueue.Kind.FLUSH, 99L, "capture.stop", 0));
+
+        release.countDown();
+        assertTrue(queue.drainAndStop(5, TimeUnit.SECONDS));
+        assertEquals(16, pool.availableCount());
+    }
+
+    @Test
+    public void stopNow_releasesAudioOfUnprocessedWork() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        List<Long> processed = Collections.synchronizedList(new ArrayList<>());
+        TranscriptionQueue queue = new TranscriptionQueue(8, "test-worker", work -> {
+            processed.add(work.traceId());
+            started.countDown();
+            try {
+                Thread.sleep(5_000L);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        AudioFramePool pool = new AudioFramePool(4, 4);
+        queue.start();
+
+        for (int index = 0; index < 3; index++) {
+            AudioFramePool.Frame frame = pool.acquire();
+            frame.setLength(4);
+            queue.offerFrame(frame, index, "stream.frame");
+            frame.release();
+        }
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        queue.stopNow();
+
+        assertTrue(queue.drainAndStop(5, TimeUnit.SECONDS));
+        assertEquals(1, processed.size());
+        assertEquals(4, pool.availableCount());
+    }
+}
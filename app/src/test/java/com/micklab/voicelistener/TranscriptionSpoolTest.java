@@ -0,0 +1,137 @@
+package com.micklab.voicelistener;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class TranscriptionSpoolTest {
+    private File directory;
+
+    @Before
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("spool-test").toFile();
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    @Test
+    public void take_returnsRecordsInAppendOrderAcrossFiles() throws Exception {
+        TranscriptionSpool spool = new TranscriptionSpool(directory, 64L);
+        spool.append(TranscriptionQueue.Kind.FRAME, 1L, 100L, 0, "stream.frame", new short[] {1, 2, 3}, 0, 3);
+        spool.append(TranscriptionQueue.Kind.FLUSH, 2L, 101L, 3, "vad.segment", null, 0, 0);
+        spool.append(TranscriptionQueue.Kind.SEGMENT, 3L, 102L, 0, "segment", new short[] {9, 8, 7, 6}, 1, 2);
+
+        TranscriptionSpool.Record first = spool.take();
+        TranscriptionSpool.Record second = spool.take();
+        TranscriptionSpool.Record third = spool.take();
+
+        assertEquals(TranscriptionQueue.Kind.FRAME, first.kind());
+        assertArrayEquals(new short[] {1, 2, 3}, first.samples());
+        assertEquals(100L, first.capturedAtMs());
+        assertEquals(TranscriptionQueue.Kind.FLUSH, second.kind());
+        assertEquals("vad.segment", second.triggerReason());
+        assertEquals(3, second.relatedSamples());
+        assertArrayEquals(new short[] {8, 7}, third.samples());
+        assertEquals(3L, third.traceId());
+        assertNull(spool.take());
+        assertFalse(spool.hasPendingRecords());
+    }
+
+    @Test
+    public void reopen_resumesAfterConsumedRecords() throws Exception {
+        TranscriptionSpool spool = new TranscriptionSpool(directory);
+        spool.append(TranscriptionQueue.Kind.SEGMENT, 1L, 1L, 0, "segment", new short[] {1}, 0, 1);
+        spool.append(TranscriptionQueue.Kind.SEGMENT, 2L, 2L, 0, "segment", new short[] {2}, 0, 1);
+        spool.append(TranscriptionQueue.Kind.SEGMENT, 3L, 3L, 0, "segment", new short[] {3}, 0, 1);
+        spool.take();
+        spool.close();
+
+        TranscriptionSpool reopened = new TranscriptionSpool(directory);
+
+        assertEquals(2, reopened.getRecoveredRecordCount());
+        assertEquals(2L, reopened.take().traceId());
+        assertEquals(3L, reopened.take().traceId());
+        assertNull(reopened.take());
+    }
+
+    @Test
+    public void reopen_dropsTornTailRecord() throws Exception {
+        TranscriptionSpool spool = new TranscriptionSpool(directory);
+        spool.append(TranscriptionQueue.Kind.SEGMENT, 1L, 1L, 0, "segment", new short[] {1, 2}, 0, 2);
+        spool.append(TranscriptionQueue.Kind.SEGMENT, 2L, 2L, 0, "segment", new short[] {3, 4}, 0, 2);
+        spool.close();
+        File file = directory.listFiles((dir, name) -> name.endsWith(".pcm"))[0];
+        try (RandomAccessFile raw = new RandomAccessFile(file, "rw")) {
+            raw.setLength(raw.length() - 3);
+        }
+
+        TranscriptionSpool reopened = new TranscriptionSpool(directory);
+
+        assertEquals(1, reopened.getRecoveredRecordCount());
+        assertEquals(1L, reopened.take().traceId());
+        assertNull(reopened.take());
+    }
+
+    @Test
+    public void queueBacklog_runsSpooledWorkAfterRing() throws Exception {
+        TranscriptionSpool spool = new TranscriptionSpool(directory);
+        List<String> processed = Collections.synchronizedList(new ArrayList<>());
+        TranscriptionQueue queue = new TranscriptionQueue(
+            8,
+            "test-worker",
+            work -> processed.add(work.kind() + ":" + work.traceId() + ":" + work.sampleCount()),
+            spool
+        );
+        spool.setEnabled(false);
+        queue.start();
+
+        assertTrue(queue.offerControl(TranscriptionQueue.Kind.FLUSH, 1L, "first", 0));
+        spool.append(TranscriptionQueue.Kind.FRAME, 2L, 0L, 0, "stream.frame", new short[] {1, 2, 3, 4}, 0, 4);
+        spool.append(TranscriptionQueue.Kind.FLUSH, 3L, 0L, 4, "vad.segment", null, 0, 0);
+        spool.setEnabled(true);
+        queue.signalBacklog();
+
+        assertTrue(queue.drainAndStop(5, TimeUnit.SECONDS));
+        assertEquals(3, processed.size());
+        assertEquals("FLUSH:1:0", processed.get(0));
+        assertEquals("SEGMENT:2:4", processed.get(1));
+        assertEquals("FLUSH:3:0", processed.get(2));
+        assertEquals(0, spool.pendingRecordCount());
+    }
+
+    @Test
+    public void stopNow_spillsQueuedWorkInsteadOfDropping() throws Exception {
+        List<Long> spilled = Collections.synchronizedList(new ArrayList<>());
+        TranscriptionQueue queue = new TranscriptionQueue(8, "test-worker", work -> { });
+
+        assertTrue(queue.offerControl(TranscriptionQueue.Kind.FLUSH, 7L, "capture.stop", 0));
+        queue.stopNow(work -> spilled.add(work.traceId()));
+        queue.start();
+        queue.drainAndStop(5, TimeUnit.SECONDS);
+
+        assertEquals(Collections.singletonList(7L), spilled);
+    }
+}
@@ -0,0 +1,72 @@
+package com.micklab.voicelistener;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class VadTimingTest {
+    @Test
+    public void defaultsFor_matchesPreviousFrameCounts() {
+        VadTiming whisper = VadTiming.defaultsFor(EngineType.WHISPER);
+        assertEquals(1024, whisper.frameSamples(16000));
+        assertEquals(6, whisper.maxSilenceFrames());
+        assertEquals(4, whisper.minSpeechFrames());
+        assertEquals(20, whisper.maxContinuousSpeechFrames());
+        assertEquals(6, whisper.preRollFrames());
+
+        VadTiming vosk = VadTiming.defaultsFor(EngineType.VOSK);
+        assertEquals(15, vosk.maxSilenceFrames());
+        assertEquals(8, vosk.minSpeechFrames());
+        assertEquals(64, vosk.maxContinuousSpeechFrames());
+    }
+
+    @Test
+    public void frameCounts_roundUpToWholeFrames() {
+        VadTiming timing = new VadTiming(20, 390, 250, 1290, 100);
+
+        assertEquals(320, timing.frameSamples(16000));
+        assertEquals(20, timing.maxSilenceFrames());
+        assertEquals(13, timing.minSpeechFrames());
+        assertEquals(65, timing.maxContinuousSpeechFrames());
+        assertEquals(5, timing.preRollFrames());
+    }
+
+    @Test
+    public void constructor_keepsMaxSegmentAtLeastMinSpeech() {
+        VadTiming timing = new VadTiming(10, 100, 500, 200, 0);
+
+        assertEquals(500, timing.maxSegmentMs());
+        assertEquals(0, timing.preRollFrames());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructor_rejectsUnsupportedFrameSize() {
+        new VadTiming(30, 300, 200, 1000, 300);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructor_rejectsNonPositiveHangover() {
+        new VadTiming(20, 0, 200, 1000, 300);
+    }
+
+    @Test
+    public void withFrameMs_keepsMillisecondSettings() {
+        VadTiming timing = VadTiming.defaultsFor(EngineType.WHISPER);
+        VadTiming shorter = timing.withFrameMs(32);
+
+        assertSame(timing, timing.withFrameMs(64));
+        assertEquals(384, shorter.hangoverMs());
+        assertEquals(12, shorter.maxSilenceFrames());
+        assertEquals(512, shorter.frameSamples(16000));
+    }
+
+    @Test
+    public void isSupportedFrameMs_acceptsOnlyListedSizes() {
+        assertTrue(VadTiming.isSupportedFrameMs(10));
+        assertTrue(VadTiming.isSupportedFrameMs(64));
+        assertFalse(VadTiming.isSupportedFrameMs(16));
+    }
+}
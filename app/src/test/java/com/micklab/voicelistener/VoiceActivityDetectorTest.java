@@ -3,8 +3,10 @@ package com.micklab.voicelistener;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 public class VoiceActivityDetectorTest {
     @Test
@@ -56,6 +58,89 @@ public class VoiceActivityDetectorTest {
         assertEquals(250, secondChunk[4]);
     }
 
+    @Test
+    public void processFrame_releasesPooledFramesOnceSegmentIsEmitted() {
+        AudioFramePool pool = new AudioFramePool(8, 2);
+        VoiceActivityDetector detector = new VoiceActivityDetector(100.0, 1, 1);
+
+        assertNull(process(detector, pool, 10));
+        assertNull(process(detector, pool, 200));
+        short[] segment = process(detector, pool, 10);
+
+        assertNotNull(segment);
+        assertEquals(6, segment.length);
+        assertEquals(200, segment[2]);
+        assertEquals(8, pool.availableCount());
+    }
+
+    @Test
+    public void processFrame_usesInjectedClassifierAndCountsItsCost() {
+        SpeechFrameClassifier neverSpeech = new SpeechFrameClassifier() {
+            @Override
+            public boolean isSpeech(AudioFramePool.Frame frame, double energyThreshold) {
+                return false;
+            }
+
+            @Override
+            public VadMode mode() {
+                return VadMode.SPECTRAL;
+            }
+        };
+        VoiceActivityDetector detector = new VoiceActivityDetector(100.0, 1, 1, 4, neverSpeech);
+
+        assertNull(detector.processFrame(frame(5000, 5000)));
+        assertNull(detector.processFrame(frame(5000, 5000)));
+
+        assertFalse(detector.isInSpeech());
+        assertEquals(VadMode.SPECTRAL, detector.getMode());
+        assertEquals(2L, detector.getClassifiedFrameCount());
+    }
+
+    @Test
+    public void processFrameSegment_stopsAllocatingOnceSegmentsAreRecycled() {
+        VoiceActivityDetector detector = new VoiceActivityDetector(100.0, 1, 1);
+        long allocationsAfterWarmup = 0L;
+
+        for (int round = 0; round < 5; round++) {
+            assertNull(detector.processFrameSegment(AudioFramePool.wrap(frame(200, 200))));
+            PcmSegment segment = detector.processFrameSegment(AudioFramePool.wrap(frame(10, 10)));
+            assertNotNull(segment);
+            assertEquals(4, segment.length());
+            segment.recycle();
+            if (round == 1) {
+                allocationsAfterWarmup = detector.getSegmentArrayAllocationCount();
+            }
+        }
+
+        assertEquals(allocationsAfterWarmup, detector.getSegmentArrayAllocationCount());
+    }
+
+    private short[] process(VoiceActivityDetector detector, AudioFramePool pool, int value) {
+        AudioFramePool.Frame pooled = pool.acquire();
+        pooled.pcm().put(0, (short) value);
+        pooled.pcm().put(1, (short) value);
+        pooled.setLength(2);
+        try {
+            return detector.processFrame(pooled);
+        } finally {
+            pooled.release();
+        }
+    }
+
+    @Test
+    public void warmStartNoiseFloor_raisesThresholdFromFirstFrame() {
+        VoiceActivityDetector cold = new VoiceActivityDetector(100.0, 1, 1);
+        VoiceActivityDetector warm = new VoiceActivityDetector(100.0, 1, 1);
+        warm.warmStartNoiseFloor(200.0);
+
+        cold.processFrame(frame(250, 250));
+        warm.processFrame(frame(250, 250));
+
+        assertTrue(cold.isInSpeech());
+        assertFalse(warm.isInSpeech());
+        assertEquals(200.0, warm.getNoiseFloorMinimum(), 0.001);
+    }
+
     private short[] frame(int first, int second) {
         return new short[] {(short) first, (short) second};
     }
@@ -5,6 +5,8 @@ import static org.junit.Assert.assertNull;
 
 import org.junit.Test;
 
+import java.util.Arrays;
+
 public class WhisperModelManagerTest {
 
     @Test
@@ -45,4 +47,29 @@ public class WhisperModelManagerTest {
     public void deriveModelNameFromUrl_rejectsNonGgufFiles() {
         WhisperModelManager.deriveModelNameFromUrl("https://example.com/models/whisper-large-v3.bin");
     }
+
+    @Test
+    public void modelSizeRank_readsArchitectureFromName() {
+        assertEquals(1, WhisperModelManager.modelSizeRank("ggml-base.en-q5_1.gguf"));
+        assertEquals(3, WhisperModelManager.modelSizeRank("whisper-medium-q8_0.gguf"));
+        assertEquals(4, WhisperModelManager.modelSizeRank("whisper-large-v3-turbo-q5_0.gguf"));
+        assertEquals(-1, WhisperModelManager.modelSizeRank("custom.gguf"));
+    }
+
+    @Test
+    public void modelLadder_ordersBySizeThenFileLength() {
+        assertEquals(
+            Arrays.asList("whisper-base.gguf", "whisper-small-q5_0.gguf", "whisper-small-q8_0.gguf", "whisper-medium-q8_0.gguf"),
+            WhisperModelManager.modelLadder(
+                Arrays.asList(
+                    "whisper-medium-q8_0.gguf",
+                    "custom.gguf",
+                    "whisper-small-q8_0.gguf",
+                    "whisper-base.gguf",
+                    "whisper-small-q5_0.gguf"
+                ),
+                name -> name.contains("q5_0") ? 200L : 300L
+            )
+        );
+    }
 }
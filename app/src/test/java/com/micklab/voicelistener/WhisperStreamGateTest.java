@@ -0,0 +1,89 @@
+package com.micklab.voicelistener;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class WhisperStreamGateTest {
+    @Test
+    public void offer_dropsSilenceAndStreamsPreRollWhenSpeechStarts() {
+        AudioFramePool pool = new AudioFramePool(8, 4);
+        WhisperStreamGate gate = new WhisperStreamGate(2);
+        List<AudioFramePool.Frame> streamed = new ArrayList<>();
+
+        AudioFramePool.Frame first = offer(gate, pool, false, streamed);
+        AudioFramePool.Frame second = offer(gate, pool, false, streamed);
+        AudioFramePool.Frame third = offer(gate, pool, false, streamed);
+        assertTrue(streamed.isEmpty());
+
+        AudioFramePool.Frame speech = pool.acquire();
+        speech.setLength(4);
+        assertEquals(WhisperStreamGate.Transition.OPENED, gate.offer(speech, true, streamed::add));
+        speech.release();
+
+        assertEquals(3, streamed.size());
+        assertSame(second, streamed.get(0));
+        assertSame(third, streamed.get(1));
+        assertSame(speech, streamed.get(2));
+        assertEquals(0, first.refCount());
+        assertEquals(0, second.refCount());
+        assertEquals(3L, gate.getStreamedFrameCount());
+        assertEquals(1L, gate.getGatedFrameCount());
+    }
+
+    @Test
+    public void offer_reportsClosedOnceWhenSpeechEnds() {
+        AudioFramePool pool = new AudioFramePool(8, 4);
+        WhisperStreamGate gate = new WhisperStreamGate(1);
+        List<AudioFramePool.Frame> streamed = new ArrayList<>();
+
+        offer(gate, pool, true, streamed);
+        assertTrue(gate.isOpen());
+
+        AudioFramePool.Frame silence = pool.acquire();
+        silence.setLength(4);
+        assertEquals(WhisperStreamGate.Transition.CLOSED, gate.offer(silence, false, streamed::add));
+        silence.release();
+        assertFalse(gate.isOpen());
+
+        AudioFramePool.Frame more = pool.acquire();
+        more.setLength(4);
+        assertEquals(WhisperStreamGate.Transition.NONE, gate.offer(more, false, streamed::add));
+        more.release();
+        assertEquals(1, streamed.size());
+    }
+
+    @Test
+    public void clear_releasesRetainedPreRoll() {
+        AudioFramePool pool = new AudioFramePool(4, 4);
+        WhisperStreamGate gate = new WhisperStreamGate(3);
+        List<AudioFramePool.Frame> streamed = new ArrayList<>();
+
+        offer(gate, pool, false, streamed);
+        offer(gate, pool, false, streamed);
+        assertEquals(2, pool.availableCount());
+
+        gate.clear();
+
+        assertEquals(4, pool.availableCount());
+    }
+
+    private static AudioFramePool.Frame offer(
+        WhisperStreamGate gate,
+        AudioFramePool pool,
+        boolean inSpeech,
+        List<AudioFramePool.Frame> streamed
+    ) {
+        AudioFramePool.Frame frame = pool.acquire();
+        frame.setLength(4);
+        gate.offer(frame, inSpeech, streamed::add);
+        frame.release();
+        return frame;
+    }
+}
@@ -0,0 +1,70 @@
+package com.micklab.voicelistener;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+public class WhisperThreadCalibratorTest {
+
+    @Test
+    public void candidates_addPinnedSettingsForFasterTiersOnly() {
+        CpuTopology topology = new CpuTopology(new long[] {
+            1800000L, 1800000L, 1800000L, 1800000L, 2400000L, 2400000L, 2400000L, 3000000L
+        });
+
+        List<ThreadSetting> candidates = WhisperThreadCalibrator.candidates(topology);
+
+        assertEquals(
+            Arrays.asList(
+                new ThreadSetting(8, 0L),
+                new ThreadSetting(4, 0L),
+                new ThreadSetting(2, 0L),
+                new ThreadSetting(1, 0x80L),
+                new ThreadSetting(4, 0xf0L),
+                new ThreadSetting(2, 0xf0L)
+            ),
+            candidates
+        );
+        for (ThreadSetting candidate : candidates) {
+            assertFalse(candidate.getCoreMask() == 0xffL);
+        }
+    }
+
+    @Test
+    public void calibrate_picksFastestAndSkipsFailedRuns() {
+        ThreadSetting allCores = new ThreadSetting(8, 0L);
+        ThreadSetting bigCores = new ThreadSetting(4, 0xf0L);
+        ThreadSetting failed = new ThreadSetting(2, 0xf0L);
+        WhisperThreadCalibrator calibrator = new WhisperThreadCalibrator(setting -> {
+            if (setting.equals(allCores)) {
+                return 900L;
+            }
+            return setting.equals(bigCores) ? 600L : -1L;
+        });
+
+        WhisperThreadCalibrator.Result result = calibrator.calibrate(Arrays.asList(allCores, failed, bigCores));
+
+        assertEquals(bigCores, result.getBest());
+        assertEquals(Long.valueOf(-1L), result.getTimingsMs().get(failed));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void calibrate_rejectsWhenEveryRunFails() {
+        new WhisperThreadCalibrator(setting -> -1L).calibrate(Arrays.asList(new ThreadSetting(4, 0L)));
+    }
+
+    @Test
+    public void threadSetting_roundTripsThroughEncoding() {
+        ThreadSetting setting = new ThreadSetting(4, 0xf0L);
+
+        assertEquals(setting, ThreadSetting.decode(setting.encode()));
+        assertNull(ThreadSetting.decode("0:0"));
+        assertNull(ThreadSetting.decode("four:0"));
+        assertNull(ThreadSetting.decode(null));
+    }
+}